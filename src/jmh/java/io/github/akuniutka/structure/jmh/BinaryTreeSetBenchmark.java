@@ -0,0 +1,107 @@
+package io.github.akuniutka.structure.jmh;
+
+import io.github.akuniutka.structure.BinaryTreeSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of {@link BinaryTreeSet}. The tree is built by inserting
+ * keys in the order given by {@code distribution}, so {@code SORTED}
+ * and {@code SKEWED} show how the unbalanced tree degrades. Keep sizes
+ * modest for those distributions: building a degenerate tree is
+ * quadratic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinaryTreeSetBenchmark {
+    static final int OPERATIONS = 1024;
+    private static final long SEED = 42L;
+
+    @Param({"1000", "10000"})
+    int size;
+
+    @Param
+    KeyDistribution distribution;
+
+    Integer[] keys;
+    Integer[] lookups;
+    BinaryTreeSet<Integer> set;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = distribution.boxedKeys(size, SEED);
+        lookups = KeyDistribution.RANDOM.boxedKeys(size, SEED + 1);
+        set = build(keys);
+    }
+
+    /**
+     * A copy of the benchmark set re-created before every invocation
+     * for operations that change it.
+     */
+    @State(Scope.Thread)
+    public static class Mutable {
+        BinaryTreeSet<Integer> set;
+
+        @Setup(Level.Invocation)
+        public void setUp(BinaryTreeSetBenchmark benchmark) {
+            set = build(benchmark.keys);
+        }
+    }
+
+    @Benchmark
+    public BinaryTreeSet<Integer> add() {
+        return build(keys);
+    }
+
+    @Benchmark
+    public BinaryTreeSet<Integer> from() {
+        return BinaryTreeSet.from(keys, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void contains(Blackhole blackhole) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            blackhole.consume(set.contains(lookups[i % size]));
+        }
+    }
+
+    @Benchmark
+    public BinaryTreeSet<Integer> remove(Mutable state) {
+        BinaryTreeSet<Integer> target = state.set;
+        for (Integer key : lookups) {
+            target.remove(key);
+        }
+        return target;
+    }
+
+    @Benchmark
+    public void iterator(Blackhole blackhole) {
+        for (Integer value : set) {
+            blackhole.consume(value);
+        }
+    }
+
+    @Benchmark
+    public void iteratorFirst100(Blackhole blackhole) {
+        Iterator<Integer> iterator = set.iterator();
+        for (int i = 0; i < 100 && iterator.hasNext(); i++) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    static BinaryTreeSet<Integer> build(Integer[] keys) {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        for (Integer key : keys) {
+            set.add(key);
+        }
+        return set;
+    }
+}
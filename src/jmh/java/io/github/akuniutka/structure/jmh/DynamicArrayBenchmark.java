@@ -0,0 +1,112 @@
+package io.github.akuniutka.structure.jmh;
+
+import io.github.akuniutka.structure.DynamicArray;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of {@link DynamicArray}. Operations that modify the array in
+ * place work on a fresh copy prepared before each invocation, so every
+ * invocation starts from an array of exactly {@code size} elements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DynamicArrayBenchmark {
+    static final int OPERATIONS = 1024;
+    private static final long SEED = 42L;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param
+    KeyDistribution distribution;
+
+    Integer[] values;
+    int[] indices;
+    DynamicArray<Integer> array;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = distribution.boxedKeys(size, SEED);
+        indices = distribution.keys(Math.max(size, OPERATIONS), SEED + 1);
+        array = new DynamicArray<>(values);
+    }
+
+    /**
+     * A copy of the benchmark array re-created before every invocation
+     * for operations that change it.
+     */
+    @State(Scope.Thread)
+    public static class Mutable {
+        DynamicArray<Integer> array;
+
+        @Setup(Level.Invocation)
+        public void setUp(DynamicArrayBenchmark benchmark) {
+            array = new DynamicArray<>(benchmark.values);
+        }
+    }
+
+    @Benchmark
+    public DynamicArray<Integer> add() {
+        DynamicArray<Integer> target = new DynamicArray<>();
+        for (Integer value : values) {
+            target.add(value);
+        }
+        return target;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void get(Blackhole blackhole) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            blackhole.consume(array.get(indices[i] % size));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void set(Blackhole blackhole) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            int index = indices[i] % size;
+            blackhole.consume(array.set(index, values[index]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public DynamicArray<Integer> insert(Mutable state) {
+        DynamicArray<Integer> target = state.array;
+        for (int i = 0; i < OPERATIONS; i++) {
+            target.add(indices[i] % target.size(), values[i % size]);
+        }
+        return target;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public DynamicArray<Integer> remove(Mutable state, Blackhole blackhole) {
+        DynamicArray<Integer> target = state.array;
+        for (int i = 0; i < OPERATIONS && !target.isEmpty(); i++) {
+            blackhole.consume(target.remove(indices[i] % target.size()));
+        }
+        return target;
+    }
+
+    @Benchmark
+    public DynamicArray<Integer> sort(Mutable state) {
+        state.array.sort(null);
+        return state.array;
+    }
+
+    @Benchmark
+    public DynamicArray<Integer> parallelSort(Mutable state) {
+        state.array.parallelSort(null);
+        return state.array;
+    }
+}
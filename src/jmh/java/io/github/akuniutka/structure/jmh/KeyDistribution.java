@@ -0,0 +1,88 @@
+package io.github.akuniutka.structure.jmh;
+
+import java.util.Random;
+
+/**
+ * Orders in which benchmark keys are produced. Every distribution
+ * returns a permutation of {@code 0..count-1}, so all keys are distinct
+ * and can be used both as set elements and as array indices (after
+ * reducing them modulo the current size).
+ */
+public enum KeyDistribution {
+
+    /**
+     * Keys in uniformly random order.
+     */
+    RANDOM {
+        @Override
+        void arrange(int[] keys, Random random) {
+            for (int i = keys.length - 1; i > 0; i--) {
+                swap(keys, i, random.nextInt(i + 1));
+            }
+        }
+    },
+
+    /**
+     * Keys in ascending order.
+     */
+    SORTED {
+        @Override
+        void arrange(int[] keys, Random random) {
+        }
+    },
+
+    /**
+     * Keys in ascending order except for about one key in sixteen,
+     * which is swapped with a randomly chosen key. Models input that
+     * "almost" arrives sorted.
+     */
+    SKEWED {
+        @Override
+        void arrange(int[] keys, Random random) {
+            for (int i = 0; i < keys.length; i += 16) {
+                swap(keys, i, random.nextInt(keys.length));
+            }
+        }
+    };
+
+    /**
+     * Returns {@code count} distinct keys arranged according to this
+     * distribution. The same seed always produces the same keys.
+     *
+     * @param count number of keys to generate
+     * @param seed  seed of the pseudo-random generator
+     * @return an array of keys
+     */
+    public int[] keys(int count, long seed) {
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i;
+        }
+        arrange(keys, new Random(seed));
+        return keys;
+    }
+
+    /**
+     * Same as {@link #keys(int, long)} but returns boxed keys.
+     *
+     * @param count number of keys to generate
+     * @param seed  seed of the pseudo-random generator
+     * @return an array of boxed keys
+     */
+    public Integer[] boxedKeys(int count, long seed) {
+        int[] keys = keys(count, seed);
+        Integer[] boxed = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            boxed[i] = keys[i];
+        }
+        return boxed;
+    }
+
+    abstract void arrange(int[] keys, Random random);
+
+    private static void swap(int[] keys, int i, int j) {
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+    }
+}
@@ -1,14 +1,721 @@
 package io.github.akuniutka.structure;
 
-import java.util.Iterator;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * A sample implementation of B-tree used as an ordered set. Each node
+ * keeps up to {@code 2 * t - 1} elements in a contiguous array, where
+ * {@code t} is the minimum degree of the tree, and looks elements up
+ * with binary search. Every node but the root holds at least {@code t - 1}
+ * elements and all leaves are at the same depth, so the height of the
+ * tree is at most {@code log_t((n + 1) / 2)}. Compared to a binary tree
+ * a lookup visits several times fewer nodes, and the tree needs one node
+ * per {@code t - 1 .. 2 * t - 1} elements instead of one per element.
+ * <p>
+ * Nodes are split on the way down during insertion and refilled (by
+ * borrowing from a sibling or merging with it) on the way down during
+ * removal, so both operations take a single pass from the root.
+ * <p>
+ * Elements are ordered by the comparator provided at creation time or
+ * by their natural ordering if no comparator was provided. {@code null}
+ * elements are not allowed. The minimum degree is 32 by default.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
 public class BTreeSet<E> implements Iterable<E> {
+    private static final int DEFAULT_MINIMUM_DEGREE = 32;
 
-    // TODO: create an implementation of B-tree data structure
+    private final int minimumDegree;
+    private final Comparator<? super E> comparator;
+    private Node root;
+    private int size;
 
-    // TODO: implement iterator()
+    private static final class Node {
+        final Object[] keys;
+        final Node[] children;
+        int count;
+
+        Node(int minimumDegree, boolean isLeaf) {
+            keys = new Object[2 * minimumDegree - 1];
+            children = isLeaf ? null : new Node[2 * minimumDegree];
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+    }
+
+    private class TreeIterator implements Iterator<E> {
+        // path[0..depth) holds nodes from the root down, positions[i] is
+        // the index of the next element to return from path[i] once its
+        // child subtree at the same index has been visited
+        private Node[] path;
+        private int[] positions;
+        private int depth;
+        private E lastReturned;
+
+        TreeIterator() {
+            this(root, null);
+        }
+
+        /**
+         * Creates an iterator over elements of the subtree starting from
+         * the lower bound inclusive, {@code null} means from the lowest
+         * element.
+         */
+        TreeIterator(Node subtreeRoot, E lowerBound) {
+            int height = 0;
+            for (Node node = subtreeRoot; node != null; node = node.isLeaf() ? null : node.children[0]) {
+                height++;
+            }
+            path = new Node[Math.max(1, height)];
+            positions = new int[path.length];
+            if (lowerBound == null) {
+                descendFrom(subtreeRoot);
+                skipExhaustedNodes();
+            } else {
+                seek(subtreeRoot, lowerBound, true);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public E next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            Node node = path[depth - 1];
+            int position = positions[depth - 1]++;
+            lastReturned = key(node, position);
+            if (!node.isLeaf()) {
+                descendFrom(node.children[position + 1]);
+            }
+            skipExhaustedNodes();
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            BTreeSet.this.remove(lastReturned);
+            // removal may restructure nodes on the path, so look up the
+            // position of the next element again
+            seek(root, lastReturned, false);
+            lastReturned = null;
+        }
+
+        private void descendFrom(Node node) {
+            while (node != null) {
+                push(node, 0);
+                node = node.isLeaf() ? null : node.children[0];
+            }
+        }
+
+        private void seek(Node subtreeRoot, E value, boolean isInclusive) {
+            depth = 0;
+            Node node = subtreeRoot;
+            while (node != null) {
+                int index = indexOf(node, value);
+                int position = index >= 0 ? (isInclusive ? index : index + 1) : -index - 1;
+                push(node, position);
+                node = node.isLeaf() ? null : node.children[position];
+            }
+            skipExhaustedNodes();
+        }
+
+        private void push(Node node, int position) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                positions = Arrays.copyOf(positions, depth * 2);
+            }
+            path[depth] = node;
+            positions[depth] = position;
+            depth++;
+        }
+
+        private void skipExhaustedNodes() {
+            while (depth > 0 && positions[depth - 1] >= path[depth - 1].count) {
+                path[--depth] = null;
+            }
+        }
+    }
+
+    /**
+     * Covers elements of a subtree from the lower bound inclusive to the
+     * upper bound exclusive, a {@code null} bound means no bound. A split
+     * looks for the topmost node with elements strictly inside the range,
+     * hands off the part of the range below the middle one of them and
+     * keeps that node's subtree.
+     */
+    private class TreeSpliterator implements Spliterator<E> {
+        private Node subtreeRoot;
+        private E lowerBound;
+        private final E upperBound;
+        private long estimatedSize;
+        private boolean isSized;
+        // null until traversal starts
+        private TreeIterator iterator;
+        private boolean hasReachedUpperBound;
+
+        TreeSpliterator(Node subtreeRoot, E lowerBound, E upperBound, long estimatedSize, boolean isSized) {
+            this.subtreeRoot = subtreeRoot;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.estimatedSize = estimatedSize;
+            this.isSized = isSized;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (iterator == null) {
+                iterator = new TreeIterator(subtreeRoot, lowerBound);
+            }
+            if (hasReachedUpperBound || !iterator.hasNext()) {
+                return false;
+            }
+            E value = iterator.next();
+            if (upperBound != null && compare(value, upperBound) >= 0) {
+                hasReachedUpperBound = true;
+                return false;
+            }
+            action.accept(value);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            while (tryAdvance(action)) {
+                // the action is applied by tryAdvance()
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            if (iterator != null) {
+                return null;
+            }
+            Node node = subtreeRoot;
+            E splitKey = null;
+            while (node != null) {
+                // elements of the node strictly inside the range are at
+                // positions from first to last exclusive
+                int first = 0;
+                if (lowerBound != null) {
+                    int index = indexOf(node, lowerBound);
+                    first = index >= 0 ? index + 1 : -index - 1;
+                }
+                int last = node.count;
+                if (upperBound != null) {
+                    int index = indexOf(node, upperBound);
+                    last = index >= 0 ? index : -index - 1;
+                }
+                if (first < last) {
+                    splitKey = key(node, (first + last) >>> 1);
+                    break;
+                }
+                node = node.isLeaf() ? null : node.children[first];
+            }
+            if (node == null) {
+                return null;
+            }
+            long prefixSize = estimatedSize >>> 1;
+            Spliterator<E> prefix = new TreeSpliterator(subtreeRoot, lowerBound, splitKey, prefixSize, false);
+            // all elements from the split key up to the upper bound are
+            // in the node's subtree
+            subtreeRoot = node;
+            lowerBound = splitKey;
+            estimatedSize -= prefixSize;
+            isSized = false;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.NONNULL
+                    | (isSized ? Spliterator.SIZED : 0);
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comparator;
+        }
+    }
+
+    /**
+     * Creates an empty set ordered by natural ordering of its elements
+     * with the default minimum degree of 32.
+     */
+    public BTreeSet() {
+        this(DEFAULT_MINIMUM_DEGREE, null);
+    }
+
+    /**
+     * Creates an empty set ordered by the specified comparator with the
+     * default minimum degree of 32.
+     *
+     * @param comparator comparator used to order elements, if {@code null}
+     *                   then the natural ordering of elements is used
+     */
+    public BTreeSet(Comparator<? super E> comparator) {
+        this(DEFAULT_MINIMUM_DEGREE, comparator);
+    }
+
+    /**
+     * Creates an empty set ordered by natural ordering of its elements
+     * with the specified minimum degree.
+     *
+     * @param minimumDegree minimum degree of the tree: every node but
+     *                      the root holds from {@code minimumDegree - 1}
+     *                      to {@code 2 * minimumDegree - 1} elements
+     * @throws IllegalArgumentException if minimum degree is less than 2
+     */
+    public BTreeSet(int minimumDegree) {
+        this(minimumDegree, null);
+    }
+
+    /**
+     * Creates an empty set ordered by the specified comparator with the
+     * specified minimum degree.
+     *
+     * @param minimumDegree minimum degree of the tree: every node but
+     *                      the root holds from {@code minimumDegree - 1}
+     *                      to {@code 2 * minimumDegree - 1} elements
+     * @param comparator    comparator used to order elements, if
+     *                      {@code null} then the natural ordering of
+     *                      elements is used
+     * @throws IllegalArgumentException if minimum degree is less than 2
+     */
+    public BTreeSet(int minimumDegree, Comparator<? super E> comparator) {
+        if (minimumDegree < 2) {
+            throw new IllegalArgumentException();
+        }
+        this.minimumDegree = minimumDegree;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns {@code true} if the set contains no elements.
+     *
+     * @return {@code true} if the set contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the set contains the specified element.
+     *
+     * @param value element whose presence is to be tested
+     * @return {@code true} if the set contains the specified element
+     */
+    public boolean contains(E value) {
+        if (value == null) {
+            return false;
+        }
+        Node node = root;
+        while (node != null) {
+            int index = indexOf(node, value);
+            if (index >= 0) {
+                return true;
+            }
+            node = node.isLeaf() ? null : node.children[-index - 1];
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the set contains all the specified elements.
+     *
+     * @param values elements whose presence is to be tested
+     * @return {@code true} if the set contains all the specified elements
+     */
+    public boolean containsAll(Collection<E> values) {
+        for (E value : values) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the lowest element of the set.
+     *
+     * @return the lowest element or {@code null} if the set is empty
+     */
+    public E findMin() {
+        return root == null ? null : findMin(root);
+    }
+
+    /**
+     * Returns the highest element of the set.
+     *
+     * @return the highest element or {@code null} if the set is empty
+     */
+    public E findMax() {
+        return root == null ? null : findMax(root);
+    }
+
+    /**
+     * Returns an iterator over elements of the set in ascending order.
+     *
+     * @return an iterator over elements of the set
+     */
     @Override
     public Iterator<E> iterator() {
-        return null;
+        return new TreeIterator();
+    }
+
+    /**
+     * Returns a spliterator over elements of the set in ascending order.
+     * The spliterator splits by handing off subtrees and reports {@code
+     * DISTINCT}, {@code SORTED}, {@code ORDERED} and {@code NONNULL}
+     * characteristics, and {@code SIZED} until it is split. The set must
+     * not be modified while the spliterator is in use.
+     *
+     * @return a spliterator over elements of the set
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new TreeSpliterator(root, null, null, size, true);
+    }
+
+    /**
+     * Returns a sequential stream over elements of the set in ascending
+     * order.
+     *
+     * @return a sequential stream over elements of the set
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over elements of the set. The stream is
+     * split by subtrees, so no elements are copied up front.
+     *
+     * @return a parallel stream over elements of the set
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     *
+     * @param value element to be added
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean add(E value) {
+        if (value == null) {
+            return false;
+        }
+        if (root == null) {
+            root = new Node(minimumDegree, true);
+        } else if (root.count == 2 * minimumDegree - 1) {
+            Node newRoot = new Node(minimumDegree, false);
+            newRoot.children[0] = root;
+            root = newRoot;
+            splitChild(newRoot, 0);
+        }
+        Node node = root;
+        while (true) {
+            int index = indexOf(node, value);
+            if (index >= 0) {
+                return false;
+            }
+            int position = -index - 1;
+            if (node.isLeaf()) {
+                insertKey(node, position, value);
+                size++;
+                return true;
+            }
+            if (node.children[position].count == 2 * minimumDegree - 1) {
+                splitChild(node, position);
+                int cmp = compare(value, key(node, position));
+                if (cmp == 0) {
+                    return false;
+                } else if (cmp > 0) {
+                    position++;
+                }
+            }
+            node = node.children[position];
+        }
+    }
+
+    /**
+     * Adds all the specified elements to the set.
+     *
+     * @param values elements to be added
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean addAll(Collection<E> values) {
+        boolean hasTreeChanged = false;
+        for (E value : values) {
+            if (add(value)) {
+                hasTreeChanged = true;
+            }
+        }
+        return hasTreeChanged;
+    }
+
+    /**
+     * Removes the specified element from the set if it is present.
+     *
+     * @param value element to be removed
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean remove(E value) {
+        if (value == null || root == null) {
+            return false;
+        }
+        boolean isRemoved = remove(root, value);
+        if (root.count == 0) {
+            root = root.isLeaf() ? null : root.children[0];
+        }
+        if (isRemoved) {
+            size--;
+        }
+        return isRemoved;
+    }
+
+    /**
+     * Removes all the specified elements from the set.
+     *
+     * @param values elements to be removed
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean removeAll(Collection<E> values) {
+        boolean hasTreeChanged = false;
+        for (E value : values) {
+            if (remove(value)) {
+                hasTreeChanged = true;
+            }
+        }
+        return hasTreeChanged;
+    }
+
+    /**
+     * Removes all elements from the set.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private int compare(E o1, E o2) {
+        if (comparator != null) {
+            return comparator.compare(o1, o2);
+        } else {
+            return ((Comparable<? super E>) o1).compareTo(o2);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E key(Node node, int index) {
+        return (E) node.keys[index];
+    }
+
+    /**
+     * Binary search within a node. Returns the index of the element if
+     * found, otherwise {@code -(insertion point) - 1}, the same way
+     * {@link Arrays#binarySearch(Object[], Object)} does.
+     */
+    private int indexOf(Node node, E value) {
+        int low = 0;
+        int high = node.count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compare(key(node, middle), value);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private E findMin(Node node) {
+        while (!node.isLeaf()) {
+            node = node.children[0];
+        }
+        return key(node, 0);
+    }
+
+    private E findMax(Node node) {
+        while (!node.isLeaf()) {
+            node = node.children[node.count];
+        }
+        return key(node, node.count - 1);
+    }
+
+    private void insertKey(Node node, int index, Object key) {
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        node.keys[index] = key;
+        node.count++;
+    }
+
+    private void removeKey(Node node, int index) {
+        node.count--;
+        System.arraycopy(node.keys, index + 1, node.keys, index, node.count - index);
+        node.keys[node.count] = null;
+    }
+
+    /**
+     * Splits the full child at the specified index of a non-full parent
+     * into two nodes of {@code t - 1} elements each and moves the median
+     * element up into the parent.
+     */
+    private void splitChild(Node parent, int index) {
+        int t = minimumDegree;
+        Node child = parent.children[index];
+        Node sibling = new Node(t, child.isLeaf());
+        System.arraycopy(child.keys, t, sibling.keys, 0, t - 1);
+        Arrays.fill(child.keys, t, 2 * t - 1, null);
+        sibling.count = t - 1;
+        if (!child.isLeaf()) {
+            System.arraycopy(child.children, t, sibling.children, 0, t);
+            Arrays.fill(child.children, t, 2 * t, null);
+        }
+        Object median = child.keys[t - 1];
+        child.keys[t - 1] = null;
+        child.count = t - 1;
+        System.arraycopy(parent.children, index + 1, parent.children, index + 2, parent.count - index);
+        parent.children[index + 1] = sibling;
+        insertKey(parent, index, median);
+    }
+
+    /**
+     * Removes the value from the subtree rooted at the specified node.
+     * The node is either the root or holds at least {@code t} elements,
+     * so it can give one away to a child without becoming underfull.
+     */
+    private boolean remove(Node node, E value) {
+        int t = minimumDegree;
+        while (true) {
+            int index = indexOf(node, value);
+            if (index >= 0) {
+                if (node.isLeaf()) {
+                    removeKey(node, index);
+                    return true;
+                }
+                Node left = node.children[index];
+                Node right = node.children[index + 1];
+                if (left.count >= t) {
+                    E predecessor = findMax(left);
+                    node.keys[index] = predecessor;
+                    node = left;
+                    value = predecessor;
+                } else if (right.count >= t) {
+                    E successor = findMin(right);
+                    node.keys[index] = successor;
+                    node = right;
+                    value = successor;
+                } else {
+                    merge(node, index);
+                    node = left;
+                }
+            } else if (node.isLeaf()) {
+                return false;
+            } else {
+                int position = -index - 1;
+                if (node.children[position].count == t - 1) {
+                    position = refill(node, position);
+                }
+                node = node.children[position];
+            }
+        }
+    }
+
+    /**
+     * Makes the child at the specified position hold at least {@code t}
+     * elements by borrowing one from a sibling or by merging with it.
+     * Returns the position of the child that now contains the former
+     * child's elements.
+     */
+    private int refill(Node parent, int position) {
+        int t = minimumDegree;
+        Node child = parent.children[position];
+        if (position > 0 && parent.children[position - 1].count >= t) {
+            Node left = parent.children[position - 1];
+            insertKey(child, 0, parent.keys[position - 1]);
+            parent.keys[position - 1] = left.keys[left.count - 1];
+            if (!child.isLeaf()) {
+                System.arraycopy(child.children, 0, child.children, 1, child.count);
+                child.children[0] = left.children[left.count];
+                left.children[left.count] = null;
+            }
+            removeKey(left, left.count - 1);
+            return position;
+        } else if (position < parent.count && parent.children[position + 1].count >= t) {
+            Node right = parent.children[position + 1];
+            child.keys[child.count++] = parent.keys[position];
+            parent.keys[position] = right.keys[0];
+            if (!child.isLeaf()) {
+                child.children[child.count] = right.children[0];
+                System.arraycopy(right.children, 1, right.children, 0, right.count);
+                right.children[right.count] = null;
+            }
+            removeKey(right, 0);
+            return position;
+        } else if (position < parent.count) {
+            merge(parent, position);
+            return position;
+        } else {
+            merge(parent, position - 1);
+            return position - 1;
+        }
+    }
+
+    /**
+     * Merges the children at {@code index} and {@code index + 1} of the
+     * parent together with the element separating them. Both children
+     * hold exactly {@code t - 1} elements.
+     */
+    private void merge(Node parent, int index) {
+        Node left = parent.children[index];
+        Node right = parent.children[index + 1];
+        left.keys[left.count] = parent.keys[index];
+        System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+        if (!left.isLeaf()) {
+            System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+        }
+        left.count += right.count + 1;
+        removeKey(parent, index);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.count - index);
+        parent.children[parent.count + 1] = null;
     }
 }
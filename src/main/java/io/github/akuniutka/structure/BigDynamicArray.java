@@ -0,0 +1,450 @@
+package io.github.akuniutka.structure;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A dynamic array with {@code long} indexes which keeps its elements in
+ * fixed-size chunks. A spine array holds references to the chunks, an
+ * element at index {@code i} is at offset {@code i % chunkSize} of chunk
+ * {@code i / chunkSize}. The chunk size is a power of two, so both are
+ * computed with a shift and a mask.
+ * <p>
+ * Unlike {@link DynamicArray}, the array grows by allocating one more
+ * chunk and never copies elements it already holds: only the spine is
+ * copied when it is full, and the spine is {@code chunkSize} times
+ * shorter than the array. No single allocation is larger than a chunk,
+ * which with the default chunk size of 16384 elements stays well below
+ * the size G1 treats as a humongous object. The array may hold more than
+ * {@code Integer.MAX_VALUE} elements.
+ * <p>
+ * When elements are removed from the end, trailing chunks which are no
+ * longer used are released, except for one spare chunk, so adding and
+ * removing an element at a chunk boundary does not allocate a chunk each
+ * time. Insertion and removal in the middle shift the elements after the
+ * index through all following chunks and take {@code O(size - index)}
+ * time.
+ *
+ * @param <E> the type of elements
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class BigDynamicArray<E> implements Iterable<E> {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 14;
+    private final int chunkShift;
+    private final int chunkMask;
+    private Object[][] chunks = new Object[1][];
+    private int chunkCount;
+    private long size;
+
+    /**
+     * Splits index ranges of the array without copying elements. Binds
+     * to the size at the first traversal, split or size estimation, later
+     * changes of the size are not reflected.
+     */
+    private class ChunkSpliterator implements Spliterator<E> {
+        private long index;
+        // one past the last index, -1 until bound to the array
+        private long fence;
+
+        ChunkSpliterator(long origin, long fence) {
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (index < getFence()) {
+                action.accept(elementAt(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            long hi = getFence();
+            while (index < hi) {
+                Object[] chunk = chunks[chunkOf(index)];
+                int from = offsetOf(index);
+                int to = (int) Math.min(chunk.length, from + (hi - index));
+                for (int i = from; i < to; i++) {
+                    action.accept(cast(chunk[i]));
+                }
+                index += to - from;
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            long lo = index, mid = (lo + getFence()) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            index = mid;
+            return new ChunkSpliterator(lo, mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private long getFence() {
+            if (fence < 0) {
+                fence = size;
+            }
+            return fence;
+        }
+    }
+
+    /**
+     * Creates an empty array with chunks of 16384 elements.
+     */
+    public BigDynamicArray() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an empty array with chunks of the specified size.
+     *
+     * @param chunkSize number of elements in a chunk
+     * @throws IllegalArgumentException if the chunk size is not a positive
+     *                                  power of two
+     */
+    public BigDynamicArray(int chunkSize) {
+        if (chunkSize <= 0 || (chunkSize & (chunkSize - 1)) != 0) {
+            throw new IllegalArgumentException();
+        }
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunkMask = chunkSize - 1;
+    }
+
+    /**
+     * Returns the element at the specified position in the array.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in the array
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E get(long index) {
+        checkIndexWithinRange(index);
+        return elementAt(index);
+    }
+
+    /**
+     * Replaces the element at the specified position in the array with
+     * the specified element.
+     *
+     * @param index   index of the element to replace
+     * @param element element to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E set(long index, E element) {
+        checkIndexWithinRange(index);
+        Object[] chunk = chunks[chunkOf(index)];
+        int offset = offsetOf(index);
+        E oldElement = cast(chunk[offset]);
+        chunk[offset] = element;
+        return oldElement;
+    }
+
+    /**
+     * Appends the specified element to the end of the array.
+     *
+     * @param element element to be appended to the array
+     */
+    public void add(E element) {
+        if (size == capacity()) {
+            addChunk();
+        }
+        chunks[chunkOf(size)][offsetOf(size)] = element;
+        size++;
+    }
+
+    /**
+     * Inserts the specified element at the specified position in the
+     * array. Shifts the element currently at that position and all
+     * subsequent elements to the right.
+     *
+     * @param index   index at which the specified element is to be
+     *                inserted
+     * @param element element to be inserted
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public void add(long index, E element) {
+        checkIndexWithinRange(index);
+        if (size == capacity()) {
+            addChunk();
+        }
+        int first = chunkOf(index);
+        int last = chunkOf(size);
+        // move the last element of each chunk to the start of the next one
+        for (int c = last; c > first; c--) {
+            Object[] chunk = chunks[c];
+            System.arraycopy(chunk, 0, chunk, 1, c == last ? offsetOf(size) : chunkMask);
+            chunk[0] = chunks[c - 1][chunkMask];
+        }
+        Object[] chunk = chunks[first];
+        int offset = offsetOf(index);
+        int end = first == last ? offsetOf(size) : chunkMask;
+        System.arraycopy(chunk, offset, chunk, offset + 1, end - offset);
+        chunk[offset] = element;
+        size++;
+    }
+
+    /**
+     * Appends elements from the specified fixed-length array to the end
+     * of the array. Copies elements chunk by chunk.
+     *
+     * @param elements fixed-length array containing elements to be
+     *                 appended to the array
+     * @return {@code true} if the array changed as the result of the call
+     * @throws NullPointerException if the specified fixed-length array
+     *                              is null
+     */
+    public boolean addAll(E[] elements) {
+        int n = elements.length;
+        while (capacity() < size + n) {
+            addChunk();
+        }
+        int copied = 0;
+        while (copied < n) {
+            int offset = offsetOf(size);
+            int count = Math.min(n - copied, chunkMask + 1 - offset);
+            System.arraycopy(elements, copied, chunks[chunkOf(size)], offset, count);
+            copied += count;
+            size += count;
+        }
+        return n != 0;
+    }
+
+    /**
+     * Removes the element at the specified position from the array.
+     * Shifts all subsequent elements to the left.
+     *
+     * @param index index of the element to remove
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E remove(long index) {
+        checkIndexWithinRange(index);
+        E oldElement = elementAt(index);
+        int last = chunkOf(size - 1);
+        int offset = offsetOf(index);
+        // move the first element of each chunk to the end of the previous one
+        for (int c = chunkOf(index); c <= last; c++) {
+            Object[] chunk = chunks[c];
+            int end = c == last ? offsetOf(size - 1) : chunkMask;
+            System.arraycopy(chunk, offset + 1, chunk, offset, end - offset);
+            if (c < last) {
+                chunk[chunkMask] = chunks[c + 1][0];
+            }
+            offset = 0;
+        }
+        chunks[last][offsetOf(size - 1)] = null;
+        size--;
+        releaseTrailingChunks();
+        return oldElement;
+    }
+
+    /**
+     * Removes the last element of the array.
+     *
+     * @return the last element of the array
+     * @throws NoSuchElementException if the array is empty
+     */
+    public E removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        size--;
+        Object[] chunk = chunks[chunkOf(size)];
+        int offset = offsetOf(size);
+        E oldElement = cast(chunk[offset]);
+        chunk[offset] = null;
+        releaseTrailingChunks();
+        return oldElement;
+    }
+
+    /**
+     * Removes all elements starting from the specified index, so the
+     * array holds {@code newSize} elements.
+     *
+     * @param newSize number of elements to keep
+     * @throws IndexOutOfBoundsException if the new size is negative or
+     *                                   greater than the current size
+     */
+    public void truncate(long newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (size > newSize) {
+            Object[] chunk = chunks[chunkOf(size - 1)];
+            int to = offsetOf(size - 1) + 1;
+            int from = (int) Math.max(0, to - (size - newSize));
+            Arrays.fill(chunk, from, to, null);
+            size -= to - from;
+        }
+        releaseTrailingChunks();
+    }
+
+    /**
+     * Removes all elements from the array.
+     */
+    public void clear() {
+        truncate(0);
+    }
+
+    /**
+     * Returns the number of elements in the array.
+     *
+     * @return the number of elements in the array
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the array contains no elements.
+     *
+     * @return {@code true} if the array contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements the allocated chunks can hold.
+     *
+     * @return the capacity of the array
+     */
+    public long capacity() {
+        return (long) chunkCount << chunkShift;
+    }
+
+    /**
+     * Returns an iterator over elements of the array in proper order. The
+     * iterator does not support removal.
+     *
+     * @return an iterator over elements of the array
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private long index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public E next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return elementAt(index++);
+            }
+        };
+    }
+
+    /**
+     * Returns a spliterator over elements of the array in proper order.
+     * The spliterator splits index ranges without copying elements and
+     * reports {@code ORDERED}, {@code SIZED} and {@code SUBSIZED}
+     * characteristics. It binds to the size at the first traversal, split
+     * or size estimation, so the array must not be modified after that
+     * until the traversal is over.
+     *
+     * @return a spliterator over elements of the array
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ChunkSpliterator(0, -1);
+    }
+
+    /**
+     * Returns a sequential stream over elements of the array.
+     *
+     * @return a sequential stream over elements of the array
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over elements of the array.
+     *
+     * @return a parallel stream over elements of the array
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    private void checkIndexWithinRange(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private int chunkOf(long index) {
+        return (int) (index >>> chunkShift);
+    }
+
+    private int offsetOf(long index) {
+        return (int) index & chunkMask;
+    }
+
+    private E elementAt(long index) {
+        return cast(chunks[chunkOf(index)][offsetOf(index)]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object element) {
+        return (E) element;
+    }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        chunks[chunkCount++] = new Object[chunkMask + 1];
+    }
+
+    /**
+     * Releases chunks after the last used one but one, and halves the
+     * spine when it is a quarter full.
+     */
+    private void releaseTrailingChunks() {
+        int usedChunks = (int) ((size + chunkMask) >>> chunkShift);
+        while (chunkCount > usedChunks + 1) {
+            chunks[--chunkCount] = null;
+        }
+        if (chunks.length > 1 && chunkCount * 4 <= chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length / 2);
+        }
+    }
+}
@@ -1,20 +1,70 @@
 package io.github.akuniutka.structure;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * A sample implementation of binary search tree used as an ordered set.
+ * <p>
+ * The tree is kept from degenerating the way a scapegoat tree is: when
+ * an insertion puts a node deeper than {@code heightFactor * log2(size)},
+ * the smallest unbalanced subtree on the way to that node is rebuilt into
+ * a perfectly balanced one in place with the Day-Stout-Warren algorithm,
+ * and the whole tree is rebuilt once enough elements are removed. So the
+ * height stays within {@code heightFactor * log2(size) + 1} and no single
+ * operation runs into a linear-time cliff after sorted insertions. {@code
+ * addAll()} rebalances after every insertion the way {@code add()} does,
+ * as a batch of sorted values would build a list before a check at the
+ * end, while {@code removeAll()} checks the balance once at the end.
+ * The height factor is 2 by default, {@link Double#POSITIVE_INFINITY}
+ * turns rebalancing off.
+ * <p>
+ * Besides exact lookups the set answers nearest-element queries ({@code
+ * floor()}, {@code ceiling()}, {@code lower()}, {@code higher()}) and
+ * offers {@link SubSet} views of ranges ({@code headSet()}, {@code
+ * tailSet()}, {@code subSet()}) which copy nothing and visit only the
+ * nodes of the range. Every node keeps the size of its subtree, so
+ * {@code select()}, {@code rank()} and {@code countInRange()} answer
+ * order-statistic queries in {@code O(height)} time.
+ * <p>
+ * Comparisons, depths of operations and rebuilds are counted by {@link
+ * TreeStatistics} once {@link #enableStatistics()} is called.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
 public class BinaryTreeSet<E> implements Iterable<E> {
     // TODO: add toArray() method
     // TODO: remove null value checks
-    // TODO: balance tree after an element insertion/removal (once for removeAll()/ addAll())
+
+    private static final double DEFAULT_HEIGHT_FACTOR = 2.0;
+    private static final int MIN_PATH_LENGTH = 16;
 
     private Node root;
     private int size;
     private final Comparator<? super E> comparator;
+    private final double heightFactor;
+    // a subtree is unbalanced if one of its children holds more than
+    // this share of its nodes, 2^(-1/heightFactor)
+    private final double balanceRatio;
+    private final boolean isBalancing;
+    // the largest size since the whole tree was rebuilt last time
+    private int maxSize;
+    // null unless statistics are enabled
+    private TreeStatistics statistics;
+    // ancestors of the node most recently inserted or removed, root first
+    @SuppressWarnings("unchecked")
+    private Node[] ancestors = (Node[]) new BinaryTreeSet<?>.Node[MIN_PATH_LENGTH];
 
     private class Node {
         Node left;
         Node right;
         E value;
+        // number of nodes in the subtree rooted at this node
+        int size = 1;
 
         Node(E value) {
             this.value = value;
@@ -22,29 +72,501 @@ public class BinaryTreeSet<E> implements Iterable<E> {
     }
 
     private class TreeIterator implements Iterator<E> {
-        // TODO: replace a list with an array
-        private final List<E> values = new ArrayList<>();
-        private int cursor;
+        // nodes whose values are not returned yet while their left
+        // subtrees are (right subtrees for a descending iterator), the
+        // next node to return is on the top
+        private final Deque<Node> path = new ArrayDeque<>();
+        private final boolean isDescending;
+        // the iteration stops at this value, null means no bound
+        private final E fence;
+        private final boolean isFenceInclusive;
+        private Node lastReturned;
 
         TreeIterator() {
-            collectValues(root);
+            this(false, null, false, null, false);
+        }
+
+        /**
+         * Creates an iterator which starts from the specified value and
+         * stops at the fence, {@code null} means from the first (the last
+         * for a descending iterator) value or no fence.
+         */
+        TreeIterator(boolean isDescending, E from, boolean isFromInclusive, E fence, boolean isFenceInclusive) {
+            this.isDescending = isDescending;
+            this.fence = fence;
+            this.isFenceInclusive = isFenceInclusive;
+            seek(from, isFromInclusive);
         }
 
         @Override
         public boolean hasNext() {
-            return cursor < values.size();
+            if (path.isEmpty()) {
+                return false;
+            } else if (fence == null) {
+                return true;
+            }
+            int cmp = compare(path.peek().value, fence);
+            return isDescending ? cmp > 0 || isFenceInclusive && cmp == 0 : cmp < 0 || isFenceInclusive && cmp == 0;
         }
 
         @Override
         public E next() {
-            return values.get(cursor++);
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = path.pop();
+            pushSpine(isDescending ? lastReturned.left : lastReturned.right);
+            return lastReturned.value;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            E value = lastReturned.value;
+            BinaryTreeSet.this.remove(value);
+            // removal of a node with two children moves nodes of its
+            // right subtree, so find the path to the next value again
+            path.clear();
+            seek(value, false);
+            lastReturned = null;
         }
 
-        private void collectValues(Node node) {
-            if (node != null) {
-                collectValues(node.left);
-                values.add(node.value);
-                collectValues(node.right);
+        private void seek(E value, boolean isInclusive) {
+            Node node = root;
+            while (node != null) {
+                int cmp = value == null ? 0 : compare(node.value, value);
+                if (isDescending) {
+                    cmp = -cmp;
+                }
+                if (value == null || cmp > 0 || isInclusive && cmp == 0) {
+                    path.push(node);
+                    node = isDescending ? node.right : node.left;
+                } else {
+                    node = isDescending ? node.left : node.right;
+                }
+            }
+        }
+
+        private void pushSpine(Node node) {
+            while (node != null) {
+                path.push(node);
+                node = isDescending ? node.right : node.left;
+            }
+        }
+    }
+
+    /**
+     * A live view of the elements of a set which lie within a range. The
+     * view copies nothing: lookups go to the set's tree and iteration
+     * visits only the nodes of the range, so an operation takes {@code
+     * O(log n)} time and a traversal of {@code k} elements takes {@code
+     * O(log n + k)}. Changes of the set are visible through the view and
+     * changes made through the view are made to the set. A {@code null}
+     * bound means the range is not bounded on that side.
+     *
+     * @param <E> the type of elements
+     */
+    public static final class SubSet<E> implements Iterable<E> {
+        private final BinaryTreeSet<E> set;
+        private final E lowerBound;
+        private final boolean isLowerInclusive;
+        private final E upperBound;
+        private final boolean isUpperInclusive;
+
+        private SubSet(BinaryTreeSet<E> set, E lowerBound, boolean isLowerInclusive, E upperBound,
+                       boolean isUpperInclusive) {
+            if (lowerBound != null && upperBound != null && set.compare(lowerBound, upperBound) > 0) {
+                throw new IllegalArgumentException();
+            }
+            this.set = set;
+            this.lowerBound = lowerBound;
+            this.isLowerInclusive = isLowerInclusive;
+            this.upperBound = upperBound;
+            this.isUpperInclusive = isUpperInclusive;
+        }
+
+        /**
+         * Returns {@code true} if the range contains no elements.
+         *
+         * @return {@code true} if the range contains no elements
+         */
+        public boolean isEmpty() {
+            return !iterator().hasNext();
+        }
+
+        /**
+         * Returns the number of elements in the range. Takes {@code
+         * O(height)} time as elements are counted with subtree sizes.
+         *
+         * @return the number of elements in the range
+         */
+        public int size() {
+            int below = upperBound == null ? set.size : set.countBelow(upperBound, isUpperInclusive);
+            int excluded = lowerBound == null ? 0 : set.countBelow(lowerBound, !isLowerInclusive);
+            return Math.max(0, below - excluded);
+        }
+
+        /**
+         * Returns {@code true} if the range contains the specified
+         * element.
+         *
+         * @param value element whose presence is to be tested
+         * @return {@code true} if the range contains the specified element
+         */
+        public boolean contains(E value) {
+            return isInRange(value) && set.contains(value);
+        }
+
+        /**
+         * Adds the specified element to the set if it is not already
+         * present.
+         *
+         * @param value element to be added
+         * @return {@code true} if the set changed as the result of the call
+         * @throws IllegalArgumentException if the element is out of range
+         */
+        public boolean add(E value) {
+            if (value != null && !isInRange(value)) {
+                throw new IllegalArgumentException();
+            }
+            return set.add(value);
+        }
+
+        /**
+         * Removes the specified element from the set if it is present
+         * and is within the range.
+         *
+         * @param value element to be removed
+         * @return {@code true} if the set changed as the result of the call
+         */
+        public boolean remove(E value) {
+            return isInRange(value) && set.remove(value);
+        }
+
+        /**
+         * Returns the lowest element of the range.
+         *
+         * @return the lowest element or {@code null} if the range is empty
+         */
+        public E findMin() {
+            BinaryTreeSet<E>.Node node = lowerBound == null ? set.firstNode() : set.ceilingNode(lowerBound, isLowerInclusive);
+            return node == null || isTooHigh(node.value) ? null : node.value;
+        }
+
+        /**
+         * Returns the highest element of the range.
+         *
+         * @return the highest element or {@code null} if the range is empty
+         */
+        public E findMax() {
+            BinaryTreeSet<E>.Node node = upperBound == null ? set.lastNode() : set.floorNode(upperBound, isUpperInclusive);
+            return node == null || isTooLow(node.value) ? null : node.value;
+        }
+
+        /**
+         * Returns the highest element of the range which is less than or
+         * equal to the specified one.
+         *
+         * @param value element to look for
+         * @return the element found or {@code null} if there is no such
+         * element
+         */
+        public E floor(E value) {
+            return below(value, true);
+        }
+
+        /**
+         * Returns the highest element of the range which is strictly less
+         * than the specified one.
+         *
+         * @param value element to look for
+         * @return the element found or {@code null} if there is no such
+         * element
+         */
+        public E lower(E value) {
+            return below(value, false);
+        }
+
+        /**
+         * Returns the lowest element of the range which is greater than
+         * or equal to the specified one.
+         *
+         * @param value element to look for
+         * @return the element found or {@code null} if there is no such
+         * element
+         */
+        public E ceiling(E value) {
+            return above(value, true);
+        }
+
+        /**
+         * Returns the lowest element of the range which is strictly
+         * greater than the specified one.
+         *
+         * @param value element to look for
+         * @return the element found or {@code null} if there is no such
+         * element
+         */
+        public E higher(E value) {
+            return above(value, false);
+        }
+
+        /**
+         * Returns a view of the elements of this range which are less
+         * than (or equal to, if {@code inclusive} is {@code true}) the
+         * specified element.
+         *
+         * @param to        upper bound of the view
+         * @param inclusive {@code true} if the upper bound is included
+         * @return a live view of the elements of the range
+         * @throws IllegalArgumentException if the bound is out of range
+         */
+        public SubSet<E> headSet(E to, boolean inclusive) {
+            return subSet(null, false, to, inclusive);
+        }
+
+        /**
+         * Returns a view of the elements of this range which are greater
+         * than (or equal to, if {@code inclusive} is {@code true}) the
+         * specified element.
+         *
+         * @param from      lower bound of the view
+         * @param inclusive {@code true} if the lower bound is included
+         * @return a live view of the elements of the range
+         * @throws IllegalArgumentException if the bound is out of range
+         */
+        public SubSet<E> tailSet(E from, boolean inclusive) {
+            return subSet(from, inclusive, null, false);
+        }
+
+        /**
+         * Returns a view of the elements of this range between the
+         * specified bounds. A {@code null} bound keeps the bound of this
+         * range.
+         *
+         * @param from          lower bound of the view
+         * @param fromInclusive {@code true} if the lower bound is included
+         * @param to            upper bound of the view
+         * @param toInclusive   {@code true} if the upper bound is included
+         * @return a live view of the elements of the range
+         * @throws IllegalArgumentException if a bound is out of range or
+         *                                  the lower bound is greater
+         *                                  than the upper one
+         */
+        public SubSet<E> subSet(E from, boolean fromInclusive, E to, boolean toInclusive) {
+            if (from == null) {
+                from = lowerBound;
+                fromInclusive = isLowerInclusive;
+            } else if (isOutside(from, fromInclusive)) {
+                throw new IllegalArgumentException();
+            }
+            if (to == null) {
+                to = upperBound;
+                toInclusive = isUpperInclusive;
+            } else if (isOutside(to, toInclusive)) {
+                throw new IllegalArgumentException();
+            }
+            return new SubSet<>(set, from, fromInclusive, to, toInclusive);
+        }
+
+        /**
+         * Returns an iterator over elements of the range in ascending
+         * order.
+         *
+         * @return an iterator over elements of the range
+         */
+        @Override
+        public Iterator<E> iterator() {
+            return set.new TreeIterator(false, lowerBound, isLowerInclusive, upperBound, isUpperInclusive);
+        }
+
+        /**
+         * Returns an iterator over elements of the range in descending
+         * order.
+         *
+         * @return a descending iterator over elements of the range
+         */
+        public Iterator<E> descendingIterator() {
+            return set.new TreeIterator(true, upperBound, isUpperInclusive, lowerBound, isLowerInclusive);
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            for (E value : this) {
+                joiner.add(String.valueOf(value));
+            }
+            return joiner.toString();
+        }
+
+        private E below(E value, boolean isInclusive) {
+            if (isTooHigh(value)) {
+                return findMax();
+            }
+            BinaryTreeSet<E>.Node node = set.floorNode(value, isInclusive);
+            return node == null || isTooLow(node.value) ? null : node.value;
+        }
+
+        private E above(E value, boolean isInclusive) {
+            if (isTooLow(value)) {
+                return findMin();
+            }
+            BinaryTreeSet<E>.Node node = set.ceilingNode(value, isInclusive);
+            return node == null || isTooHigh(node.value) ? null : node.value;
+        }
+
+        private boolean isInRange(E value) {
+            return value != null && !isTooLow(value) && !isTooHigh(value);
+        }
+
+        /**
+         * Returns {@code true} if a bound of a narrower range would let
+         * in elements outside this range.
+         */
+        private boolean isOutside(E bound, boolean isInclusive) {
+            if (lowerBound != null) {
+                int cmp = set.compare(bound, lowerBound);
+                if (cmp < 0 || cmp == 0 && isInclusive && !isLowerInclusive) {
+                    return true;
+                }
+            }
+            if (upperBound != null) {
+                int cmp = set.compare(bound, upperBound);
+                return cmp > 0 || cmp == 0 && isInclusive && !isUpperInclusive;
+            }
+            return false;
+        }
+
+        private boolean isTooLow(E value) {
+            if (lowerBound == null) {
+                return false;
+            }
+            int cmp = set.compare(value, lowerBound);
+            return cmp < 0 || cmp == 0 && !isLowerInclusive;
+        }
+
+        private boolean isTooHigh(E value) {
+            if (upperBound == null) {
+                return false;
+            }
+            int cmp = set.compare(value, upperBound);
+            return cmp > 0 || cmp == 0 && !isUpperInclusive;
+        }
+    }
+
+    /**
+     * Covers elements of a subtree from the lower bound inclusive to the
+     * upper bound exclusive, a {@code null} bound means no bound. A split
+     * hands off the part of the range below the topmost node that lies
+     * strictly inside the range and keeps that node's subtree, so a
+     * balanced tree is split roughly in halves.
+     */
+    private class TreeSpliterator implements Spliterator<E> {
+        private Node subtreeRoot;
+        private E lowerBound;
+        private final E upperBound;
+        private long estimatedSize;
+        private boolean isSized;
+        // the same as in TreeIterator, null until traversal starts
+        private Deque<Node> path;
+
+        TreeSpliterator(Node subtreeRoot, E lowerBound, E upperBound, long estimatedSize, boolean isSized) {
+            this.subtreeRoot = subtreeRoot;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.estimatedSize = estimatedSize;
+            this.isSized = isSized;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (path == null) {
+                startTraversal();
+            }
+            if (path.isEmpty()) {
+                return false;
+            }
+            Node node = path.pop();
+            if (upperBound != null && compare(node.value, upperBound) >= 0) {
+                path.clear();
+                return false;
+            }
+            Node next = node.right;
+            while (next != null) {
+                path.push(next);
+                next = next.left;
+            }
+            action.accept(node.value);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            while (tryAdvance(action)) {
+                // the action is applied by tryAdvance()
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            if (path != null) {
+                return null;
+            }
+            Node node = subtreeRoot;
+            while (node != null) {
+                if (lowerBound != null && compare(node.value, lowerBound) <= 0) {
+                    node = node.right;
+                } else if (upperBound != null && compare(node.value, upperBound) >= 0) {
+                    node = node.left;
+                } else {
+                    break;
+                }
+            }
+            if (node == null) {
+                return null;
+            }
+            long prefixSize = estimatedSize >>> 1;
+            Spliterator<E> prefix = new TreeSpliterator(subtreeRoot, lowerBound, node.value, prefixSize, false);
+            // all elements from the node's value up to the upper bound
+            // are in the node's subtree
+            subtreeRoot = node;
+            lowerBound = node.value;
+            estimatedSize -= prefixSize;
+            isSized = false;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.NONNULL
+                    | (isSized ? Spliterator.SIZED : 0);
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comparator;
+        }
+
+        private void startTraversal() {
+            path = new ArrayDeque<>();
+            Node node = subtreeRoot;
+            while (node != null) {
+                if (lowerBound != null && compare(node.value, lowerBound) < 0) {
+                    node = node.right;
+                } else {
+                    path.push(node);
+                    node = node.left;
+                }
             }
         }
     }
@@ -54,7 +576,161 @@ public class BinaryTreeSet<E> implements Iterable<E> {
     }
 
     public BinaryTreeSet(Comparator<? super E> comparator) {
+        this(comparator, DEFAULT_HEIGHT_FACTOR);
+    }
+
+    /**
+     * Creates an empty set ordered by the specified comparator which
+     * keeps its height within {@code heightFactor * log2(size) + 1}.
+     *
+     * @param comparator   comparator used to order elements, if {@code
+     *                     null} then the natural ordering of elements is
+     *                     used
+     * @param heightFactor allowed height of the tree in multiples of
+     *                     {@code log2(size)}, {@link
+     *                     Double#POSITIVE_INFINITY} turns rebalancing off
+     * @throws IllegalArgumentException if height factor is less than 1
+     *                                  or is NaN
+     */
+    public BinaryTreeSet(Comparator<? super E> comparator, double heightFactor) {
+        if (!(heightFactor >= 1.0)) {
+            throw new IllegalArgumentException();
+        }
         this.comparator = comparator;
+        this.heightFactor = heightFactor;
+        this.balanceRatio = Math.pow(2.0, -1.0 / heightFactor);
+        this.isBalancing = !Double.isInfinite(heightFactor);
+    }
+
+    /**
+     * Creates a perfectly balanced set from values that are already
+     * sorted in strictly ascending order according to the comparator.
+     * Takes {@code O(n)} time and makes no comparisons, so the result is
+     * undefined if the values are not sorted or contain duplicates.
+     * {@code null} values are skipped, the array is copied only if it
+     * contains any.
+     *
+     * @param values     sorted values without duplicates
+     * @param comparator comparator the values are sorted by, if {@code
+     *                   null} then the natural ordering is assumed
+     * @param <E>        the type of elements
+     * @return a new set containing the specified values
+     * @throws NullPointerException if the array of values is null
+     */
+    public static <E> BinaryTreeSet<E> fromSorted(E[] values, Comparator<? super E> comparator) {
+        int n = 0;
+        while (n < values.length && values[n] != null) {
+            n++;
+        }
+        if (n == values.length) {
+            return fromSorted(values, n, comparator);
+        }
+        E[] nonNull = Arrays.copyOf(values, values.length);
+        for (int i = n + 1; i < values.length; i++) {
+            if (values[i] != null) {
+                nonNull[n++] = values[i];
+            }
+        }
+        return fromSorted(nonNull, n, comparator);
+    }
+
+    /**
+     * Creates a perfectly balanced set from a dynamic array of values
+     * that are already sorted in strictly ascending order. {@code null}
+     * values are skipped. See {@link #fromSorted(Object[], Comparator)}.
+     *
+     * @param values     sorted values without duplicates
+     * @param comparator comparator the values are sorted by, if {@code
+     *                   null} then the natural ordering is assumed
+     * @param <E>        the type of elements
+     * @return a new set containing the specified values
+     * @throws NullPointerException if the dynamic array is null
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> BinaryTreeSet<E> fromSorted(DynamicArray<? extends E> values,
+                                                  Comparator<? super E> comparator) {
+        E[] buffer = (E[]) new Object[values.size()];
+        int n = 0;
+        for (int i = 0; i < buffer.length; i++) {
+            E value = values.get(i);
+            if (value != null) {
+                buffer[n++] = value;
+            }
+        }
+        return fromSorted(buffer, n, comparator);
+    }
+
+    /**
+     * Creates a perfectly balanced set from values returned by an
+     * iterator in strictly ascending order. The values are buffered
+     * before the tree is built, {@code null} values are skipped. See
+     * {@link #fromSorted(Object[], Comparator)}.
+     *
+     * @param values     iterator over sorted values without duplicates
+     * @param comparator comparator the values are sorted by, if {@code
+     *                   null} then the natural ordering is assumed
+     * @param <E>        the type of elements
+     * @return a new set containing the specified values
+     * @throws NullPointerException if the iterator is null
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> BinaryTreeSet<E> fromSorted(Iterator<? extends E> values, Comparator<? super E> comparator) {
+        E[] buffer = (E[]) new Object[16];
+        int n = 0;
+        while (values.hasNext()) {
+            E value = values.next();
+            if (value != null) {
+                if (n == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, n + (n >> 1));
+                }
+                buffer[n++] = value;
+            }
+        }
+        return fromSorted(buffer, n, comparator);
+    }
+
+    /**
+     * Creates a perfectly balanced set from values in any order. The
+     * values are copied, sorted and deduplicated first, {@code null}
+     * values are skipped. Takes {@code O(n log n)} time.
+     *
+     * @param values     values to be placed into the set
+     * @param comparator comparator used to order elements, if {@code
+     *                   null} then the natural ordering of elements is
+     *                   used
+     * @param <E>        the type of elements
+     * @return a new set containing the specified values
+     * @throws NullPointerException if the array of values is null
+     */
+    public static <E> BinaryTreeSet<E> from(E[] values, Comparator<? super E> comparator) {
+        BinaryTreeSet<E> set = new BinaryTreeSet<>(comparator);
+        E[] sorted = Arrays.copyOf(values, values.length);
+        int n = 0;
+        for (E value : sorted) {
+            if (value != null) {
+                sorted[n++] = value;
+            }
+        }
+        Arrays.sort(sorted, 0, n, set::compare);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || set.compare(sorted[unique - 1], sorted[i]) != 0) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        set.root = set.buildBalanced(sorted, 0, unique);
+        set.size = unique;
+        set.maxSize = set.size;
+        return set;
+    }
+
+    // builds from the first n values, which must be sorted and non-null
+    private static <E> BinaryTreeSet<E> fromSorted(E[] values, int n, Comparator<? super E> comparator) {
+        BinaryTreeSet<E> set = new BinaryTreeSet<>(comparator);
+        set.root = set.buildBalanced(values, 0, n);
+        set.size = n;
+        set.maxSize = set.size;
+        return set;
     }
 
 
@@ -68,16 +744,22 @@ public class BinaryTreeSet<E> implements Iterable<E> {
 
     public boolean contains(E value) {
         Node node = root;
-        while (node != null) {
+        int depth = -1;
+        boolean isFound = false;
+        while (node != null && !isFound) {
+            depth++;
             if (compare(node.value, value) < 0) {
                 node = node.right;
             } else if (compare(node.value, value) > 0) {
                 node = node.left;
             } else {
-                return true;
+                isFound = true;
             }
         }
-        return false;
+        if (statistics != null) {
+            statistics.recordOperation(Math.max(depth, 0));
+        }
+        return isFound;
     }
 
     public boolean containsAll(Collection<E> values) {
@@ -102,35 +784,254 @@ public class BinaryTreeSet<E> implements Iterable<E> {
         return new TreeIterator();
     }
 
-    public boolean add(E value) {
-        if (value == null) {
-            return false;
-        } else if (root == null) {
-            root = new Node(value);
-            size++;
-            return true;
-        } else {
-            Node node = root, previous = node;
-            while (node != null) {
-                previous = node;
-                if (compare(previous.value, value) < 0) {
-                    node = previous.right;
-                } else if (compare(previous.value, value) > 0) {
-                    node = previous.left;
-                } else {
-                    return false;
-                }
-            }
-            if (compare(previous.value, value) < 0) {
-                previous.right = new Node(value);
+    /**
+     * Returns an iterator over elements of the set in descending order.
+     *
+     * @return a descending iterator over elements of the set
+     */
+    public Iterator<E> descendingIterator() {
+        return new TreeIterator(true, null, false, null, false);
+    }
+
+    /**
+     * Returns the highest element of the set which is less than or equal
+     * to the specified one.
+     *
+     * @param value element to look for
+     * @return the element found or {@code null} if there is no such
+     * element
+     */
+    public E floor(E value) {
+        Node node = floorNode(value, true);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the highest element of the set which is strictly less than
+     * the specified one.
+     *
+     * @param value element to look for
+     * @return the element found or {@code null} if there is no such
+     * element
+     */
+    public E lower(E value) {
+        Node node = floorNode(value, false);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the lowest element of the set which is greater than or
+     * equal to the specified one.
+     *
+     * @param value element to look for
+     * @return the element found or {@code null} if there is no such
+     * element
+     */
+    public E ceiling(E value) {
+        Node node = ceilingNode(value, true);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the lowest element of the set which is strictly greater
+     * than the specified one.
+     *
+     * @param value element to look for
+     * @return the element found or {@code null} if there is no such
+     * element
+     */
+    public E higher(E value) {
+        Node node = ceilingNode(value, false);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the element at the specified position in ascending order.
+     * Takes {@code O(height)} time.
+     *
+     * @param index position of the element, from 0 to {@code size() - 1}
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E select(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
             } else {
-                previous.left = new Node(value);
+                return node.value;
             }
-            size++;
-            return true;
         }
     }
 
+    /**
+     * Returns the number of elements of the set which are strictly less
+     * than the specified one, which is also the position the element has
+     * or would have in ascending order. Takes {@code O(height)} time.
+     *
+     * @param value element to look for
+     * @return the number of elements less than the specified one
+     */
+    public int rank(E value) {
+        return countBelow(value, false);
+    }
+
+    /**
+     * Returns the number of elements from the lower bound inclusive to
+     * the upper bound exclusive. Takes {@code O(height)} time.
+     *
+     * @param from lower bound of the range
+     * @param to   upper bound of the range
+     * @return the number of elements in the range
+     * @throws IllegalArgumentException if the lower bound is greater than
+     *                                  the upper one
+     */
+    public int countInRange(E from, E to) {
+        if (compare(from, to) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return countBelow(to, false) - countBelow(from, false);
+    }
+
+    /**
+     * Returns a live view of the elements of the set which are strictly
+     * less than the specified element.
+     *
+     * @param to upper bound of the view
+     * @return a live view of the elements below the bound
+     * @throws NullPointerException if the bound is null
+     */
+    public SubSet<E> headSet(E to) {
+        return headSet(to, false);
+    }
+
+    /**
+     * Returns a live view of the elements of the set which are less than
+     * (or equal to, if {@code inclusive} is {@code true}) the specified
+     * element.
+     *
+     * @param to        upper bound of the view
+     * @param inclusive {@code true} if the upper bound is included
+     * @return a live view of the elements below the bound
+     * @throws NullPointerException if the bound is null
+     */
+    public SubSet<E> headSet(E to, boolean inclusive) {
+        return new SubSet<>(this, null, false, Objects.requireNonNull(to), inclusive);
+    }
+
+    /**
+     * Returns a live view of the elements of the set which are greater
+     * than or equal to the specified element.
+     *
+     * @param from lower bound of the view
+     * @return a live view of the elements from the bound on
+     * @throws NullPointerException if the bound is null
+     */
+    public SubSet<E> tailSet(E from) {
+        return tailSet(from, true);
+    }
+
+    /**
+     * Returns a live view of the elements of the set which are greater
+     * than (or equal to, if {@code inclusive} is {@code true}) the
+     * specified element.
+     *
+     * @param from      lower bound of the view
+     * @param inclusive {@code true} if the lower bound is included
+     * @return a live view of the elements above the bound
+     * @throws NullPointerException if the bound is null
+     */
+    public SubSet<E> tailSet(E from, boolean inclusive) {
+        return new SubSet<>(this, Objects.requireNonNull(from), inclusive, null, false);
+    }
+
+    /**
+     * Returns a live view of the elements of the set from the lower bound
+     * inclusive to the upper bound exclusive.
+     *
+     * @param from lower bound of the view
+     * @param to   upper bound of the view
+     * @return a live view of the elements between the bounds
+     * @throws NullPointerException     if a bound is null
+     * @throws IllegalArgumentException if the lower bound is greater than
+     *                                  the upper one
+     */
+    public SubSet<E> subSet(E from, E to) {
+        return subSet(from, true, to, false);
+    }
+
+    /**
+     * Returns a live view of the elements of the set between the
+     * specified bounds.
+     *
+     * @param from          lower bound of the view
+     * @param fromInclusive {@code true} if the lower bound is included
+     * @param to            upper bound of the view
+     * @param toInclusive   {@code true} if the upper bound is included
+     * @return a live view of the elements between the bounds
+     * @throws NullPointerException     if a bound is null
+     * @throws IllegalArgumentException if the lower bound is greater than
+     *                                  the upper one
+     */
+    public SubSet<E> subSet(E from, boolean fromInclusive, E to, boolean toInclusive) {
+        return new SubSet<>(this, Objects.requireNonNull(from), fromInclusive, Objects.requireNonNull(to),
+                toInclusive);
+    }
+
+    /**
+     * Returns a spliterator over elements of the set in ascending order.
+     * The spliterator splits by handing off subtrees and reports {@code
+     * DISTINCT}, {@code SORTED}, {@code ORDERED} and {@code NONNULL}
+     * characteristics, and {@code SIZED} until it is split. The set must
+     * not be modified while the spliterator is in use.
+     *
+     * @return a spliterator over elements of the set
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new TreeSpliterator(root, null, null, size, true);
+    }
+
+    /**
+     * Returns a sequential stream over elements of the set in ascending
+     * order.
+     *
+     * @return a sequential stream over elements of the set
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over elements of the set. The stream is
+     * split by subtrees, so no elements are copied up front.
+     *
+     * @return a parallel stream over elements of the set
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    public boolean add(E value) {
+        int depth = insert(value);
+        if (depth < 0) {
+            return false;
+        }
+        if (isBalancing && isTooDeep(depth)) {
+            rebuildScapegoatSubtree(depth);
+        }
+        clearAncestors(depth);
+        return true;
+    }
+
     public boolean addAll(Collection<E> values) {
         boolean hasTreeChanged = false;
         for (E value : values) {
@@ -142,22 +1043,9 @@ public class BinaryTreeSet<E> implements Iterable<E> {
     }
 
     public boolean remove(E value) {
-        Node node = root, parent = null;
-        boolean isLeftChild = true;
-        while (node != null) {
-            if (compare(node.value, value) < 0) {
-                parent = node;
-                node = node.right;
-                isLeftChild = false;
-            } else if (compare(node.value, value) > 0) {
-                parent = node;
-                node = node.left;
-                isLeftChild = true;
-            } else {
-                removeNode(parent, node, isLeftChild);
-                size--;
-                return true;
-            }
+        if (delete(value)) {
+            rebuildTreeIfShrunk();
+            return true;
         }
         return false;
     }
@@ -165,16 +1053,48 @@ public class BinaryTreeSet<E> implements Iterable<E> {
     public boolean removeAll(Collection<E> values) {
         boolean hasTreeChanged = false;
         for (E value : values) {
-            if (remove(value)) {
+            if (delete(value)) {
                 hasTreeChanged = true;
             }
         }
+        rebuildTreeIfShrunk();
         return hasTreeChanged;
     }
 
     public void clear() {
         root = null;
         size = 0;
+        maxSize = 0;
+    }
+
+    /**
+     * Starts collecting statistics of comparisons, depths and rebuilds,
+     * or does nothing if they are already collected.
+     *
+     * @return the statistics of the set
+     */
+    public TreeStatistics enableStatistics() {
+        if (statistics == null) {
+            statistics = new TreeStatistics();
+        }
+        return statistics;
+    }
+
+    /**
+     * Stops collecting statistics. Statistics already returned keep their
+     * values.
+     */
+    public void disableStatistics() {
+        statistics = null;
+    }
+
+    /**
+     * Returns the statistics of the set.
+     *
+     * @return the statistics, or {@code null} if they are not collected
+     */
+    public TreeStatistics statistics() {
+        return statistics;
     }
 
     // TODO: add check for recursion (if it is possible)
@@ -192,6 +1112,9 @@ public class BinaryTreeSet<E> implements Iterable<E> {
 
     @SuppressWarnings("unchecked")
     private int compare(E o1, E o2) {
+        if (statistics != null) {
+            statistics.recordComparison();
+        }
         if (comparator != null) {
             return comparator.compare(o1, o2);
         } else {
@@ -199,6 +1122,74 @@ public class BinaryTreeSet<E> implements Iterable<E> {
         }
     }
 
+    private Node buildBalanced(E[] values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = new Node(values[middle]);
+        node.left = buildBalanced(values, from, middle);
+        node.right = buildBalanced(values, middle + 1, to);
+        node.size = to - from;
+        return node;
+    }
+
+    private Node firstNode() {
+        Node node = root;
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    private Node lastNode() {
+        Node node = root;
+        if (node != null) {
+            while (node.right != null) {
+                node = node.right;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node with the lowest value greater than the specified
+     * one, or equal to it if {@code isInclusive} is {@code true}.
+     */
+    private Node ceilingNode(E value, boolean isInclusive) {
+        Node node = root, found = null;
+        while (node != null) {
+            int cmp = compare(node.value, value);
+            if (cmp > 0 || isInclusive && cmp == 0) {
+                found = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the node with the highest value less than the specified
+     * one, or equal to it if {@code isInclusive} is {@code true}.
+     */
+    private Node floorNode(E value, boolean isInclusive) {
+        Node node = root, found = null;
+        while (node != null) {
+            int cmp = compare(node.value, value);
+            if (cmp < 0 || isInclusive && cmp == 0) {
+                found = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return found;
+    }
+
     private E findMin(Node startingNode) {
         Node node = startingNode;
         if (node == null) {
@@ -221,6 +1212,242 @@ public class BinaryTreeSet<E> implements Iterable<E> {
         return node.value;
     }
 
+    /**
+     * Inserts the value without rebalancing. Returns the depth of the new
+     * node (0 for the root) and leaves its ancestors in {@code
+     * ancestors}, or returns -1 if the value is null or already
+     * present.
+     */
+    private int insert(E value) {
+        if (value == null) {
+            return -1;
+        } else if (root == null) {
+            root = new Node(value);
+            size++;
+            maxSize = Math.max(maxSize, size);
+            if (statistics != null) {
+                statistics.recordOperation(0);
+            }
+            return 0;
+        }
+        Node node = root, previous = node;
+        int depth = 0;
+        while (node != null) {
+            previous = node;
+            if (compare(previous.value, value) < 0) {
+                node = previous.right;
+            } else if (compare(previous.value, value) > 0) {
+                node = previous.left;
+            } else {
+                if (statistics != null) {
+                    statistics.recordOperation(depth);
+                }
+                return -1;
+            }
+            if (depth == ancestors.length) {
+                ancestors = Arrays.copyOf(ancestors, depth * 2);
+            }
+            ancestors[depth++] = previous;
+        }
+        Node newNode = new Node(value);
+        if (compare(previous.value, value) < 0) {
+            previous.right = newNode;
+        } else {
+            previous.left = newNode;
+        }
+        if (depth == ancestors.length) {
+            ancestors = Arrays.copyOf(ancestors, depth * 2);
+        }
+        ancestors[depth] = newNode;
+        for (int i = 0; i < depth; i++) {
+            ancestors[i].size++;
+        }
+        size++;
+        maxSize = Math.max(maxSize, size);
+        if (statistics != null) {
+            statistics.recordOperation(depth);
+        }
+        return depth;
+    }
+
+    /**
+     * Removes the value if it is present. Ancestors of the removed node
+     * are collected in {@code ancestors} on the way down, so their
+     * subtree sizes are decreased without descending once more.
+     */
+    private boolean delete(E value) {
+        Node node = root, parent = null;
+        boolean isLeftChild = true;
+        int depth = -1;
+        while (node != null) {
+            depth++;
+            int cmp = compare(node.value, value);
+            if (cmp == 0) {
+                // every node on the way to the value loses one node of its subtree
+                for (int i = 0; i < depth; i++) {
+                    ancestors[i].size--;
+                }
+                removeNode(parent, node, isLeftChild);
+                size--;
+                clearAncestors(depth);
+                if (statistics != null) {
+                    statistics.recordOperation(depth);
+                }
+                return true;
+            }
+            if (depth == ancestors.length) {
+                ancestors = Arrays.copyOf(ancestors, depth * 2);
+            }
+            ancestors[depth] = node;
+            parent = node;
+            isLeftChild = cmp > 0;
+            node = isLeftChild ? node.left : node.right;
+        }
+        clearAncestors(depth);
+        if (statistics != null) {
+            statistics.recordOperation(Math.max(depth, 0));
+        }
+        return false;
+    }
+
+    private boolean isTooDeep(int depth) {
+        // the limit is never below log2(size), so compare integers first
+        return depth > 31 - Integer.numberOfLeadingZeros(size)
+                && depth > heightFactor * Math.log(size) / Math.log(2.0);
+    }
+
+    /**
+     * Walks up from the node inserted at the specified depth to the
+     * first ancestor which has a child holding more than {@code
+     * balanceRatio} of its nodes and rebuilds the subtree of that
+     * ancestor. Such an ancestor always exists when the depth exceeds
+     * the limit.
+     */
+    private void rebuildScapegoatSubtree(int depth) {
+        int childSize = 1;
+        for (int i = depth - 1; i >= 0; i--) {
+            Node node = ancestors[i];
+            int nodeSize = node.size;
+            if (i == 0) {
+                rebuildTree();
+                break;
+            } else if (childSize > balanceRatio * nodeSize) {
+                Node parent = ancestors[i - 1];
+                if (parent.left == node) {
+                    parent.left = rebuild(node, nodeSize);
+                } else {
+                    parent.right = rebuild(node, nodeSize);
+                }
+                break;
+            }
+            childSize = nodeSize;
+        }
+    }
+
+    /**
+     * Drops references to the ancestors up to the specified depth and
+     * shortens the array if it is much longer than the depth, so an array
+     * grown while the tree was deep does not outlive a rebuild.
+     */
+    private void clearAncestors(int depth) {
+        int used = depth + 1;
+        if (ancestors.length > Math.max(MIN_PATH_LENGTH, 4 * used)) {
+            ancestors = Arrays.copyOf(ancestors, Math.max(MIN_PATH_LENGTH, 2 * used));
+        }
+        Arrays.fill(ancestors, 0, Math.min(used, ancestors.length), null);
+    }
+
+    private void rebuildTree() {
+        root = rebuild(root, size);
+        maxSize = size;
+    }
+
+    private void rebuildTreeIfShrunk() {
+        if (isBalancing && size < balanceRatio * maxSize) {
+            rebuildTree();
+        }
+    }
+
+    private int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Returns the number of elements less than the specified value, or
+     * less than or equal to it if {@code isInclusive} is {@code true}.
+     */
+    private int countBelow(E value, boolean isInclusive) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(node.value, value);
+            if (cmp < 0 || isInclusive && cmp == 0) {
+                count += sizeOf(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets subtree sizes of a subtree which has just been rebuilt into a
+     * balanced one, so the recursion is only {@code O(log size)} deep.
+     */
+    private int recountSizes(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        node.size = recountSizes(node.left) + recountSizes(node.right) + 1;
+        return node.size;
+    }
+
+    /**
+     * Day-Stout-Warren: turns the subtree of {@code size} nodes into a
+     * right-leaning list with right rotations, then folds the list into
+     * a complete tree with left rotations. Takes {@code O(size)} time
+     * and no memory apart from one pseudo-root node.
+     */
+    private Node rebuild(Node subtreeRoot, int size) {
+        if (statistics != null) {
+            statistics.recordRebuild(size);
+        }
+        Node pseudoRoot = new Node(null);
+        pseudoRoot.right = subtreeRoot;
+        Node tail = pseudoRoot, rest = subtreeRoot;
+        while (rest != null) {
+            if (rest.left == null) {
+                tail = rest;
+                rest = rest.right;
+            } else {
+                Node left = rest.left;
+                rest.left = left.right;
+                left.right = rest;
+                rest = left;
+                tail.right = left;
+            }
+        }
+        int leaves = size + 1 - Integer.highestOneBit(size + 1);
+        compress(pseudoRoot, leaves);
+        for (int n = size - leaves; n > 1; n /= 2) {
+            compress(pseudoRoot, n / 2);
+        }
+        recountSizes(pseudoRoot.right);
+        return pseudoRoot.right;
+    }
+
+    private void compress(Node pseudoRoot, int count) {
+        Node scanner = pseudoRoot;
+        for (int i = 0; i < count; i++) {
+            Node child = scanner.right;
+            scanner.right = child.right;
+            scanner = scanner.right;
+            child.right = scanner.left;
+            scanner.left = child;
+        }
+    }
+
     private void removeNode(Node parent, Node node, boolean isLeftChild) {
         if (node.left == null) {
             if (parent == null) {
@@ -239,6 +1466,7 @@ public class BinaryTreeSet<E> implements Iterable<E> {
                 parent.right = node.left;
             }
         } else {
+            node.size--;
             node.value = popMinValueFromRightSubtreeOf(node);
         }
     }
@@ -249,8 +1477,11 @@ public class BinaryTreeSet<E> implements Iterable<E> {
             subtreeRoot.right = node.right;
             return node.value;
         }
+        // every node on the way to the minimum loses it from its subtree
+        node.size--;
         while (node.left.left != null) {
             node = node.left;
+            node.size--;
         }
         E value = node.left.value;
         // TODO: replace far call "node.left.right" with a method of Node
@@ -0,0 +1,163 @@
+package io.github.akuniutka.structure;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of fixed-size pages of a file with least-recently-used
+ * eviction. A page is pinned while it is in use and cannot be evicted
+ * until it is unpinned, changed pages are written back to the file when
+ * they are evicted or flushed. Page {@code i} takes bytes from {@code i *
+ * pageSize} to {@code (i + 1) * pageSize} of the file. Not thread-safe.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+final class BufferPool {
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int capacity;
+    // iterated from the least recently used page
+    private final LinkedHashMap<Integer, Page> pages;
+    private long readCount;
+    private long writeCount;
+
+    static final class Page {
+        final int id;
+        final ByteBuffer data;
+        boolean isDirty;
+        int pinCount;
+
+        Page(int id, ByteBuffer data) {
+            this.id = id;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Creates a pool which keeps up to {@code capacity} pages of the file
+     * in memory.
+     */
+    BufferPool(FileChannel channel, int pageSize, int capacity) {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.capacity = capacity;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the page with the specified id pinned, reading it from the
+     * file if it is not in the pool.
+     */
+    Page pin(int id) {
+        Page page = pages.get(id);
+        if (page == null) {
+            evictIfFull();
+            page = new Page(id, ByteBuffer.allocate(pageSize).order(ByteOrder.LITTLE_ENDIAN));
+            try {
+                ByteBuffer buffer = page.data;
+                long position = (long) id * pageSize;
+                while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                    // read until the page is full or the file ends
+                }
+                // through Buffer, ByteBuffer.clear() does not exist before Java 9
+                ((Buffer) buffer).clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            readCount++;
+            pages.put(id, page);
+        }
+        page.pinCount++;
+        return page;
+    }
+
+    /**
+     * Returns a new page with the specified id pinned and filled with
+     * zeros without reading it from the file.
+     */
+    Page pinNew(int id) {
+        Page page = pages.get(id);
+        if (page == null) {
+            evictIfFull();
+            page = new Page(id, ByteBuffer.allocate(pageSize).order(ByteOrder.LITTLE_ENDIAN));
+            pages.put(id, page);
+        } else {
+            Arrays.fill(page.data.array(), (byte) 0);
+        }
+        page.isDirty = true;
+        page.pinCount++;
+        return page;
+    }
+
+    void unpin(Page page) {
+        page.pinCount--;
+    }
+
+    /**
+     * Writes all changed pages to the file.
+     */
+    void flush() {
+        for (Page page : pages.values()) {
+            if (page.isDirty) {
+                write(page);
+            }
+        }
+    }
+
+    /**
+     * Drops all pages without writing them to the file.
+     */
+    void discard() {
+        pages.clear();
+    }
+
+    long readCount() {
+        return readCount;
+    }
+
+    long writeCount() {
+        return writeCount;
+    }
+
+    private void evictIfFull() {
+        if (pages.size() < capacity) {
+            return;
+        }
+        for (Iterator<Map.Entry<Integer, Page>> iterator = pages.entrySet().iterator(); iterator.hasNext(); ) {
+            Page page = iterator.next().getValue();
+            if (page.pinCount == 0) {
+                if (page.isDirty) {
+                    write(page);
+                }
+                iterator.remove();
+                return;
+            }
+        }
+        throw new IllegalStateException("All pages in buffer pool are pinned");
+    }
+
+    private void write(Page page) {
+        try {
+            ByteBuffer buffer = page.data.duplicate();
+            ((Buffer) buffer).clear();
+            long position = (long) page.id * pageSize;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        page.isDirty = false;
+        writeCount++;
+    }
+}
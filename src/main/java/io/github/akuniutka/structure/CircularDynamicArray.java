@@ -0,0 +1,422 @@
+package io.github.akuniutka.structure;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A dynamic array kept in a circular buffer, which makes it a deque as
+ * well. Elements occupy {@code size} consecutive slots of the backing
+ * array starting from the head slot and wrapping around its end, so an
+ * element is added or removed at either end in {@code O(1)} time without
+ * shifting other elements, and access by index is still {@code O(1)}.
+ * Insertion and removal at other positions shift the elements on the
+ * shorter side of the position, at most {@code size / 2} of them.
+ * <p>
+ * Capacity grows and shrinks according to a {@link GrowthPolicy} exactly
+ * as it does in {@link DynamicArray}, and never shrinks below {@code
+ * initialCapacity} which is 10 by default. When the backing array is
+ * reallocated, elements are copied to its start.
+ *
+ * @param <E> the type of elements
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class CircularDynamicArray<E> {
+    private static final int DEFAULT_INITIAL_CAPACITY = 10;
+    private final int initialCapacity;
+    private GrowthPolicy growthPolicy;
+    private Object[] elements;
+    private int capacity;
+    // slot of the first element
+    private int head;
+    private int size;
+
+    /**
+     * Creates an empty array with an initial capacity of 10.
+     */
+    public CircularDynamicArray() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty array with the specified initial capacity.
+     *
+     * @param initialCapacity initial capacity of the array being created
+     * @throws IllegalArgumentException if initial capacity is negative
+     */
+    public CircularDynamicArray(int initialCapacity) {
+        this(initialCapacity, GrowthPolicy.defaultPolicy());
+    }
+
+    /**
+     * Creates an empty array with the specified initial capacity which
+     * grows and shrinks according to the specified policy.
+     *
+     * @param initialCapacity initial capacity of the array being created
+     * @param growthPolicy    policy of growing and shrinking capacity
+     * @throws IllegalArgumentException if initial capacity is negative
+     * @throws NullPointerException     if the policy is null
+     */
+    public CircularDynamicArray(int initialCapacity, GrowthPolicy growthPolicy) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.initialCapacity = initialCapacity;
+        this.growthPolicy = Objects.requireNonNull(growthPolicy);
+        elements = new Object[initialCapacity];
+        capacity = initialCapacity;
+    }
+
+    /**
+     * Returns the element at the specified position in the array.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in the array
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E get(int index) {
+        checkIndexWithinRange(index);
+        return elementAt(slotOf(index));
+    }
+
+    /**
+     * Replaces the element at the specified position in the array with
+     * the specified element.
+     *
+     * @param index   index of the element to replace
+     * @param element element to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E set(int index, E element) {
+        checkIndexWithinRange(index);
+        int slot = slotOf(index);
+        E oldElement = elementAt(slot);
+        elements[slot] = element;
+        return oldElement;
+    }
+
+    /**
+     * Returns the first element of the array.
+     *
+     * @return the first element
+     * @throws NoSuchElementException if the array is empty
+     */
+    public E getFirst() {
+        checkNotEmpty();
+        return elementAt(head);
+    }
+
+    /**
+     * Returns the last element of the array.
+     *
+     * @return the last element
+     * @throws NoSuchElementException if the array is empty
+     */
+    public E getLast() {
+        checkNotEmpty();
+        return elementAt(slotOf(size - 1));
+    }
+
+    /**
+     * Appends the specified element to the end of the array.
+     *
+     * @param element element to be appended to the array
+     */
+    public void add(E element) {
+        addLast(element);
+    }
+
+    /**
+     * Inserts the specified element at the start of the array.
+     *
+     * @param element element to be inserted
+     */
+    public void addFirst(E element) {
+        if (size == capacity) {
+            increaseCapacity();
+        }
+        head = head == 0 ? capacity - 1 : head - 1;
+        elements[head] = element;
+        size++;
+    }
+
+    /**
+     * Appends the specified element to the end of the array.
+     *
+     * @param element element to be appended to the array
+     */
+    public void addLast(E element) {
+        if (size == capacity) {
+            increaseCapacity();
+        }
+        elements[slotOf(size)] = element;
+        size++;
+    }
+
+    /**
+     * Inserts the specified element at the specified position in the
+     * array. Elements before the position are shifted to the left if
+     * there are fewer of them than elements after it, otherwise elements
+     * after the position are shifted to the right.
+     *
+     * @param index   index at which the specified element is to be
+     *                inserted
+     * @param element element to be inserted
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public void add(int index, E element) {
+        checkIndexWithinRange(index);
+        if (size == capacity) {
+            increaseCapacity();
+        }
+        if (index < size - index) {
+            head = head == 0 ? capacity - 1 : head - 1;
+            shift(1, 0, index);
+        } else {
+            shift(index, index + 1, size - index);
+        }
+        elements[slotOf(index)] = element;
+        size++;
+    }
+
+    /**
+     * Removes the element at the specified position from the array,
+     * shifting the elements on the shorter side of the position.
+     *
+     * @param index index of the element to remove
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E remove(int index) {
+        checkIndexWithinRange(index);
+        E oldElement = elementAt(slotOf(index));
+        if (index < size - 1 - index) {
+            shift(0, 1, index);
+            elements[head] = null;
+            head = head == capacity - 1 ? 0 : head + 1;
+        } else {
+            shift(index + 1, index, size - 1 - index);
+            elements[slotOf(size - 1)] = null;
+        }
+        size--;
+        decreaseCapacityIfAppropriate();
+        return oldElement;
+    }
+
+    /**
+     * Removes the first element of the array.
+     *
+     * @return the first element
+     * @throws NoSuchElementException if the array is empty
+     */
+    public E removeFirst() {
+        checkNotEmpty();
+        E oldElement = elementAt(head);
+        elements[head] = null;
+        head = head == capacity - 1 ? 0 : head + 1;
+        size--;
+        decreaseCapacityIfAppropriate();
+        return oldElement;
+    }
+
+    /**
+     * Removes the last element of the array.
+     *
+     * @return the last element
+     * @throws NoSuchElementException if the array is empty
+     */
+    public E removeLast() {
+        checkNotEmpty();
+        int slot = slotOf(size - 1);
+        E oldElement = elementAt(slot);
+        elements[slot] = null;
+        size--;
+        decreaseCapacityIfAppropriate();
+        return oldElement;
+    }
+
+    /**
+     * Removes all elements from the array. Capacity is reduced as the
+     * growth policy says.
+     */
+    public void clear() {
+        int newCapacity = growthPolicy.shrink(capacity, 0, initialCapacity);
+        if (newCapacity < capacity) {
+            elements = new Object[newCapacity];
+            capacity = newCapacity;
+        } else {
+            Arrays.fill(elements, null);
+        }
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of elements in the array.
+     *
+     * @return the number of elements in the array
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the array contains no elements.
+     *
+     * @return {@code true} if the array contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements the array can hold without growing.
+     *
+     * @return the capacity of the array
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Increases capacity, if necessary, so that the array can hold at
+     * least the specified number of elements without growing again.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            adjustCapacity(growthPolicy.grow(capacity, minCapacity));
+        }
+    }
+
+    /**
+     * Reduces capacity to the number of elements in the array.
+     */
+    public void trimToSize() {
+        if (capacity > size) {
+            adjustCapacity(size);
+        }
+    }
+
+    /**
+     * Returns the policy the array grows and shrinks by.
+     *
+     * @return the growth policy
+     */
+    public GrowthPolicy growthPolicy() {
+        return growthPolicy;
+    }
+
+    /**
+     * Replaces the policy the array grows and shrinks by.
+     *
+     * @param growthPolicy new growth policy
+     * @throws NullPointerException if the policy is null
+     */
+    public void setGrowthPolicy(GrowthPolicy growthPolicy) {
+        this.growthPolicy = Objects.requireNonNull(growthPolicy);
+    }
+
+    /**
+     * Returns a fixed-length array containing all elements of the array
+     * from the first to the last.
+     *
+     * @return a fixed-length array containing all elements of the array
+     */
+    @SuppressWarnings("unchecked")
+    public E[] toArray() {
+        Object[] result = new Object[size];
+        copyTo(result);
+        return (E[]) result;
+    }
+
+    private void checkIndexWithinRange(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    /**
+     * Returns the slot of the element at the specified index, the index
+     * is less than capacity.
+     */
+    private int slotOf(int index) {
+        // head + index may overflow for large capacities
+        return index < capacity - head ? head + index : index - (capacity - head);
+    }
+
+    /**
+     * Moves {@code count} elements from position {@code from} to position
+     * {@code to}, which differ by one, the way {@code System.arraycopy}
+     * does. Both ranges may wrap around the end of the storage, so the
+     * elements are copied in at most three blocks between wrap points.
+     */
+    private void shift(int from, int to, int count) {
+        int done = 0;
+        if (to < from) {
+            while (done < count) {
+                int source = slotOf(from + done);
+                int target = slotOf(to + done);
+                int n = Math.min(count - done, capacity - Math.max(source, target));
+                System.arraycopy(elements, source, elements, target, n);
+                done += n;
+            }
+        } else {
+            while (done < count) {
+                int sourceLast = slotOf(from + count - 1 - done);
+                int targetLast = slotOf(to + count - 1 - done);
+                int n = Math.min(count - done, Math.min(sourceLast, targetLast) + 1);
+                System.arraycopy(elements, sourceLast - n + 1, elements, targetLast - n + 1, n);
+                done += n;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int slot) {
+        return (E) elements[slot];
+    }
+
+    private void increaseCapacity() {
+        adjustCapacity(growthPolicy.grow(capacity, capacity + 1));
+    }
+
+    private void decreaseCapacityIfAppropriate() {
+        int newCapacity = growthPolicy.shrink(capacity, size, initialCapacity);
+        if (newCapacity < capacity) {
+            adjustCapacity(newCapacity);
+        }
+    }
+
+    /**
+     * Copies elements from the first to the last to the start of the
+     * specified array in at most two blocks.
+     */
+    private void copyTo(Object[] target) {
+        int firstBlock = Math.min(size, capacity - head);
+        System.arraycopy(elements, head, target, 0, firstBlock);
+        System.arraycopy(elements, 0, target, firstBlock, size - firstBlock);
+    }
+
+    private void adjustCapacity(int newCapacity) {
+        Object[] newStorage = new Object[newCapacity];
+        copyTo(newStorage);
+        elements = newStorage;
+        capacity = newCapacity;
+        head = 0;
+    }
+}
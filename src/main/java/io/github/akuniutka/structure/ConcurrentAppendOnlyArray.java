@@ -0,0 +1,186 @@
+package io.github.akuniutka.structure;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free dynamic array which supports only appending elements and
+ * can be used by many threads at once without external locking.
+ * <p>
+ * Elements are kept in segments of growing size: segment {@code k}
+ * holds {@code 16 * 2^k} elements, so the array grows by adding a
+ * segment and never copies elements already added. An appending thread
+ * installs the segment for the next free slot if it is missing (with a
+ * CAS, losers discard theirs), claims the slot with a CAS on the number
+ * of claimed slots and writes its element. Then it advances the
+ * committed size with a single CAS over all filled slots, helping slower
+ * threads which have written their elements but not advanced the size
+ * yet.
+ * <p>
+ * {@link #size()} returns the length of the committed prefix: all
+ * elements below it are written and safely published, so {@link
+ * #get(int)} and iterators only ever see fully added elements. A slot
+ * claimed but not written yet holds the committed size back until it is
+ * written. Nothing between claiming a slot and writing it can fail: the
+ * segment is allocated before the slot is claimed, so an {@code
+ * OutOfMemoryError} leaves no slot claimed and never stalls the committed
+ * size. {@code null} elements are not allowed.
+ *
+ * @param <E> the type of elements
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class ConcurrentAppendOnlyArray<E> implements Iterable<E> {
+    private static final int FIRST_SEGMENT_SHIFT = 4;
+    private static final int FIRST_SEGMENT_SIZE = 1 << FIRST_SEGMENT_SHIFT;
+    private static final int SEGMENT_COUNT = 31 - FIRST_SEGMENT_SHIFT;
+    private static final int MAX_SIZE = Integer.MAX_VALUE - FIRST_SEGMENT_SIZE + 1;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<E>> segments =
+            new AtomicReferenceArray<>(SEGMENT_COUNT);
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final AtomicInteger committed = new AtomicInteger();
+
+    /**
+     * Creates an empty array.
+     */
+    public ConcurrentAppendOnlyArray() {
+        segments.set(0, new AtomicReferenceArray<>(FIRST_SEGMENT_SIZE));
+    }
+
+    /**
+     * Returns the element at the specified position.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E get(int index) {
+        if (index < 0 || index >= committed.get()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return slot(index);
+    }
+
+    /**
+     * Appends the specified element to the end of the array.
+     *
+     * @param element element to be appended to the array
+     * @return the index of the appended element
+     * @throws NullPointerException  if the element is null
+     * @throws IllegalStateException if the array is full
+     */
+    public int add(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        int index;
+        AtomicReferenceArray<E> segment;
+        do {
+            index = claimed.get();
+            if (index == MAX_SIZE) {
+                throw new IllegalStateException();
+            }
+            // segments are never removed, so the segment stays in place once the slot is claimed
+            segment = segmentFor(index + FIRST_SEGMENT_SIZE);
+        } while (!claimed.compareAndSet(index, index + 1));
+        int position = index + FIRST_SEGMENT_SIZE;
+        segment.set(position - Integer.highestOneBit(position), element);
+        advanceCommitted();
+        return index;
+    }
+
+    /**
+     * Returns the number of elements which are fully added to the array.
+     *
+     * @return the number of elements in the array
+     */
+    public int size() {
+        return committed.get();
+    }
+
+    /**
+     * Returns {@code true} if the array contains no fully added elements.
+     *
+     * @return {@code true} if the array contains no elements
+     */
+    public boolean isEmpty() {
+        return committed.get() == 0;
+    }
+
+    /**
+     * Returns an iterator over the elements which were fully added when
+     * the iterator was created. The iterator does not see elements
+     * appended later and never throws {@code
+     * ConcurrentModificationException}.
+     *
+     * @return an iterator over a consistent prefix of the array
+     */
+    @Override
+    public Iterator<E> iterator() {
+        int end = committed.get();
+        return new Iterator<E>() {
+            private int cursor;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < end;
+            }
+
+            @Override
+            public E next() {
+                if (cursor >= end) {
+                    throw new NoSuchElementException();
+                }
+                return slot(cursor++);
+            }
+        };
+    }
+
+    private static int segmentOf(int position) {
+        return 31 - Integer.numberOfLeadingZeros(position) - FIRST_SEGMENT_SHIFT;
+    }
+
+    /**
+     * Returns the segment for the position, installing it if missing.
+     */
+    private AtomicReferenceArray<E> segmentFor(int position) {
+        int segmentIndex = segmentOf(position);
+        AtomicReferenceArray<E> segment = segments.get(segmentIndex);
+        if (segment == null) {
+            segments.compareAndSet(segmentIndex, null,
+                    new AtomicReferenceArray<>(FIRST_SEGMENT_SIZE << segmentIndex));
+            segment = segments.get(segmentIndex);
+        }
+        return segment;
+    }
+
+    private E slot(int index) {
+        int position = index + FIRST_SEGMENT_SIZE;
+        AtomicReferenceArray<E> segment = segments.get(segmentOf(position));
+        return segment == null ? null : segment.get(position - Integer.highestOneBit(position));
+    }
+
+    /**
+     * Moves the committed size to the end of the run of filled slots
+     * which follows it.
+     */
+    private void advanceCommitted() {
+        int size = committed.get();
+        while (true) {
+            int end = size;
+            int limit = claimed.get();
+            while (end < limit && slot(end) != null) {
+                end++;
+            }
+            if (end == size) {
+                return;
+            }
+            size = committed.compareAndSet(size, end) ? end : committed.get();
+        }
+    }
+}
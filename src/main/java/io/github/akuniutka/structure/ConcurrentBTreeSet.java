@@ -0,0 +1,721 @@
+package io.github.akuniutka.structure;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe ordered set based on B+-tree with optimistic lock
+ * coupling. All elements are kept in leaves, inner nodes keep separators
+ * only. Every node has a version: a writer locks the node by setting
+ * bit {@code 2} of the version with a CAS and unlocks it by adding 2
+ * once more, so every change produces a new version.
+ * <p>
+ * Readers never write to shared memory: they remember the version of a
+ * node, read its content and check the version has not changed before
+ * they trust what they have read, restarting from the root otherwise.
+ * Content of a node is kept in immutable arrays, which writers replace
+ * as a whole, so a reader always sees arrays in a consistent state and
+ * only needs the version to check that keys and children belong to the
+ * same moment.
+ * <p>
+ * Writers descend the same optimistic way and lock only the nodes they
+ * change: the leaf they insert into or remove from, or a full node and
+ * its parent when the node is split on the way down. Nodes are not
+ * merged when they become underfull, which keeps removal down to locking
+ * one leaf. A leaf left empty is unlinked from its parent unless it is
+ * the only child, and a root left with one child is replaced by the
+ * child. {@link #clear()} swaps in an empty root and retires the nodes
+ * of the old tree, so writers which are still in the old tree restart
+ * in the new one.
+ * <p>
+ * {@code null} elements are not allowed. Iterators are weakly
+ * consistent: they never throw {@code ConcurrentModificationException},
+ * return elements in ascending order and reflect some of the changes
+ * made after their creation. {@link #size()} is exact only when there
+ * are no concurrent modifications.
+ *
+ * @param <E> the type of elements
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class ConcurrentBTreeSet<E> implements Iterable<E> {
+    private static final int DEFAULT_NODE_CAPACITY = 64;
+    private static final long LOCKED = 2L;
+    private static final int SPINS_BEFORE_YIELD = 64;
+    private static final AtomicLongFieldUpdater<Node> VERSION =
+            AtomicLongFieldUpdater.newUpdater(Node.class, "version");
+
+    private final int nodeCapacity;
+    private final Comparator<? super E> comparator;
+    private final LongAdder size = new LongAdder();
+    private volatile Node root = new Node(new Object[0], null);
+
+    private static final class Node {
+        volatile long version;
+        volatile Object[] keys;
+        // null for leaves, one more child than keys for inner nodes
+        volatile Node[] children;
+        // set once the node is no longer part of the tree, read and written under the lock only
+        boolean retired;
+
+        Node(Object[] keys, Node[] children) {
+            this.keys = keys;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Result of an optimistic descent to a leaf: a consistent copy of
+     * the leaf's keys, the lowest separator above the leaf, or {@code
+     * null} if the leaf is the rightmost one, and the highest separator
+     * below the leaf, or {@code null} if the leaf is the leftmost one.
+     */
+    private static final class LeafScan {
+        Object[] keys;
+        Object upperBound;
+        Object lowerBound;
+    }
+
+    private class TreeIterator implements Iterator<E> {
+        private final LeafScan scan = new LeafScan();
+        private Object[] keys;
+        private int position;
+        private E lastReturned;
+        private boolean hasMoreLeaves = true;
+
+        TreeIterator() {
+            readLeaf(null, false, scan);
+            loadLeaf();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position >= keys.length && hasMoreLeaves) {
+                readLeaf(scan.upperBound, false, scan);
+                loadLeaf();
+            }
+            return position < keys.length;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = key(keys, position++);
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentBTreeSet.this.remove(lastReturned);
+            lastReturned = null;
+        }
+
+        private void loadLeaf() {
+            keys = scan.keys;
+            hasMoreLeaves = scan.upperBound != null;
+            position = 0;
+            if (lastReturned != null) {
+                int index = indexOf(keys, lastReturned);
+                position = index >= 0 ? index + 1 : -index - 1;
+            }
+        }
+    }
+
+    /**
+     * Creates an empty set ordered by natural ordering of its elements
+     * with nodes of up to 64 elements.
+     */
+    public ConcurrentBTreeSet() {
+        this(DEFAULT_NODE_CAPACITY, null);
+    }
+
+    /**
+     * Creates an empty set ordered by the specified comparator with
+     * nodes of up to 64 elements.
+     *
+     * @param comparator comparator used to order elements, if {@code null}
+     *                   then the natural ordering of elements is used
+     */
+    public ConcurrentBTreeSet(Comparator<? super E> comparator) {
+        this(DEFAULT_NODE_CAPACITY, comparator);
+    }
+
+    /**
+     * Creates an empty set ordered by the specified comparator with
+     * nodes of the specified capacity.
+     *
+     * @param nodeCapacity maximum number of elements in a leaf or
+     *                     separators in an inner node
+     * @param comparator   comparator used to order elements, if {@code
+     *                     null} then the natural ordering of elements is
+     *                     used
+     * @throws IllegalArgumentException if node capacity is less than 3
+     */
+    public ConcurrentBTreeSet(int nodeCapacity, Comparator<? super E> comparator) {
+        if (nodeCapacity < 3) {
+            throw new IllegalArgumentException();
+        }
+        this.nodeCapacity = nodeCapacity;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns {@code true} if the set contains no elements.
+     *
+     * @return {@code true} if the set contains no elements
+     */
+    public boolean isEmpty() {
+        return findMin() == null;
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements in the set
+     */
+    public int size() {
+        return (int) Math.max(0L, Math.min(Integer.MAX_VALUE, size.sum()));
+    }
+
+    /**
+     * Returns {@code true} if the set contains the specified element.
+     * Never blocks and never writes to shared memory.
+     *
+     * @param value element whose presence is to be tested
+     * @return {@code true} if the set contains the specified element
+     */
+    public boolean contains(E value) {
+        if (value == null) {
+            return false;
+        }
+        LeafScan scan = new LeafScan();
+        readLeaf(value, false, scan);
+        return indexOf(scan.keys, value) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if the set contains all the specified elements.
+     *
+     * @param values elements whose presence is to be tested
+     * @return {@code true} if the set contains all the specified elements
+     */
+    public boolean containsAll(Collection<E> values) {
+        for (E value : values) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the lowest element of the set.
+     *
+     * @return the lowest element or {@code null} if the set is empty
+     */
+    public E findMin() {
+        Iterator<E> iterator = iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Returns the highest element of the set.
+     *
+     * @return the highest element or {@code null} if the set is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E findMax() {
+        LeafScan scan = new LeafScan();
+        E bound = null;
+        while (true) {
+            readLeaf(bound, true, scan);
+            Object[] keys = scan.keys;
+            int count = keys.length;
+            if (bound != null) {
+                int index = indexOf(keys, bound);
+                count = index >= 0 ? index : -index - 1;
+            }
+            if (count > 0) {
+                return key(keys, count - 1);
+            }
+            if (scan.lowerBound == null) {
+                return null;
+            }
+            // the leaf is empty, continue with the leaf to the left of it
+            bound = (E) scan.lowerBound;
+        }
+    }
+
+    /**
+     * Returns a weakly consistent iterator over elements of the set in
+     * ascending order.
+     *
+     * @return an iterator over elements of the set
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new TreeIterator();
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     *
+     * @param value element to be added
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean add(E value) {
+        if (value == null) {
+            return false;
+        }
+        Node leaf = lockLeaf(value, true);
+        Object[] keys = leaf.keys;
+        int index = indexOf(keys, value);
+        if (index >= 0) {
+            unlock(leaf);
+            return false;
+        }
+        leaf.keys = insert(keys, -index - 1, value);
+        unlock(leaf);
+        size.increment();
+        return true;
+    }
+
+    /**
+     * Adds all the specified elements to the set.
+     *
+     * @param values elements to be added
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean addAll(Collection<E> values) {
+        boolean hasTreeChanged = false;
+        for (E value : values) {
+            if (add(value)) {
+                hasTreeChanged = true;
+            }
+        }
+        return hasTreeChanged;
+    }
+
+    /**
+     * Removes the specified element from the set if it is present.
+     *
+     * @param value element to be removed
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean remove(E value) {
+        if (value == null) {
+            return false;
+        }
+        Node leaf = lockLeaf(value, false);
+        Object[] keys = leaf.keys;
+        int index = indexOf(keys, value);
+        if (index < 0) {
+            unlock(leaf);
+            return false;
+        }
+        leaf.keys = delete(keys, index);
+        unlock(leaf);
+        size.decrement();
+        if (keys.length == 1) {
+            unlinkEmptyLeaf(value);
+        }
+        return true;
+    }
+
+    /**
+     * Removes all the specified elements from the set.
+     *
+     * @param values elements to be removed
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean removeAll(Collection<E> values) {
+        boolean hasTreeChanged = false;
+        for (E value : values) {
+            if (remove(value)) {
+                hasTreeChanged = true;
+            }
+        }
+        return hasTreeChanged;
+    }
+
+    /**
+     * Removes all elements from the set. Elements added concurrently with
+     * this call may or may not be removed.
+     */
+    public void clear() {
+        Node oldRoot;
+        do {
+            oldRoot = root;
+            lock(oldRoot);
+            if (oldRoot == root) {
+                break;
+            }
+            unlock(oldRoot);
+        } while (true);
+        root = new Node(new Object[0], null);
+        size.add(-retire(oldRoot));
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E o1, E o2) {
+        if (comparator != null) {
+            return comparator.compare(o1, o2);
+        } else {
+            return ((Comparable<? super E>) o1).compareTo(o2);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E key(Object[] keys, int index) {
+        return (E) keys[index];
+    }
+
+    private int indexOf(Object[] keys, E value) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compare(key(keys, middle), value);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the index of the child whose subtree may contain the value:
+     * child {@code i} holds values from separator {@code i - 1}
+     * (inclusive) to separator {@code i} (exclusive).
+     */
+    private int childIndex(Object[] keys, E value) {
+        return childIndex(keys, value, false);
+    }
+
+    /**
+     * Returns the index of the child whose subtree may contain the value
+     * or, if {@code below} is set, the highest values less than the value
+     * ({@code null} stands for the lowest value or for the value above all
+     * others respectively).
+     */
+    private int childIndex(Object[] keys, E value, boolean below) {
+        if (value == null) {
+            return below ? keys.length : 0;
+        }
+        int index = indexOf(keys, value);
+        if (index >= 0) {
+            return below ? index : index + 1;
+        }
+        return -index - 1;
+    }
+
+    /**
+     * Descends to the leaf which may contain the value (the leftmost leaf
+     * for {@code null}) or, if {@code below} is set, the highest values
+     * less than the value (the rightmost leaf for {@code null}) without
+     * taking any locks and stores a consistent copy of its keys in the
+     * scan.
+     */
+    @SuppressWarnings("unchecked")
+    private void readLeaf(Object from, boolean below, LeafScan scan) {
+        E value = (E) from;
+        restart:
+        while (true) {
+            Node node = root;
+            long version = stableVersion(node);
+            if (node != root) {
+                continue;
+            }
+            Object upperBound = null;
+            Object lowerBound = null;
+            while (true) {
+                Object[] keys = node.keys;
+                Node[] children = node.children;
+                if (children == null) {
+                    if (node.version != version) {
+                        continue restart;
+                    }
+                    scan.keys = keys;
+                    scan.upperBound = upperBound;
+                    scan.lowerBound = lowerBound;
+                    return;
+                }
+                int index = childIndex(keys, value, below);
+                if (index >= children.length) {
+                    continue restart;
+                }
+                Node child = children[index];
+                Object separator = index < keys.length ? keys[index] : null;
+                Object previousSeparator = index > 0 ? keys[index - 1] : null;
+                if (node.version != version) {
+                    continue restart;
+                }
+                long childVersion = stableVersion(child);
+                if (node.version != version) {
+                    continue restart;
+                }
+                if (separator != null) {
+                    upperBound = separator;
+                }
+                if (previousSeparator != null) {
+                    lowerBound = previousSeparator;
+                }
+                node = child;
+                version = childVersion;
+            }
+        }
+    }
+
+    /**
+     * Descends to the leaf which may contain the value and returns it
+     * write-locked. If {@code splitFullNodes} is set, every full node met
+     * on the way is split first (locking it and its parent only), so the
+     * returned leaf has room for one more element.
+     */
+    private Node lockLeaf(E value, boolean splitFullNodes) {
+        restart:
+        while (true) {
+            Node node = root;
+            long version = stableVersion(node);
+            if (node != root) {
+                continue;
+            }
+            Node parent = null;
+            long parentVersion = 0;
+            while (true) {
+                Object[] keys = node.keys;
+                Node[] children = node.children;
+                if (splitFullNodes && keys.length >= nodeCapacity) {
+                    if (parent != null && !tryLock(parent, parentVersion)) {
+                        continue restart;
+                    }
+                    if (!tryLock(node, version)) {
+                        if (parent != null) {
+                            unlock(parent);
+                        }
+                        continue restart;
+                    }
+                    if (node.retired || parent != null && parent.retired || parent == null && node != root) {
+                        unlock(node);
+                        if (parent != null) {
+                            unlock(parent);
+                        }
+                        continue restart;
+                    }
+                    split(node, parent);
+                    unlock(node);
+                    if (parent != null) {
+                        unlock(parent);
+                    }
+                    continue restart;
+                }
+                if (children == null) {
+                    if (!tryLock(node, version)) {
+                        continue restart;
+                    }
+                    if (node.retired || parent != null && parent.version != parentVersion) {
+                        unlock(node);
+                        continue restart;
+                    }
+                    return node;
+                }
+                int index = childIndex(keys, value);
+                if (index >= children.length) {
+                    continue restart;
+                }
+                Node child = children[index];
+                if (node.version != version || parent != null && parent.version != parentVersion) {
+                    continue restart;
+                }
+                long childVersion = stableVersion(child);
+                if (node.version != version) {
+                    continue restart;
+                }
+                parent = node;
+                parentVersion = version;
+                node = child;
+                version = childVersion;
+            }
+        }
+    }
+
+    /**
+     * Unlinks the leaf which may contain the value from its parent if the
+     * leaf is empty and is not the only child. If the parent is the root
+     * and is left with one child, the child becomes the root.
+     */
+    private void unlinkEmptyLeaf(E value) {
+        restart:
+        while (true) {
+            Node node = root;
+            long version = stableVersion(node);
+            if (node != root) {
+                continue;
+            }
+            Node parent = null;
+            long parentVersion = 0;
+            int index = 0;
+            while (true) {
+                Object[] keys = node.keys;
+                Node[] children = node.children;
+                if (children == null) {
+                    if (node.version != version) {
+                        continue restart;
+                    }
+                    if (parent == null || keys.length != 0) {
+                        return;
+                    }
+                    break;
+                }
+                index = childIndex(keys, value);
+                if (index >= children.length) {
+                    continue restart;
+                }
+                Node child = children[index];
+                if (node.version != version) {
+                    continue restart;
+                }
+                long childVersion = stableVersion(child);
+                if (node.version != version) {
+                    continue restart;
+                }
+                parent = node;
+                parentVersion = version;
+                node = child;
+                version = childVersion;
+            }
+            if (!tryLock(parent, parentVersion)) {
+                continue;
+            }
+            if (!tryLock(node, version)) {
+                unlock(parent);
+                continue;
+            }
+            Node[] children = parent.children;
+            if (!parent.retired && children.length > 1) {
+                Object[] keys = parent.keys;
+                parent.keys = delete(keys, index > 0 ? index - 1 : 0);
+                parent.children = delete(children, index);
+                node.retired = true;
+                if (parent == root && children.length == 2) {
+                    root = parent.children[0];
+                    parent.retired = true;
+                }
+            }
+            unlock(node);
+            unlock(parent);
+            return;
+        }
+    }
+
+    /**
+     * Locks and retires every node of a detached tree whose root is
+     * already locked by the caller and returns the number of elements in
+     * it. Writers which locked a node of the tree before it was retired
+     * finish their change first, those which come later restart.
+     */
+    private static long retire(Node node) {
+        long count;
+        Node[] children = node.children;
+        if (children == null) {
+            count = node.keys.length;
+        } else {
+            count = 0;
+            for (Node child : children) {
+                lock(child);
+                count += retire(child);
+            }
+        }
+        node.retired = true;
+        unlock(node);
+        return count;
+    }
+
+    /**
+     * Splits a full node in two halves and inserts the separator into
+     * the parent, or into a new root if the node is the root. Both the
+     * node and its parent are write-locked by the caller.
+     */
+    private void split(Node node, Node parent) {
+        Object[] keys = node.keys;
+        Node[] children = node.children;
+        int middle = keys.length / 2;
+        Object separator = keys[middle];
+        Node sibling;
+        if (children == null) {
+            sibling = new Node(Arrays.copyOfRange(keys, middle, keys.length), null);
+            node.keys = Arrays.copyOf(keys, middle);
+        } else {
+            sibling = new Node(Arrays.copyOfRange(keys, middle + 1, keys.length),
+                    Arrays.copyOfRange(children, middle + 1, children.length));
+            node.keys = Arrays.copyOf(keys, middle);
+            node.children = Arrays.copyOf(children, middle + 1);
+        }
+        if (parent == null) {
+            root = new Node(new Object[]{separator}, new Node[]{node, sibling});
+            return;
+        }
+        Node[] parentChildren = parent.children;
+        int index = 0;
+        while (parentChildren[index] != node) {
+            index++;
+        }
+        Node[] newChildren = new Node[parentChildren.length + 1];
+        System.arraycopy(parentChildren, 0, newChildren, 0, index + 1);
+        newChildren[index + 1] = sibling;
+        System.arraycopy(parentChildren, index + 1, newChildren, index + 2, parentChildren.length - index - 1);
+        parent.keys = insert(parent.keys, index, separator);
+        parent.children = newChildren;
+    }
+
+    private static Object[] insert(Object[] keys, int index, Object key) {
+        Object[] result = new Object[keys.length + 1];
+        System.arraycopy(keys, 0, result, 0, index);
+        result[index] = key;
+        System.arraycopy(keys, index, result, index + 1, keys.length - index);
+        return result;
+    }
+
+    private static <T> T[] delete(T[] keys, int index) {
+        T[] result = Arrays.copyOf(keys, keys.length - 1);
+        System.arraycopy(keys, index + 1, result, index, keys.length - index - 1);
+        return result;
+    }
+
+    private static long stableVersion(Node node) {
+        int spins = 0;
+        long version = node.version;
+        while ((version & LOCKED) != 0) {
+            if (++spins % SPINS_BEFORE_YIELD == 0) {
+                Thread.yield();
+            }
+            version = node.version;
+        }
+        return version;
+    }
+
+    private static void lock(Node node) {
+        while (!tryLock(node, stableVersion(node))) {
+            Thread.yield();
+        }
+    }
+
+    private static boolean tryLock(Node node, long version) {
+        return VERSION.compareAndSet(node, version, version + LOCKED);
+    }
+
+    private static void unlock(Node node) {
+        node.version = node.version + LOCKED;
+    }
+}
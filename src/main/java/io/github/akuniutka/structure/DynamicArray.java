@@ -1,7 +1,14 @@
 package io.github.akuniutka.structure;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A sample implementation of dynamic array structure. A dynamic array
@@ -11,6 +18,14 @@ import java.util.Comparator;
  * contain more elements than it was specified at the fixed-length arrays
  * creation. This implementation keeps its capacity not less than {@code
  * initialCapacity} which is 10 by default.
+ * <p>
+ * How capacity grows and shrinks is set by a {@link GrowthPolicy}: by
+ * default the array doubles when full and halves when a quarter full.
+ * {@link #ensureCapacity(int)} and {@link #trimToSize()} adjust capacity
+ * explicitly.
+ * <p>
+ * Reallocations and shifts of elements are counted by {@link
+ * DynamicArrayStatistics} once {@link #enableStatistics()} is called.
  *
  * @author Andrei Kuniutka
  * @version 1.0
@@ -19,9 +34,88 @@ import java.util.Comparator;
 public class DynamicArray<E> {
     private static final int DEFAULT_INITIAL_CAPACITY = 10;
     private final int initialCapacity;
+    private GrowthPolicy growthPolicy;
     private Object[] elements;
     private int capacity;
     private int size;
+    // null unless statistics are enabled
+    private DynamicArrayStatistics statistics;
+
+    /**
+     * Splits index ranges of the backing array, so no elements are copied.
+     * Binds to the backing array and the size at the first traversal,
+     * split or size estimation, later changes of the dynamic array are not
+     * reflected.
+     */
+    private class ArraySpliterator implements Spliterator<E> {
+        private Object[] array;
+        private int index;
+        // one past the last index, -1 until bound to the backing array
+        private int fence;
+
+        ArraySpliterator(Object[] array, int origin, int fence) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (index < getFence()) {
+                action.accept(elementAt(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            int hi = getFence();
+            for (int i = index; i < hi; i++) {
+                action.accept(elementAt(i));
+            }
+            index = hi;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int lo = index, mid = (lo + getFence()) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            index = mid;
+            return new ArraySpliterator(array, lo, mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private int getFence() {
+            if (fence < 0) {
+                array = elements;
+                fence = size;
+            }
+            return fence;
+        }
+
+        @SuppressWarnings("unchecked")
+        private E elementAt(int i) {
+            return (E) array[i];
+        }
+    }
 
     /**
      * Creates an empty dynamic array with an initial capacity of 10.
@@ -55,7 +149,8 @@ public class DynamicArray<E> {
      * @throws NullPointerException if the specified dynamic array is null
      */
     public DynamicArray(DynamicArray<? extends E> elements) {
-        this(elements.toArray());
+        this(elements.size());
+        insertAll(0, elements.elements, elements.size);
     }
 
     /**
@@ -66,10 +161,25 @@ public class DynamicArray<E> {
      * @throws IllegalArgumentException if initial capacity is negative
      */
     public DynamicArray(int initialCapacity) {
+        this(initialCapacity, GrowthPolicy.defaultPolicy());
+    }
+
+    /**
+     * Creates an empty dynamic array with the specified initial capacity
+     * which grows and shrinks according to the specified policy.
+     *
+     * @param initialCapacity initial capacity of the dynamic array being
+     *                        created
+     * @param growthPolicy    policy of growing and shrinking capacity
+     * @throws IllegalArgumentException if initial capacity is negative
+     * @throws NullPointerException     if the policy is null
+     */
+    public DynamicArray(int initialCapacity, GrowthPolicy growthPolicy) {
         if (initialCapacity < 0) {
             throw new IllegalArgumentException();
         }
         this.initialCapacity = initialCapacity;
+        this.growthPolicy = Objects.requireNonNull(growthPolicy);
         elements = new Object[initialCapacity];
         capacity = initialCapacity;
     }
@@ -132,6 +242,9 @@ public class DynamicArray<E> {
             increaseCapacity();
         }
         System.arraycopy(elements, index, elements, index + 1, size - index);
+        if (statistics != null) {
+            statistics.recordShift(size - index);
+        }
         elements[index] = element;
         size++;
     }
@@ -148,10 +261,9 @@ public class DynamicArray<E> {
      *                              is null
      */
     public boolean addAll(E[] elements) {
-        for (E element : elements) {
-            add(element);
-        }
-        return elements.length != 0;
+        int n = elements.length;
+        insertAll(size, elements, n);
+        return n != 0;
     }
 
     /**
@@ -166,7 +278,9 @@ public class DynamicArray<E> {
      *                              null
      */
     public boolean addAll(DynamicArray<? extends E> elements) {
-        return addAll(elements.toArray());
+        int n = elements.size;
+        insertAll(size, elements.elements, n);
+        return n != 0;
     }
 
     /**
@@ -191,9 +305,7 @@ public class DynamicArray<E> {
     public boolean addAll(int index, E[] elements) {
         int n = elements.length;
         checkIndexWithinRange(index);
-        for (int i = 0; i < n; i++) {
-            add(index + i, elements[i]);
-        }
+        insertAll(index, elements, n);
         return n != 0;
     }
 
@@ -217,7 +329,12 @@ public class DynamicArray<E> {
      *                                   is null
      */
     public boolean addAll(int index, DynamicArray<? extends E> elements) {
-        return addAll(index, elements.toArray());
+        int n = elements.size;
+        checkIndexWithinRange(index);
+        // the tail shift would overwrite the source if it is this array
+        Object[] source = elements == this ? toArray() : elements.elements;
+        insertAll(index, source, n);
+        return n != 0;
     }
 
     /**
@@ -235,17 +352,97 @@ public class DynamicArray<E> {
         size--;
         if (size > index) {
             System.arraycopy(elements, index + 1, elements, index, size - index);
+            if (statistics != null) {
+                statistics.recordShift(size - index);
+            }
         }
+        elements[size] = null;
         decreaseCapacityIfAppropriate();
         return oldElement;
     }
 
     /**
-     * Removes all elements from the dynamic array.
+     * Removes elements from {@code fromIndex} inclusive to {@code toIndex}
+     * exclusive. Shifts the tail once and adjusts capacity at most once.
+     *
+     * @param fromIndex index of the first element to remove
+     * @param toIndex   index after the last element to remove
+     * @throws IndexOutOfBoundsException if {@code fromIndex < 0 || toIndex
+     *                                   > size() || fromIndex > toIndex}
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (fromIndex == toIndex) {
+            return;
+        }
+        System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);
+        if (statistics != null) {
+            statistics.recordShift(size - toIndex);
+        }
+        int newSize = size - (toIndex - fromIndex);
+        Arrays.fill(elements, newSize, size, null);
+        size = newSize;
+        decreaseCapacityIfAppropriate();
+    }
+
+    /**
+     * Removes all elements which satisfy the specified predicate. The
+     * remaining elements are compacted in a single pass and keep their
+     * order, capacity is adjusted at most once. If the predicate throws
+     * an exception, elements it has not tested yet are kept.
+     *
+     * @param filter predicate which returns {@code true} for elements to
+     *               be removed
+     * @return {@code true} if any elements were removed
+     * @throws NullPointerException if the predicate is null
+     */
+    public boolean removeIf(Predicate<? super E> filter) {
+        return removeWhere(Objects.requireNonNull(filter), true);
+    }
+
+    /**
+     * Removes all elements which do not satisfy the specified predicate.
+     * Works the same way as {@link #removeIf(Predicate)}.
+     *
+     * @param filter predicate which returns {@code true} for elements to
+     *               be kept
+     * @return {@code true} if any elements were removed
+     * @throws NullPointerException if the predicate is null
+     */
+    public boolean retainIf(Predicate<? super E> filter) {
+        return removeWhere(Objects.requireNonNull(filter), false);
+    }
+
+    /**
+     * Removes all elements which are equal to any of the specified values.
+     * Each element is looked up with {@code values.contains()}, so a hash
+     * set of values makes the call take {@code O(n)} time.
+     *
+     * @param values values to be removed
+     * @return {@code true} if any elements were removed
+     * @throws NullPointerException if the collection is null
+     */
+    public boolean removeAll(Collection<?> values) {
+        Objects.requireNonNull(values);
+        return removeWhere(values::contains, true);
+    }
+
+    /**
+     * Removes all elements from the dynamic array. Capacity is reduced
+     * as the growth policy says, a policy which never shrinks keeps the
+     * backing storage for reuse.
      */
     public void clear() {
+        int newCapacity = growthPolicy.shrink(capacity, 0, initialCapacity);
+        if (newCapacity < capacity) {
+            elements = new Object[newCapacity];
+            capacity = newCapacity;
+        } else {
+            Arrays.fill(elements, 0, size, null);
+        }
         size = 0;
-        decreaseCapacityIfAppropriate();
     }
 
     /**
@@ -266,6 +463,59 @@ public class DynamicArray<E> {
         return size == 0;
     }
 
+    /**
+     * Returns the number of elements the dynamic array can hold without
+     * growing.
+     *
+     * @return the capacity of the dynamic array
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Increases capacity, if necessary, so that the dynamic array can hold
+     * at least the specified number of elements without growing again.
+     * The new capacity is chosen by the growth policy.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            adjustCapacity(growthPolicy.grow(capacity, minCapacity));
+        }
+    }
+
+    /**
+     * Reduces capacity to the number of elements in the dynamic array.
+     * Unlike automatic shrinking, this may go below the initial capacity.
+     */
+    public void trimToSize() {
+        if (capacity > size) {
+            adjustCapacity(size);
+        }
+    }
+
+    /**
+     * Returns the policy the dynamic array grows and shrinks by.
+     *
+     * @return the growth policy
+     */
+    public GrowthPolicy growthPolicy() {
+        return growthPolicy;
+    }
+
+    /**
+     * Replaces the policy the dynamic array grows and shrinks by. The
+     * capacity is not changed until the next addition or removal.
+     *
+     * @param growthPolicy new growth policy
+     * @throws NullPointerException if the policy is null
+     */
+    public void setGrowthPolicy(GrowthPolicy growthPolicy) {
+        this.growthPolicy = Objects.requireNonNull(growthPolicy);
+    }
+
     /**
      * Sorts elements according to the order induced by the specified
      * {@code comparator}. If the specified comparator is {@code null}
@@ -279,6 +529,51 @@ public class DynamicArray<E> {
         Arrays.sort((E[]) elements, 0, size, comparator);
     }
 
+    /**
+     * Sorts elements the same way {@link #sort(Comparator)} does, but
+     * with a fork-join merge sort which uses all cores of the common
+     * pool. The sort is stable: equal elements keep their relative
+     * order. Small arrays are sorted sequentially, so the method pays
+     * off for large arrays only.
+     *
+     * @param comparator comparator used to compare elements, if {@code
+     *                   null} then the natural ordering is used
+     */
+    @SuppressWarnings("unchecked")
+    public void parallelSort(Comparator<? super E> comparator) {
+        Arrays.parallelSort((E[]) elements, 0, size, comparator);
+    }
+
+    /**
+     * Starts collecting statistics of reallocations and shifts, or does
+     * nothing if they are already collected.
+     *
+     * @return the statistics of the dynamic array
+     */
+    public DynamicArrayStatistics enableStatistics() {
+        if (statistics == null) {
+            statistics = new DynamicArrayStatistics();
+        }
+        return statistics;
+    }
+
+    /**
+     * Stops collecting statistics. Statistics already returned keep their
+     * values.
+     */
+    public void disableStatistics() {
+        statistics = null;
+    }
+
+    /**
+     * Returns the statistics of the dynamic array.
+     *
+     * @return the statistics, or {@code null} if they are not collected
+     */
+    public DynamicArrayStatistics statistics() {
+        return statistics;
+    }
+
     /**
      * Returns a fixed-length array containing all elements of the
      * dynamic array in proper order (from the first element to the
@@ -294,6 +589,40 @@ public class DynamicArray<E> {
         return (E[]) result;
     }
 
+    /**
+     * Returns a spliterator over elements of the dynamic array in proper
+     * order. The spliterator splits index ranges of the backing array
+     * without copying elements and reports {@code ORDERED}, {@code SIZED}
+     * and {@code SUBSIZED} characteristics. It binds to the elements at
+     * the first traversal, split or size estimation, so the dynamic array
+     * must not be modified after that until the traversal is over.
+     *
+     * @return a spliterator over elements of the dynamic array
+     */
+    public Spliterator<E> spliterator() {
+        return new ArraySpliterator(null, 0, -1);
+    }
+
+    /**
+     * Returns a sequential stream over elements of the dynamic array.
+     *
+     * @return a sequential stream over elements of the dynamic array
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over elements of the dynamic array. The
+     * stream splits the backing array by index ranges, no elements are
+     * copied up front.
+     *
+     * @return a parallel stream over elements of the dynamic array
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     private void checkIndexWithinRange(int index) {
         if (index < 0 || index >= size) {
             throw new IndexOutOfBoundsException();
@@ -306,18 +635,74 @@ public class DynamicArray<E> {
     }
 
     private void increaseCapacity() {
-        adjustCapacity(Math.max(1, capacity * 2));
+        adjustCapacity(growthPolicy.grow(capacity, capacity + 1));
+    }
+
+    /**
+     * Inserts the first {@code n} elements of the source at the specified
+     * index: grows capacity at most once, shifts the tail once and copies
+     * the block once.
+     */
+    private void insertAll(int index, Object[] source, int n) {
+        ensureCapacity(size + n);
+        System.arraycopy(elements, index, elements, index + n, size - index);
+        if (statistics != null && index < size) {
+            statistics.recordShift(size - index);
+        }
+        System.arraycopy(source, 0, elements, index, n);
+        size += n;
+    }
+
+    /**
+     * Moves elements whose test result differs from {@code isRemoving}
+     * to the front in a single pass, then nulls out the vacated slots.
+     */
+    private boolean removeWhere(Predicate<? super E> filter, boolean isRemoving) {
+        int oldSize = size;
+        int read = 0;
+        int write = 0;
+        int shifted = 0;
+        try {
+            for (; read < size; read++) {
+                E element = elements(read);
+                if (filter.test(element) != isRemoving) {
+                    if (write != read) {
+                        elements[write] = element;
+                        shifted++;
+                    }
+                    write++;
+                }
+            }
+        } finally {
+            // keeps the rest if the filter has thrown
+            if (write != read) {
+                System.arraycopy(elements, read, elements, write, oldSize - read);
+                shifted += oldSize - read;
+            }
+            size = write + oldSize - read;
+            Arrays.fill(elements, size, oldSize, null);
+            if (statistics != null) {
+                statistics.recordShift(shifted);
+            }
+        }
+        if (size == oldSize) {
+            return false;
+        }
+        decreaseCapacityIfAppropriate();
+        return true;
     }
 
     private void decreaseCapacityIfAppropriate() {
-        if (size == 0 && capacity > initialCapacity) {
-            adjustCapacity(initialCapacity);
-        } else if (size >= initialCapacity && size * 4 == capacity) {
-            adjustCapacity(capacity / 2);
+        int newCapacity = growthPolicy.shrink(capacity, size, initialCapacity);
+        if (newCapacity < capacity) {
+            adjustCapacity(newCapacity);
         }
     }
 
     private void adjustCapacity(int newCapacity) {
+        if (statistics != null) {
+            statistics.recordResize(size);
+        }
         Object[] newStorage = new Object[newCapacity];
         System.arraycopy(elements, 0, newStorage, 0, size);
         elements = newStorage;
@@ -0,0 +1,165 @@
+package io.github.akuniutka.structure;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters of the work a {@link DynamicArray} does to keep its elements:
+ * how many times the backing array is reallocated and how many elements
+ * are copied into the new one, and how many elements are shifted by
+ * insertions and removals in the middle. Statistics are collected only
+ * after {@link DynamicArray#enableStatistics()} is called, a dynamic
+ * array without statistics only checks a field for {@code null}.
+ * <p>
+ * Counters are updated without synchronization by the thread which uses
+ * the dynamic array, another thread, such as a JMX client, may read them
+ * slightly out of date. {@link #snapshot()} returns an immutable copy
+ * of the counters. The statistics are a standard MBean and can be
+ * registered with the platform MBean server by {@link #register(String)}.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public final class DynamicArrayStatistics implements DynamicArrayStatisticsMBean {
+    private long resizeCount;
+    private long copiedElementCount;
+    private long shiftCount;
+    private long shiftedElementCount;
+    private long maxShiftLength;
+    private ObjectName objectName;
+
+    DynamicArrayStatistics() {
+    }
+
+    /**
+     * Returns the number of times the backing array was reallocated.
+     *
+     * @return the number of reallocations
+     */
+    @Override
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Returns the number of elements copied to new backing arrays.
+     *
+     * @return the number of elements copied on reallocation
+     */
+    @Override
+    public long getCopiedElementCount() {
+        return copiedElementCount;
+    }
+
+    /**
+     * Returns the number of insertions and removals which shifted
+     * elements inside the backing array.
+     *
+     * @return the number of shifts
+     */
+    @Override
+    public long getShiftCount() {
+        return shiftCount;
+    }
+
+    /**
+     * Returns the total number of elements shifted inside the backing
+     * array.
+     *
+     * @return the number of shifted elements
+     */
+    @Override
+    public long getShiftedElementCount() {
+        return shiftedElementCount;
+    }
+
+    /**
+     * Returns the largest number of elements shifted at once.
+     *
+     * @return the longest shift
+     */
+    @Override
+    public long getMaxShiftLength() {
+        return maxShiftLength;
+    }
+
+    /**
+     * Returns the average number of elements shifted at once.
+     *
+     * @return the average shift length, or 0 if nothing was shifted
+     */
+    @Override
+    public double getAverageShiftLength() {
+        return shiftCount == 0 ? 0.0 : (double) shiftedElementCount / shiftCount;
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    @Override
+    public void reset() {
+        resizeCount = 0;
+        copiedElementCount = 0;
+        shiftCount = 0;
+        shiftedElementCount = 0;
+        maxShiftLength = 0;
+    }
+
+    /**
+     * Returns an immutable copy of the current values of the counters.
+     *
+     * @return a snapshot of the statistics
+     */
+    public DynamicArrayStatisticsSnapshot snapshot() {
+        return new DynamicArrayStatisticsSnapshot(resizeCount, copiedElementCount, shiftCount,
+                shiftedElementCount, maxShiftLength);
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server as {@code
+     * io.github.akuniutka.structure:type=DynamicArray,name="<name>"}.
+     *
+     * @param name name to distinguish the dynamic array
+     * @return the name the statistics are registered under
+     * @throws JMException if the statistics cannot be registered, for
+     *                     example the name is already in use
+     */
+    public ObjectName register(String name) throws JMException {
+        objectName = StatisticsMBeans.register(this, "DynamicArray", name);
+        return objectName;
+    }
+
+    /**
+     * Unregisters the statistics from the platform MBean server if they
+     * are registered.
+     *
+     * @throws JMException if the statistics cannot be unregistered
+     */
+    public void unregister() throws JMException {
+        if (objectName != null) {
+            StatisticsMBeans.unregister(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DynamicArrayStatistics{resizeCount=" + resizeCount + ", copiedElementCount=" + copiedElementCount
+                + ", shiftCount=" + shiftCount + ", shiftedElementCount=" + shiftedElementCount
+                + ", maxShiftLength=" + maxShiftLength + "}";
+    }
+
+    void recordResize(int copiedElements) {
+        resizeCount++;
+        copiedElementCount += copiedElements;
+    }
+
+    void recordShift(int shiftedElements) {
+        if (shiftedElements > 0) {
+            shiftCount++;
+            shiftedElementCount += shiftedElements;
+            maxShiftLength = Math.max(maxShiftLength, shiftedElements);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.akuniutka.structure;
+
+/**
+ * Management interface of {@link DynamicArrayStatistics}, which exposes
+ * the statistics as JMX attributes.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public interface DynamicArrayStatisticsMBean {
+    long getResizeCount();
+
+    long getCopiedElementCount();
+
+    long getShiftCount();
+
+    long getShiftedElementCount();
+
+    long getMaxShiftLength();
+
+    double getAverageShiftLength();
+
+    void reset();
+}
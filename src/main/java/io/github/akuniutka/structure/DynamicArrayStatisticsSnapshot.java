@@ -0,0 +1,90 @@
+package io.github.akuniutka.structure;
+
+/**
+ * Values of {@link DynamicArrayStatistics} counters at one moment. A
+ * snapshot never changes, cannot be reset and is not an MBean, so it can
+ * be kept and compared with later snapshots.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public final class DynamicArrayStatisticsSnapshot {
+    private final long resizeCount;
+    private final long copiedElementCount;
+    private final long shiftCount;
+    private final long shiftedElementCount;
+    private final long maxShiftLength;
+
+    DynamicArrayStatisticsSnapshot(long resizeCount, long copiedElementCount, long shiftCount,
+            long shiftedElementCount, long maxShiftLength) {
+        this.resizeCount = resizeCount;
+        this.copiedElementCount = copiedElementCount;
+        this.shiftCount = shiftCount;
+        this.shiftedElementCount = shiftedElementCount;
+        this.maxShiftLength = maxShiftLength;
+    }
+
+    /**
+     * Returns the number of times the backing array was reallocated.
+     *
+     * @return the number of reallocations
+     */
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Returns the number of elements copied to new backing arrays.
+     *
+     * @return the number of elements copied on reallocation
+     */
+    public long getCopiedElementCount() {
+        return copiedElementCount;
+    }
+
+    /**
+     * Returns the number of insertions and removals which shifted
+     * elements inside the backing array.
+     *
+     * @return the number of shifts
+     */
+    public long getShiftCount() {
+        return shiftCount;
+    }
+
+    /**
+     * Returns the total number of elements shifted inside the backing
+     * array.
+     *
+     * @return the number of shifted elements
+     */
+    public long getShiftedElementCount() {
+        return shiftedElementCount;
+    }
+
+    /**
+     * Returns the largest number of elements shifted at once.
+     *
+     * @return the longest shift
+     */
+    public long getMaxShiftLength() {
+        return maxShiftLength;
+    }
+
+    /**
+     * Returns the average number of elements shifted at once.
+     *
+     * @return the average shift length, or 0 if nothing was shifted
+     */
+    public double getAverageShiftLength() {
+        return shiftCount == 0 ? 0.0 : (double) shiftedElementCount / shiftCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DynamicArrayStatisticsSnapshot{resizeCount=" + resizeCount + ", copiedElementCount="
+                + copiedElementCount + ", shiftCount=" + shiftCount + ", shiftedElementCount="
+                + shiftedElementCount + ", maxShiftLength=" + maxShiftLength + "}";
+    }
+}
@@ -0,0 +1,203 @@
+package io.github.akuniutka.structure;
+
+/**
+ * Rules a {@link DynamicArray} follows to grow and shrink its capacity.
+ * A policy is immutable, {@code with...()} methods return a changed copy,
+ * so one policy can be shared by any number of arrays.
+ * <p>
+ * A full array grows to {@code capacity * growthFactor}, but by no more
+ * than {@code maxGrowthStep} elements at a time, and always at least to
+ * the capacity it needs. An array shrinks once its capacity is {@code
+ * shrinkThreshold} or more times its size, and then it shrinks to {@code
+ * size * shrinkHysteresis} instead of the smallest capacity that fits.
+ * Since the hysteresis is less than the threshold, an array which has
+ * just shrunk has room to grow and room to shrink further before its
+ * capacity changes again, so a size oscillating around a boundary does
+ * not reallocate the array back and forth. An array never shrinks below
+ * its initial capacity.
+ * <p>
+ * The default policy doubles capacity without a step limit and shrinks
+ * a quarter-full array to half-full, which is how a dynamic array
+ * behaves when no policy is specified.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public final class GrowthPolicy {
+    // some virtual machines reserve header words in an array
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final GrowthPolicy DEFAULT = new GrowthPolicy(2.0, Integer.MAX_VALUE, 4, 2.0);
+    private final double growthFactor;
+    private final int maxGrowthStep;
+    // 0 if the array never shrinks
+    private final int shrinkThreshold;
+    private final double shrinkHysteresis;
+
+    private GrowthPolicy(double growthFactor, int maxGrowthStep, int shrinkThreshold, double shrinkHysteresis) {
+        this.growthFactor = growthFactor;
+        this.maxGrowthStep = maxGrowthStep;
+        this.shrinkThreshold = shrinkThreshold;
+        this.shrinkHysteresis = shrinkHysteresis;
+    }
+
+    /**
+     * Returns the policy which doubles capacity when the array is full
+     * and halves it when the array is a quarter full.
+     *
+     * @return the default policy
+     */
+    public static GrowthPolicy defaultPolicy() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the policy which doubles capacity when the array is full
+     * and never shrinks the array, so removing elements and clearing the
+     * array keep its backing storage for reuse.
+     *
+     * @return the default policy without shrinking
+     */
+    public static GrowthPolicy neverShrink() {
+        return DEFAULT.withoutShrinking();
+    }
+
+    /**
+     * Returns a copy of this policy with the specified growth factor.
+     *
+     * @param growthFactor number capacity is multiplied by when the array
+     *                     is full
+     * @return a policy with the specified growth factor
+     * @throws IllegalArgumentException if the factor is not greater than 1
+     */
+    public GrowthPolicy withGrowthFactor(double growthFactor) {
+        if (!(growthFactor > 1.0) || Double.isInfinite(growthFactor)) {
+            throw new IllegalArgumentException();
+        }
+        return new GrowthPolicy(growthFactor, maxGrowthStep, shrinkThreshold, shrinkHysteresis);
+    }
+
+    /**
+     * Returns a copy of this policy which grows capacity by at most the
+     * specified number of elements at a time, unless more is needed to
+     * fit elements being added.
+     *
+     * @param maxGrowthStep maximum number of elements capacity grows by
+     * @return a policy with the specified growth step limit
+     * @throws IllegalArgumentException if the step is not positive
+     */
+    public GrowthPolicy withMaxGrowthStep(int maxGrowthStep) {
+        if (maxGrowthStep <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return new GrowthPolicy(growthFactor, maxGrowthStep, shrinkThreshold, shrinkHysteresis);
+    }
+
+    /**
+     * Returns a copy of this policy which shrinks the array once its
+     * capacity is {@code shrinkThreshold} times its size or more, to
+     * {@code shrinkHysteresis} times its size. The greater the
+     * hysteresis, the more elements can be added after shrinking before
+     * the array grows again. The two settings are validated together, as
+     * the hysteresis must stay below the threshold.
+     *
+     * @param shrinkThreshold  ratio of capacity to size to shrink at
+     * @param shrinkHysteresis ratio of capacity to size after shrinking
+     * @return a policy with the specified shrink threshold and hysteresis
+     * @throws IllegalArgumentException if the hysteresis is less than 1 or
+     *                                  not less than the threshold
+     */
+    public GrowthPolicy withShrinking(int shrinkThreshold, double shrinkHysteresis) {
+        if (!(shrinkHysteresis >= 1.0) || shrinkHysteresis >= shrinkThreshold) {
+            throw new IllegalArgumentException();
+        }
+        return new GrowthPolicy(growthFactor, maxGrowthStep, shrinkThreshold, shrinkHysteresis);
+    }
+
+    /**
+     * Returns a copy of this policy which never shrinks the array.
+     *
+     * @return a policy without shrinking
+     */
+    public GrowthPolicy withoutShrinking() {
+        return new GrowthPolicy(growthFactor, maxGrowthStep, 0, shrinkHysteresis);
+    }
+
+    /**
+     * Returns the number capacity is multiplied by when the array is full.
+     *
+     * @return the growth factor
+     */
+    public double growthFactor() {
+        return growthFactor;
+    }
+
+    /**
+     * Returns the maximum number of elements capacity grows by at a time,
+     * or {@code Integer.MAX_VALUE} if growth is not limited.
+     *
+     * @return the growth step limit
+     */
+    public int maxGrowthStep() {
+        return maxGrowthStep;
+    }
+
+    /**
+     * Returns the ratio of capacity to size the array shrinks at, or 0 if
+     * the array never shrinks.
+     *
+     * @return the shrink threshold
+     */
+    public int shrinkThreshold() {
+        return shrinkThreshold;
+    }
+
+    /**
+     * Returns the ratio of capacity to size the array shrinks to. The
+     * value is kept even if the array never shrinks.
+     *
+     * @return the shrink hysteresis
+     */
+    public double shrinkHysteresis() {
+        return shrinkHysteresis;
+    }
+
+    /**
+     * Returns {@code true} if the array shrinks when elements are removed.
+     *
+     * @return {@code true} if the policy shrinks the array
+     */
+    public boolean isShrinking() {
+        return shrinkThreshold != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "GrowthPolicy{growthFactor=" + growthFactor + ", maxGrowthStep=" + maxGrowthStep
+                + ", shrinkThreshold=" + shrinkThreshold + ", shrinkHysteresis=" + shrinkHysteresis + "}";
+    }
+
+    /**
+     * Returns the capacity to grow to from the current one to fit at
+     * least {@code minCapacity} elements.
+     */
+    int grow(int capacity, int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError();
+        }
+        double grown = Math.min(Math.ceil(capacity * growthFactor), (double) capacity + maxGrowthStep);
+        return (int) Math.max(minCapacity, Math.min(Math.max(grown, capacity + 1.0), MAX_CAPACITY));
+    }
+
+    /**
+     * Returns the capacity to shrink to for the specified size, or the
+     * current capacity if the array should not shrink.
+     */
+    int shrink(int capacity, int size, int minCapacity) {
+        if (shrinkThreshold == 0 || (long) size * shrinkThreshold > capacity) {
+            return capacity;
+        }
+        int shrunk = (int) Math.max(minCapacity, Math.ceil(size * shrinkHysteresis));
+        return Math.min(shrunk, capacity);
+    }
+}
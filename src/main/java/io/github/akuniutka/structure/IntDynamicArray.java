@@ -0,0 +1,326 @@
+package io.github.akuniutka.structure;
+
+import java.util.Arrays;
+
+/**
+ * A dynamic array of primitive {@code int} values. It provides the
+ * same operations as {@link DynamicArray} but keeps values in a
+ * {@code int[]}, so no value is boxed and each element takes exactly
+ * 4 bytes of the backing array. The capacity is adjusted the same
+ * way as in {@link DynamicArray} and is kept not less than {@code
+ * initialCapacity} which is 10 by default.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class IntDynamicArray {
+    private static final int DEFAULT_INITIAL_CAPACITY = 10;
+    private final int initialCapacity;
+    private int[] elements;
+    private int capacity;
+    private int size;
+
+    /**
+     * Creates an empty dynamic array with an initial capacity of 10.
+     */
+    public IntDynamicArray() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a dynamic array containing elements from the specified
+     * fixed-length array in the same order as they are in the fixed-length
+     * array.
+     *
+     * @param elements fixed-length array containing elements to be placed
+     *                 into the dynamic array
+     * @throws NullPointerException if the specified fixed-length array is
+     *                              null
+     */
+    public IntDynamicArray(int[] elements) {
+        this(elements.length);
+        addAll(elements);
+    }
+
+    /**
+     * Creates a new dynamic array containing elements from the specified
+     * dynamic array in the same order as they are in the original dynamic
+     * array.
+     *
+     * @param elements dynamic array containing elements to be placed
+     *                 into the newly created dynamic array
+     * @throws NullPointerException if the specified dynamic array is null
+     */
+    public IntDynamicArray(IntDynamicArray elements) {
+        this(elements.size());
+        insertAll(0, elements.elements, elements.size);
+    }
+
+    /**
+     * Creates an empty dynamic array with the specified initial capacity.
+     *
+     * @param initialCapacity initial capacity of the dynamic array being
+     *                        created
+     * @throws IllegalArgumentException if initial capacity is negative
+     */
+    public IntDynamicArray(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.initialCapacity = initialCapacity;
+        elements = new int[initialCapacity];
+        capacity = initialCapacity;
+    }
+
+    /**
+     * Returns the element at the specified position in the dynamic array.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in the dynamic array
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public int get(int index) {
+        checkIndexWithinRange(index);
+        return elements[index];
+    }
+
+    /**
+     * Replaces the element at the specified position in the dynamic array
+     * with the specified element.
+     *
+     * @param index   index of the element to replace
+     * @param element element to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public int set(int index, int element) {
+        checkIndexWithinRange(index);
+        int oldElement = elements[index];
+        elements[index] = element;
+        return oldElement;
+    }
+
+    /**
+     * Appends the specified element to the end of the dynamic array.
+     *
+     * @param element element to be appended to the dynamic array
+     */
+    public void add(int element) {
+        if (size == capacity) {
+            increaseCapacity();
+        }
+        elements[size++] = element;
+    }
+
+    /**
+     * Inserts the specified element at the specified position in the
+     * dynamic array.
+     *
+     * @param index   index at which the specified element is to be
+     *                inserted
+     * @param element element to be inserted
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public void add(int index, int element) {
+        checkIndexWithinRange(index);
+        if (size == capacity) {
+            increaseCapacity();
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+    }
+
+    /**
+     * Appends elements from the specified fixed-length array to the
+     * end of the dynamic array.
+     *
+     * @param elements fixed-length array containing elements to be
+     *                 appended to the dynamic array
+     * @return {@code true} if the dynamic array changed as the result
+     * of the call
+     * @throws NullPointerException if the specified fixed-length array
+     *                              is null
+     */
+    public boolean addAll(int[] elements) {
+        int n = elements.length;
+        insertAll(size, elements, n);
+        return n != 0;
+    }
+
+    /**
+     * Appends elements from the specified dynamic array to the end of
+     * this dynamic array.
+     *
+     * @param elements dynamic array containing elements to be
+     *                 appended to this dynamic array
+     * @return {@code true} if this dynamic array changed as the result
+     * of the call
+     * @throws NullPointerException if the specified dynamic array is
+     *                              null
+     */
+    public boolean addAll(IntDynamicArray elements) {
+        int n = elements.size;
+        insertAll(size, elements.elements, n);
+        return n != 0;
+    }
+
+    /**
+     * Inserts elements of the specified fixed-length array into the
+     * dynamic array at the specified position. Shifts the element
+     * which is currently at the specified position and all subsequent
+     * elements to the right (increases their indices). The new elements
+     * are placed in the dynamic array in the same order as they are in
+     * the fixed-length array.
+     *
+     * @param index    index at which the new elements are to be
+     *                 inserted
+     * @param elements fixed-length array containing elements to be
+     *                 inserted
+     * @return {@code true} if the dynamic array changed as the result
+     * of the call
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     * @throws NullPointerException      if the specified fixed-length
+     *                                   array is null
+     */
+    public boolean addAll(int index, int[] elements) {
+        int n = elements.length;
+        checkIndexWithinRange(index);
+        insertAll(index, elements, n);
+        return n != 0;
+    }
+
+    /**
+     * Inserts elements of the specified dynamic array into this
+     * dynamic array at the specified position. Shifts the element
+     * which is currently at the specified position and all subsequent
+     * elements to the right (increases their indices). The new elements
+     * are placed in the dynamic array in the same order as they are in
+     * the original dynamic array.
+     *
+     * @param index    index at which the new elements are to be
+     *                 inserted
+     * @param elements dynamic array containing elements to be
+     *                 inserted
+     * @return {@code true} if the dynamic array changed as the result
+     * of the call
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     * @throws NullPointerException      if the specified dynamic array
+     *                                   is null
+     */
+    public boolean addAll(int index, IntDynamicArray elements) {
+        int n = elements.size;
+        checkIndexWithinRange(index);
+        // the tail shift would overwrite the source if it is this array
+        int[] source = elements == this ? toArray() : elements.elements;
+        insertAll(index, source, n);
+        return n != 0;
+    }
+
+    /**
+     * Removes the element at the specified position from the dynamic
+     * array.
+     *
+     * @param index index of the element to remove
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public int remove(int index) {
+        checkIndexWithinRange(index);
+        int oldElement = elements[index];
+        size--;
+        if (size > index) {
+            System.arraycopy(elements, index + 1, elements, index, size - index);
+        }
+        decreaseCapacityIfAppropriate();
+        return oldElement;
+    }
+
+    /**
+     * Removes all elements from the dynamic array.
+     */
+    public void clear() {
+        size = 0;
+        decreaseCapacityIfAppropriate();
+    }
+
+    /**
+     * Returns the number of elements in the dynamic array.
+     *
+     * @return the number of elements in the dynamic array.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the dynamic array contains no elements.
+     *
+     * @return {@code true} if the dynamic array contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Sorts elements in ascending numerical order.
+     */
+    public void sort() {
+        Arrays.sort(elements, 0, size);
+    }
+
+    /**
+     * Returns a fixed-length array containing all elements of the
+     * dynamic array in proper order (from the first element to the
+     * last element).
+     *
+     * @return a fixed length array containing all elements of the
+     * dynamic array in proper order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    private void checkIndexWithinRange(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private void increaseCapacity() {
+        adjustCapacity(Math.max(1, capacity * 2));
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            adjustCapacity(Math.max(capacity * 2, minCapacity));
+        }
+    }
+
+    private void insertAll(int index, int[] source, int n) {
+        ensureCapacity(size + n);
+        System.arraycopy(elements, index, elements, index + n, size - index);
+        System.arraycopy(source, 0, elements, index, n);
+        size += n;
+    }
+
+    private void decreaseCapacityIfAppropriate() {
+        if (size == 0 && capacity > initialCapacity) {
+            adjustCapacity(initialCapacity);
+        } else if (size >= initialCapacity && size * 4 == capacity) {
+            adjustCapacity(capacity / 2);
+        }
+    }
+
+    private void adjustCapacity(int newCapacity) {
+        elements = Arrays.copyOf(elements, newCapacity);
+        capacity = newCapacity;
+    }
+}
@@ -0,0 +1,374 @@
+package io.github.akuniutka.structure;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A dynamic array of fixed-size records kept in a memory-mapped file.
+ * Records are converted to and from bytes by a {@link RecordCodec} and
+ * are read and written straight in mapped memory, so the array may hold
+ * far more data than fits into the Java heap and survives restarts: an
+ * existing file is reopened by mapping it again, nothing is deserialized
+ * on startup.
+ * <p>
+ * The file starts with a 16-byte header (a magic number, the record size
+ * and the number of records) followed by records one after another in
+ * little-endian byte order. The file is mapped in chunks of {@code
+ * chunkSize} bytes (64 MiB by default, rounded down to whole records), so
+ * the array grows by mapping one more chunk and never copies records it
+ * already holds. Growth is append-only: records are added to the end and
+ * the array is emptied by {@link #clear()}, there is no insertion or
+ * removal in the middle, which would rewrite the whole tail of the file.
+ * <p>
+ * Changes reach mapped memory immediately and are written to the file by
+ * the operating system at some point later, {@link #force()} writes them
+ * synchronously. The number of records in the header is updated on every
+ * change. {@code force()} writes records before the header, so a header
+ * it writes never counts records which are not on the disk yet, while
+ * the operating system alone may write pages in any order. The array is
+ * not thread-safe.
+ *
+ * @param <E> the type of records
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class MappedDynamicArray<E> implements Closeable {
+    private static final int MAGIC = 0x414E5944;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int RECORD_SIZE_OFFSET = 4;
+    private static final int SIZE_OFFSET = 8;
+    private static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+    private final RecordCodec<E> codec;
+    private final int recordSize;
+    private final int recordsPerChunk;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[1];
+    private int chunkCount;
+    private int size;
+    private boolean isClosed;
+
+    /**
+     * Opens the array kept in the specified file, or creates an empty one
+     * if the file does not exist or is empty. The file is mapped in chunks
+     * of 64 MiB.
+     *
+     * @param file  file to keep records in
+     * @param codec codec used to convert records to and from bytes
+     * @throws IOException              if the file cannot be opened or
+     *                                  mapped, does not hold an array or
+     *                                  holds records of other size
+     * @throws NullPointerException     if the file or the codec is null
+     * @throws IllegalArgumentException if the record size is not positive
+     *                                  or exceeds 64 MiB
+     */
+    public MappedDynamicArray(Path file, RecordCodec<E> codec) throws IOException {
+        this(file, codec, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Opens the array kept in the specified file, or creates an empty one
+     * if the file does not exist or is empty. The file is mapped in chunks
+     * of the specified size rounded down to whole records. The chunk size
+     * affects mapping only, a file can be reopened with any chunk size.
+     *
+     * @param file      file to keep records in
+     * @param codec     codec used to convert records to and from bytes
+     * @param chunkSize number of bytes to map at a time
+     * @throws IOException              if the file cannot be opened or
+     *                                  mapped, does not hold an array or
+     *                                  holds records of other size
+     * @throws NullPointerException     if the file or the codec is null
+     * @throws IllegalArgumentException if the record size is not positive
+     *                                  or exceeds the chunk size
+     */
+    public MappedDynamicArray(Path file, RecordCodec<E> codec, int chunkSize) throws IOException {
+        int recordSize = codec.recordSize();
+        if (recordSize <= 0 || chunkSize < recordSize) {
+            throw new IllegalArgumentException();
+        }
+        this.codec = codec;
+        this.recordSize = recordSize;
+        this.recordsPerChunk = chunkSize / recordSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long fileSize = channel.size();
+            // mapping a shorter file read-write would extend it
+            if (fileSize > 0 && fileSize < HEADER_SIZE) {
+                throw new IOException("Not a dynamic array file");
+            }
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (fileSize == 0) {
+                header.putInt(MAGIC_OFFSET, MAGIC);
+                header.putInt(RECORD_SIZE_OFFSET, recordSize);
+                header.putLong(SIZE_OFFSET, 0L);
+            } else {
+                openExisting(fileSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the record at the specified position.
+     *
+     * @param index index of the record to return
+     * @return the record at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     * @throws IllegalStateException     if the array is closed
+     */
+    public E get(int index) {
+        checkIndexWithinRange(index);
+        return codec.read(chunkOf(index), offsetOf(index));
+    }
+
+    /**
+     * Replaces the record at the specified position with the specified
+     * record.
+     *
+     * @param index   index of the record to replace
+     * @param element record to be stored at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     * @throws IllegalStateException     if the array is closed
+     */
+    public void set(int index, E element) {
+        checkIndexWithinRange(index);
+        codec.write(chunkOf(index), offsetOf(index), element);
+    }
+
+    /**
+     * Points the specified flyweight to the record at the specified
+     * position in mapped memory and returns the flyweight.
+     *
+     * @param index     index of the record
+     * @param flyweight flyweight to point to the record
+     * @param <F>       the type of the flyweight
+     * @return the same flyweight
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     * @throws IllegalStateException     if the array is closed
+     */
+    public <F extends RecordFlyweight> F wrap(int index, F flyweight) {
+        checkIndexWithinRange(index);
+        flyweight.wrap(chunkOf(index), offsetOf(index));
+        return flyweight;
+    }
+
+    /**
+     * Appends the specified record to the end of the array.
+     *
+     * @param element record to be appended to the array
+     * @throws UncheckedIOException  if a new chunk of the file cannot be
+     *                               mapped
+     * @throws IllegalStateException if the array is closed or already
+     *                               holds {@code Integer.MAX_VALUE} records
+     */
+    public void add(E element) {
+        checkOpen();
+        ensureCapacity(size + 1L);
+        codec.write(chunkOf(size), offsetOf(size), element);
+        setSize(size + 1);
+    }
+
+    /**
+     * Appends a record with all bytes set to zero to the end of the
+     * array and returns its index. Together with {@link #wrap(int,
+     * RecordFlyweight)} allows filling records in place.
+     *
+     * @return the index of the new record
+     * @throws UncheckedIOException  if a new chunk of the file cannot be
+     *                               mapped
+     * @throws IllegalStateException if the array is closed or already
+     *                               holds {@code Integer.MAX_VALUE} records
+     */
+    public int addBlank() {
+        checkOpen();
+        ensureCapacity(size + 1L);
+        ByteBuffer chunk = chunkOf(size);
+        int offset = offsetOf(size);
+        for (int i = 0; i < recordSize; i++) {
+            chunk.put(offset + i, (byte) 0);
+        }
+        setSize(size + 1);
+        return size - 1;
+    }
+
+    /**
+     * Appends records from the specified fixed-length array to the end
+     * of the array.
+     *
+     * @param elements fixed-length array containing records to be
+     *                 appended to the array
+     * @return {@code true} if the array changed as the result of the call
+     * @throws NullPointerException  if the specified fixed-length array
+     *                               is null
+     * @throws UncheckedIOException  if new chunks of the file cannot be
+     *                               mapped
+     * @throws IllegalStateException if the array is closed or the records
+     *                               do not fit into {@code
+     *                               Integer.MAX_VALUE} records
+     */
+    public boolean addAll(E[] elements) {
+        checkOpen();
+        ensureCapacity((long) size + elements.length);
+        int newSize = size;
+        for (E element : elements) {
+            codec.write(chunkOf(newSize), offsetOf(newSize), element);
+            newSize++;
+        }
+        setSize(newSize);
+        return elements.length != 0;
+    }
+
+    /**
+     * Removes all records from the array. The file keeps its length and
+     * mapped chunks are reused by records added later.
+     *
+     * @throws IllegalStateException if the array is closed
+     */
+    public void clear() {
+        checkOpen();
+        setSize(0);
+    }
+
+    /**
+     * Returns the number of records in the array.
+     *
+     * @return the number of records in the array.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the array contains no records.
+     *
+     * @return {@code true} if the array contains no records
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of bytes each record takes.
+     *
+     * @return the size of a record in bytes
+     */
+    public int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Writes all changes made to mapped memory to the file and returns
+     * once they are on the storage device. Records are written before the
+     * header with the number of records.
+     *
+     * @throws IllegalStateException if the array is closed
+     */
+    public void force() {
+        checkOpen();
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i].force();
+        }
+        header.force();
+    }
+
+    /**
+     * Closes the file. Changes not written by {@link #force()} are still
+     * written by the operating system eventually. Mapped memory is
+     * released once the array is garbage collected. Closing a closed array
+     * has no effect.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!isClosed) {
+            isClosed = true;
+            Arrays.fill(chunks, null);
+            channel.close();
+        }
+    }
+
+    private void openExisting(long fileSize) throws IOException {
+        if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a dynamic array file");
+        } else if (header.getInt(RECORD_SIZE_OFFSET) != recordSize) {
+            throw new IOException("Record size in file is " + header.getInt(RECORD_SIZE_OFFSET));
+        }
+        long storedSize = header.getLong(SIZE_OFFSET);
+        if (storedSize < 0 || storedSize > Integer.MAX_VALUE
+                || fileSize < HEADER_SIZE + storedSize * recordSize) {
+            throw new IOException("Dynamic array file is truncated");
+        }
+        ensureCapacity(storedSize);
+        size = (int) storedSize;
+    }
+
+    private void checkOpen() {
+        if (isClosed) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private void checkIndexWithinRange(int index) {
+        checkOpen();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private ByteBuffer chunkOf(int index) {
+        return chunks[index / recordsPerChunk];
+    }
+
+    private int offsetOf(int index) {
+        return index % recordsPerChunk * recordSize;
+    }
+
+    private void setSize(int newSize) {
+        size = newSize;
+        header.putLong(SIZE_OFFSET, newSize);
+    }
+
+    /**
+     * Maps chunks of the file until they hold at least the specified
+     * number of records. Mapping a chunk beyond the end of the file
+     * extends the file.
+     */
+    private void ensureCapacity(long minCapacity) {
+        if (minCapacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException();
+        }
+        while ((long) chunkCount * recordsPerChunk < minCapacity) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            long chunkSize = (long) recordsPerChunk * recordSize;
+            try {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + chunkCount * chunkSize, chunkSize);
+                chunk.order(ByteOrder.LITTLE_ENDIAN);
+                chunks[chunkCount++] = chunk;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
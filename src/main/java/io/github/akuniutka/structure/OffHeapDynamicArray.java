@@ -0,0 +1,369 @@
+package io.github.akuniutka.structure;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A dynamic array of fixed-size records kept outside the Java heap in
+ * direct byte buffers. Records are converted to and from bytes by a
+ * {@link RecordCodec}, so the garbage collector sees one buffer object
+ * per segment instead of an object per element. Records can also be read
+ * and modified in place through a {@link RecordFlyweight}, which
+ * allocates nothing on access.
+ * <p>
+ * Records are kept in segments of 1 MiB (or of one record if a record is
+ * larger), each a separate direct buffer, and a spine array holds the
+ * segments, the same layout {@link BigDynamicArray} uses on the heap. The
+ * array grows by allocating one more segment, so records are never
+ * copied and the old storage is never held alongside a full copy of it.
+ * When records are removed from the end, segments after the last used
+ * one are dropped, except for one spare and those needed for {@code
+ * initialCapacity} which is 10 by default. Native memory of a dropped
+ * segment is freed when the garbage collector collects the segment. The
+ * array may hold up to {@code Integer.MAX_VALUE} records regardless of
+ * the record size.
+ * <p>
+ * Insertion and removal in the middle shift the following records
+ * through all following segments.
+ *
+ * @param <E> the type of records
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class OffHeapDynamicArray<E> {
+    private static final int DEFAULT_INITIAL_CAPACITY = 10;
+    private static final int DEFAULT_SEGMENT_BYTES = 1 << 20;
+    private final RecordCodec<E> codec;
+    private final int recordSize;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final int initialSegmentCount;
+    private ByteBuffer[] segments = new ByteBuffer[1];
+    private int segmentCount;
+    private int size;
+
+    /**
+     * Creates an empty array with an initial capacity of 10.
+     *
+     * @param codec codec used to convert records to and from bytes
+     * @throws NullPointerException     if the codec is null
+     * @throws IllegalArgumentException if the record size is not
+     *                                  positive
+     */
+    public OffHeapDynamicArray(RecordCodec<E> codec) {
+        this(codec, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty array with the specified initial capacity.
+     *
+     * @param codec           codec used to convert records to and from
+     *                        bytes
+     * @param initialCapacity initial capacity of the array being created
+     * @throws NullPointerException     if the codec is null
+     * @throws IllegalArgumentException if initial capacity is negative or
+     *                                  if the record size is not positive
+     */
+    public OffHeapDynamicArray(RecordCodec<E> codec, int initialCapacity) {
+        this(codec, initialCapacity, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Creates an empty array with segments of at most the specified
+     * number of bytes, used by tests to cross segment boundaries with few
+     * records.
+     */
+    OffHeapDynamicArray(RecordCodec<E> codec, int initialCapacity, int segmentBytes) {
+        int recordSize = codec.recordSize();
+        if (recordSize <= 0 || initialCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.codec = codec;
+        this.recordSize = recordSize;
+        int recordsPerSegment = Integer.highestOneBit(Math.max(1, segmentBytes / recordSize));
+        this.segmentShift = Integer.numberOfTrailingZeros(recordsPerSegment);
+        this.segmentMask = recordsPerSegment - 1;
+        this.initialSegmentCount = (int) (((long) initialCapacity + segmentMask) >>> segmentShift);
+        ensureCapacity(initialCapacity);
+    }
+
+    /**
+     * Returns the record at the specified position. The record is
+     * decoded into a new object, use {@link #wrap(int, RecordFlyweight)}
+     * to read it without allocation.
+     *
+     * @param index index of the record to return
+     * @return the record at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E get(int index) {
+        checkIndexWithinRange(index);
+        return codec.read(segmentOf(index), offsetOf(index));
+    }
+
+    /**
+     * Replaces the record at the specified position with the specified
+     * record. Unlike {@link DynamicArray#set(int, Object)} this method
+     * does not return the old record, as decoding it would allocate.
+     *
+     * @param index   index of the record to replace
+     * @param element record to be stored at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public void set(int index, E element) {
+        checkIndexWithinRange(index);
+        codec.write(segmentOf(index), offsetOf(index), element);
+    }
+
+    /**
+     * Points the specified flyweight to the record at the specified
+     * position and returns the flyweight.
+     *
+     * @param index     index of the record
+     * @param flyweight flyweight to point to the record
+     * @param <F>       the type of the flyweight
+     * @return the same flyweight
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public <F extends RecordFlyweight> F wrap(int index, F flyweight) {
+        checkIndexWithinRange(index);
+        flyweight.wrap(segmentOf(index), offsetOf(index));
+        return flyweight;
+    }
+
+    /**
+     * Appends the specified record to the end of the array.
+     *
+     * @param element record to be appended to the array
+     * @throws IllegalStateException if the array already holds the
+     *                               maximum number of records
+     */
+    public void add(E element) {
+        ensureCapacity(size + 1L);
+        codec.write(segmentOf(size), offsetOf(size), element);
+        size++;
+    }
+
+    /**
+     * Appends a record with all bytes set to zero to the end of the
+     * array and returns its index. Together with {@link #wrap(int,
+     * RecordFlyweight)} allows filling records in place.
+     *
+     * @return the index of the new record
+     * @throws IllegalStateException if the array already holds the
+     *                               maximum number of records
+     */
+    public int addBlank() {
+        ensureCapacity(size + 1L);
+        ByteBuffer segment = segmentOf(size);
+        int offset = offsetOf(size);
+        for (int i = 0; i < recordSize; i++) {
+            segment.put(offset + i, (byte) 0);
+        }
+        return size++;
+    }
+
+    /**
+     * Inserts the specified record at the specified position in the
+     * array.
+     *
+     * @param index   index at which the specified record is to be
+     *                inserted
+     * @param element record to be inserted
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     * @throws IllegalStateException     if the array already holds the
+     *                                   maximum number of records
+     */
+    public void add(int index, E element) {
+        checkIndexWithinRange(index);
+        ensureCapacity(size + 1L);
+        int first = index >>> segmentShift;
+        int last = size >>> segmentShift;
+        // move the last record of each previous segment to the start of the next one
+        for (int s = last; s > first; s--) {
+            int count = s == last ? size & segmentMask : segmentMask;
+            moveBytes(segments[s], 0, recordSize, count * recordSize);
+            copyForward(segments[s - 1], segmentMask * recordSize, segments[s], 0, recordSize);
+        }
+        int offset = index & segmentMask;
+        int end = first == last ? size & segmentMask : segmentMask;
+        moveBytes(segments[first], offset * recordSize, (offset + 1) * recordSize, (end - offset) * recordSize);
+        codec.write(segments[first], offset * recordSize, element);
+        size++;
+    }
+
+    /**
+     * Appends records from the specified fixed-length array to the end
+     * of the array.
+     *
+     * @param elements fixed-length array containing records to be
+     *                 appended to the array
+     * @return {@code true} if the array changed as the result of the call
+     * @throws NullPointerException  if the specified fixed-length array
+     *                               is null
+     * @throws IllegalStateException if the records do not fit into the
+     *                               maximum capacity
+     */
+    public boolean addAll(E[] elements) {
+        int n = elements.length;
+        ensureCapacity((long) size + n);
+        for (E element : elements) {
+            codec.write(segmentOf(size), offsetOf(size), element);
+            size++;
+        }
+        return n != 0;
+    }
+
+    /**
+     * Removes the record at the specified position from the array.
+     * Unlike {@link DynamicArray#remove(int)} this method does not
+     * return the removed record, as decoding it would allocate.
+     *
+     * @param index index of the record to remove
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public void remove(int index) {
+        checkIndexWithinRange(index);
+        int first = index >>> segmentShift;
+        int last = (size - 1) >>> segmentShift;
+        int offset = index & segmentMask;
+        // move the first record of each next segment to the end of the previous one
+        for (int s = first; s <= last; s++) {
+            int end = s == last ? (size - 1) & segmentMask : segmentMask;
+            moveBytes(segments[s], (offset + 1) * recordSize, offset * recordSize, (end - offset) * recordSize);
+            if (s < last) {
+                copyForward(segments[s + 1], 0, segments[s], segmentMask * recordSize, recordSize);
+            }
+            offset = 0;
+        }
+        size--;
+        releaseTrailingSegments();
+    }
+
+    /**
+     * Removes all records from the array.
+     */
+    public void clear() {
+        size = 0;
+        releaseTrailingSegments();
+    }
+
+    /**
+     * Returns the number of records in the array.
+     *
+     * @return the number of records in the array.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the array contains no records.
+     *
+     * @return {@code true} if the array contains no records
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of bytes each record takes.
+     *
+     * @return the size of a record in bytes
+     */
+    public int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Returns the number of records the allocated segments can hold.
+     *
+     * @return the capacity of the array
+     */
+    public long capacity() {
+        return (long) segmentCount << segmentShift;
+    }
+
+    private void checkIndexWithinRange(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private ByteBuffer segmentOf(int index) {
+        return segments[index >>> segmentShift];
+    }
+
+    private int offsetOf(int index) {
+        return (index & segmentMask) * recordSize;
+    }
+
+    /**
+     * Allocates segments until they hold at least the specified number of
+     * records.
+     */
+    private void ensureCapacity(long minCapacity) {
+        if (minCapacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException();
+        }
+        while (capacity() < minCapacity) {
+            if (segmentCount == segments.length) {
+                segments = Arrays.copyOf(segments, segmentCount * 2);
+            }
+            segments[segmentCount++] = ByteBuffer.allocateDirect((segmentMask + 1) * recordSize)
+                    .order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Drops segments after the last used one but one, keeping those
+     * needed for the initial capacity.
+     */
+    private void releaseTrailingSegments() {
+        int usedSegments = (int) (((long) size + segmentMask) >>> segmentShift);
+        int keptSegments = Math.max(initialSegmentCount, usedSegments + 1);
+        while (segmentCount > keptSegments) {
+            segments[--segmentCount] = null;
+        }
+    }
+
+    /**
+     * Moves a block of bytes within a segment, handling overlapping
+     * blocks the way {@code System.arraycopy} does.
+     */
+    private static void moveBytes(ByteBuffer segment, int from, int to, int length) {
+        if (to < from) {
+            copyForward(segment, from, segment, to, length);
+        } else if (to > from) {
+            int i = length;
+            for (; i >= Long.BYTES; i -= Long.BYTES) {
+                segment.putLong(to + i - Long.BYTES, segment.getLong(from + i - Long.BYTES));
+            }
+            for (; i > 0; i--) {
+                segment.put(to + i - 1, segment.get(from + i - 1));
+            }
+        }
+    }
+
+    /**
+     * Copies a block of bytes from the lowest address up, eight bytes at
+     * a time where possible. The segments may be the same one if the
+     * target is before the source.
+     */
+    private static void copyForward(ByteBuffer source, int from, ByteBuffer target, int to, int length) {
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            target.putLong(to + i, source.getLong(from + i));
+        }
+        for (; i < length; i++) {
+            target.put(to + i, source.get(from + i));
+        }
+    }
+}
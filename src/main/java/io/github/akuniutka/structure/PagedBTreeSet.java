@@ -0,0 +1,876 @@
+package io.github.akuniutka.structure;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A B-tree used as an ordered set which is kept in a file rather than in
+ * memory. Every node of the tree takes one fixed-size page of the file,
+ * keys are stored in pages in the binary form produced by a {@link
+ * RecordCodec}, so all keys have the same size. Pages are read through
+ * an LRU buffer pool of a configurable memory budget, which keeps hot
+ * pages (the root and upper levels first of all) in memory and writes
+ * changed pages back when they are evicted.
+ * <p>
+ * The tree works the same way as {@link BTreeSet}: nodes are split on
+ * the way down during insertion and refilled on the way down during
+ * removal. The minimum degree {@code t} is the largest one whose node
+ * fits into a page, so a lookup reads {@code O(log_t n)} pages and a scan
+ * of {@code k} elements started with {@link #iterator(Object)} reads
+ * {@code O(log_t n + k / t)} pages. Splitting, borrowing and merging
+ * move encoded keys between pages as bytes, only binary search decodes
+ * them. Pages freed by merges are reused.
+ * <p>
+ * Changes are kept in the buffer pool until pages are evicted, {@link
+ * #flush()} writes all of them and the file header to the disk. There is
+ * no write-ahead log: a file is consistent after {@code flush()} or
+ * {@link #close()} but not after a crash in between. Elements are
+ * ordered by the comparator provided at creation time or by their
+ * natural ordering if no comparator was provided, the same comparator
+ * must be used every time the file is opened. {@code null} elements are
+ * not allowed. The set is not thread-safe.
+ *
+ * @param <E> the type of elements
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class PagedBTreeSet<E> implements Iterable<E>, Closeable {
+    private static final int DEFAULT_PAGE_SIZE = 4096;
+    private static final long DEFAULT_MEMORY_BUDGET = 8L << 20;
+    private static final int MIN_POOL_PAGES = 16;
+    // page 0 holds the file header, so 0 also means "no page"
+    private static final int NO_PAGE = 0;
+    private static final int MAGIC = 0x45455254;
+    private static final int HEADER_SIZE = 32;
+    // node page layout: leaf flag, number of keys, keys, child page ids
+    private static final int LEAF_FLAG_OFFSET = 0;
+    private static final int COUNT_OFFSET = 4;
+    private static final int KEYS_OFFSET = 8;
+
+    private final RecordCodec<E> codec;
+    private final Comparator<? super E> comparator;
+    private final int pageSize;
+    private final int keySize;
+    private final int minimumDegree;
+    private final int childrenOffset;
+    private final FileChannel channel;
+    private final BufferPool pool;
+    private int rootId;
+    private int freeListHead;
+    private int pageCount;
+    private int size;
+    private boolean isClosed;
+
+    private class TreeIterator implements Iterator<E> {
+        // the same as in BTreeSet, but nodes are kept as page ids
+        private int[] path = new int[8];
+        private int[] positions = new int[8];
+        private int depth;
+        private E lastReturned;
+
+        TreeIterator(E lowerBound) {
+            if (lowerBound == null) {
+                descendFrom(rootId);
+                skipExhaustedNodes();
+            } else {
+                seek(lowerBound, true);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public E next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            checkOpen();
+            BufferPool.Page page = pool.pin(path[depth - 1]);
+            int position = positions[depth - 1]++;
+            lastReturned = key(page, position);
+            int childId = isLeaf(page) ? NO_PAGE : child(page, position + 1);
+            pool.unpin(page);
+            descendFrom(childId);
+            skipExhaustedNodes();
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            PagedBTreeSet.this.remove(lastReturned);
+            seek(lastReturned, false);
+            lastReturned = null;
+        }
+
+        private void descendFrom(int id) {
+            while (id != NO_PAGE) {
+                push(id, 0);
+                BufferPool.Page page = pool.pin(id);
+                id = isLeaf(page) ? NO_PAGE : child(page, 0);
+                pool.unpin(page);
+            }
+        }
+
+        private void seek(E value, boolean isInclusive) {
+            depth = 0;
+            int id = rootId;
+            while (id != NO_PAGE) {
+                BufferPool.Page page = pool.pin(id);
+                int index = indexOf(page, value);
+                int position = index >= 0 ? (isInclusive ? index : index + 1) : -index - 1;
+                push(id, position);
+                id = isLeaf(page) ? NO_PAGE : child(page, position);
+                pool.unpin(page);
+            }
+            skipExhaustedNodes();
+        }
+
+        private void push(int id, int position) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                positions = Arrays.copyOf(positions, depth * 2);
+            }
+            path[depth] = id;
+            positions[depth] = position;
+            depth++;
+        }
+
+        private void skipExhaustedNodes() {
+            while (depth > 0) {
+                BufferPool.Page page = pool.pin(path[depth - 1]);
+                int count = count(page);
+                pool.unpin(page);
+                if (positions[depth - 1] < count) {
+                    break;
+                }
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Opens the set kept in the specified file, or creates an empty one if
+     * the file does not exist or is empty. Elements are ordered by their
+     * natural ordering, pages are 4 KiB and the buffer pool takes up to
+     * 8 MiB.
+     *
+     * @param file  file to keep the set in
+     * @param codec codec used to convert elements to and from bytes
+     * @throws IOException              if the file cannot be opened, does
+     *                                  not hold a set or holds a set with
+     *                                  other page or key size
+     * @throws IllegalArgumentException if less than three keys fit into
+     *                                  a page
+     */
+    public PagedBTreeSet(Path file, RecordCodec<E> codec) throws IOException {
+        this(file, codec, null);
+    }
+
+    /**
+     * Opens the set kept in the specified file, or creates an empty one if
+     * the file does not exist or is empty. Pages are 4 KiB and the buffer
+     * pool takes up to 8 MiB.
+     *
+     * @param file       file to keep the set in
+     * @param codec      codec used to convert elements to and from bytes
+     * @param comparator comparator used to order elements, if {@code null}
+     *                   then the natural ordering of elements is used
+     * @throws IOException              if the file cannot be opened, does
+     *                                  not hold a set or holds a set with
+     *                                  other page or key size
+     * @throws IllegalArgumentException if less than three keys fit into
+     *                                  a page
+     */
+    public PagedBTreeSet(Path file, RecordCodec<E> codec, Comparator<? super E> comparator) throws IOException {
+        this(file, codec, comparator, DEFAULT_PAGE_SIZE, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Opens the set kept in the specified file, or creates an empty one if
+     * the file does not exist or is empty.
+     *
+     * @param file         file to keep the set in
+     * @param codec        codec used to convert elements to and from bytes
+     * @param comparator   comparator used to order elements, if {@code
+     *                     null} then the natural ordering of elements is
+     *                     used
+     * @param pageSize     size of a page in bytes, must be the same every
+     *                     time the file is opened
+     * @param memoryBudget number of bytes the buffer pool may take
+     * @throws IOException              if the file cannot be opened, does
+     *                                  not hold a set or holds a set with
+     *                                  other page or key size
+     * @throws NullPointerException     if the file or the codec is null
+     * @throws IllegalArgumentException if the key size is not positive,
+     *                                  if less than three keys fit into a
+     *                                  page or if the memory budget is
+     *                                  less than 16 pages
+     */
+    public PagedBTreeSet(Path file, RecordCodec<E> codec, Comparator<? super E> comparator, int pageSize,
+                         long memoryBudget) throws IOException {
+        int keySize = codec.recordSize();
+        if (keySize <= 0 || pageSize < HEADER_SIZE || memoryBudget / pageSize < MIN_POOL_PAGES) {
+            throw new IllegalArgumentException();
+        }
+        // a node of minimum degree t takes 2t - 1 keys and 2t child ids
+        int minimumDegree = (pageSize - KEYS_OFFSET + keySize) / (2 * keySize + 2 * Integer.BYTES);
+        if (minimumDegree < 2) {
+            throw new IllegalArgumentException();
+        }
+        this.codec = codec;
+        this.comparator = comparator;
+        this.pageSize = pageSize;
+        this.keySize = keySize;
+        this.minimumDegree = minimumDegree;
+        this.childrenOffset = KEYS_OFFSET + (2 * minimumDegree - 1) * keySize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                pageCount = 1;
+                writeHeader();
+            } else {
+                readHeader();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.pool = new BufferPool(channel, pageSize, (int) Math.min(Integer.MAX_VALUE, memoryBudget / pageSize));
+    }
+
+    /**
+     * Returns {@code true} if the set contains no elements.
+     *
+     * @return {@code true} if the set contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the set contains the specified element.
+     * Reads at most one page per level of the tree.
+     *
+     * @param value element whose presence is to be tested
+     * @return {@code true} if the set contains the specified element
+     * @throws IllegalStateException if the set is closed
+     */
+    public boolean contains(E value) {
+        checkOpen();
+        if (value == null) {
+            return false;
+        }
+        int id = rootId;
+        while (id != NO_PAGE) {
+            BufferPool.Page page = pool.pin(id);
+            int index = indexOf(page, value);
+            int next = index >= 0 || isLeaf(page) ? NO_PAGE : child(page, -index - 1);
+            pool.unpin(page);
+            if (index >= 0) {
+                return true;
+            }
+            id = next;
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the set contains all the specified elements.
+     *
+     * @param values elements whose presence is to be tested
+     * @return {@code true} if the set contains all the specified elements
+     * @throws IllegalStateException if the set is closed
+     */
+    public boolean containsAll(Collection<E> values) {
+        for (E value : values) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the lowest element of the set.
+     *
+     * @return the lowest element or {@code null} if the set is empty
+     * @throws IllegalStateException if the set is closed
+     */
+    public E findMin() {
+        checkOpen();
+        return rootId == NO_PAGE ? null : findMin(rootId);
+    }
+
+    /**
+     * Returns the highest element of the set.
+     *
+     * @return the highest element or {@code null} if the set is empty
+     * @throws IllegalStateException if the set is closed
+     */
+    public E findMax() {
+        checkOpen();
+        return rootId == NO_PAGE ? null : findMax(rootId);
+    }
+
+    /**
+     * Returns an iterator over elements of the set in ascending order.
+     *
+     * @return an iterator over elements of the set
+     * @throws IllegalStateException if the set is closed
+     */
+    @Override
+    public Iterator<E> iterator() {
+        checkOpen();
+        return new TreeIterator(null);
+    }
+
+    /**
+     * Returns an iterator over elements of the set which are greater
+     * than or equal to the specified element, in ascending order. The
+     * first element is found with one page read per level of the tree,
+     * after that each page read returns up to {@code 2t - 1} elements.
+     *
+     * @param from the lowest element to return, if {@code null} then the
+     *             iterator starts from the lowest element of the set
+     * @return an iterator over elements starting from the specified one
+     * @throws IllegalStateException if the set is closed
+     */
+    public Iterator<E> iterator(E from) {
+        checkOpen();
+        return new TreeIterator(from);
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     *
+     * @param value element to be added
+     * @return {@code true} if the set changed as the result of the call
+     * @throws IllegalStateException if the set is closed
+     */
+    public boolean add(E value) {
+        checkOpen();
+        if (value == null) {
+            return false;
+        }
+        int maxKeys = 2 * minimumDegree - 1;
+        BufferPool.Page node;
+        if (rootId == NO_PAGE) {
+            node = allocatePage(true);
+            rootId = node.id;
+        } else {
+            node = pool.pin(rootId);
+            if (count(node) == maxKeys) {
+                BufferPool.Page newRoot = allocatePage(false);
+                setChild(newRoot, 0, rootId);
+                splitChild(newRoot, 0, node);
+                pool.unpin(node);
+                node = newRoot;
+                rootId = newRoot.id;
+            }
+        }
+        while (true) {
+            int index = indexOf(node, value);
+            if (index >= 0) {
+                pool.unpin(node);
+                return false;
+            }
+            int position = -index - 1;
+            if (isLeaf(node)) {
+                insertKey(node, position, value);
+                pool.unpin(node);
+                size++;
+                return true;
+            }
+            BufferPool.Page child = pool.pin(child(node, position));
+            if (count(child) == maxKeys) {
+                splitChild(node, position, child);
+                int cmp = compare(value, key(node, position));
+                if (cmp == 0) {
+                    pool.unpin(child);
+                    pool.unpin(node);
+                    return false;
+                } else if (cmp > 0) {
+                    pool.unpin(child);
+                    child = pool.pin(child(node, position + 1));
+                }
+            }
+            pool.unpin(node);
+            node = child;
+        }
+    }
+
+    /**
+     * Adds all the specified elements to the set.
+     *
+     * @param values elements to be added
+     * @return {@code true} if the set changed as the result of the call
+     * @throws IllegalStateException if the set is closed
+     */
+    public boolean addAll(Collection<E> values) {
+        boolean hasTreeChanged = false;
+        for (E value : values) {
+            if (add(value)) {
+                hasTreeChanged = true;
+            }
+        }
+        return hasTreeChanged;
+    }
+
+    /**
+     * Removes the specified element from the set if it is present.
+     *
+     * @param value element to be removed
+     * @return {@code true} if the set changed as the result of the call
+     * @throws IllegalStateException if the set is closed
+     */
+    public boolean remove(E value) {
+        checkOpen();
+        if (value == null || rootId == NO_PAGE) {
+            return false;
+        }
+        boolean isRemoved = remove(pool.pin(rootId), value);
+        BufferPool.Page root = pool.pin(rootId);
+        if (count(root) == 0) {
+            rootId = isLeaf(root) ? NO_PAGE : child(root, 0);
+            freePage(root);
+        } else {
+            pool.unpin(root);
+        }
+        if (isRemoved) {
+            size--;
+        }
+        return isRemoved;
+    }
+
+    /**
+     * Removes all the specified elements from the set.
+     *
+     * @param values elements to be removed
+     * @return {@code true} if the set changed as the result of the call
+     * @throws IllegalStateException if the set is closed
+     */
+    public boolean removeAll(Collection<E> values) {
+        boolean hasTreeChanged = false;
+        for (E value : values) {
+            if (remove(value)) {
+                hasTreeChanged = true;
+            }
+        }
+        return hasTreeChanged;
+    }
+
+    /**
+     * Removes all elements from the set and truncates the file.
+     *
+     * @throws IOException           if the file cannot be truncated
+     * @throws IllegalStateException if the set is closed
+     */
+    public void clear() throws IOException {
+        checkOpen();
+        pool.discard();
+        rootId = NO_PAGE;
+        freeListHead = NO_PAGE;
+        pageCount = 1;
+        size = 0;
+        channel.truncate(pageSize);
+        writeHeader();
+    }
+
+    /**
+     * Writes all changed pages and the file header to the file and
+     * returns once they are on the storage device.
+     *
+     * @throws IOException           if the file cannot be written
+     * @throws IllegalStateException if the set is closed
+     */
+    public void flush() throws IOException {
+        checkOpen();
+        pool.flush();
+        writeHeader();
+        channel.force(true);
+    }
+
+    /**
+     * Flushes the set and closes the file. Closing a closed set has no
+     * effect.
+     *
+     * @throws IOException if the file cannot be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!isClosed) {
+            try {
+                flush();
+            } finally {
+                isClosed = true;
+                pool.discard();
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of pages read from the file so far.
+     */
+    long pageReadCount() {
+        return pool.readCount();
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private int compare(E o1, E o2) {
+        if (comparator != null) {
+            return comparator.compare(o1, o2);
+        } else {
+            return ((Comparable<? super E>) o1).compareTo(o2);
+        }
+    }
+
+    private void checkOpen() {
+        if (isClosed) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // read until the header is full or the file ends
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a paged B-tree file");
+        } else if (header.getInt(4) != pageSize || header.getInt(8) != keySize) {
+            throw new IOException("Page size " + header.getInt(4) + " and key size " + header.getInt(8)
+                    + " in file do not match");
+        }
+        rootId = header.getInt(12);
+        freeListHead = header.getInt(16);
+        pageCount = header.getInt(20);
+        size = (int) header.getLong(24);
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, pageSize);
+        header.putInt(8, keySize);
+        header.putInt(12, rootId);
+        header.putInt(16, freeListHead);
+        header.putInt(20, pageCount);
+        header.putLong(24, size);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Returns a zeroed page for a new node pinned, reusing a freed page if
+     * there is one.
+     */
+    private BufferPool.Page allocatePage(boolean isLeaf) {
+        BufferPool.Page page;
+        if (freeListHead != NO_PAGE) {
+            page = pool.pin(freeListHead);
+            freeListHead = page.data.getInt(0);
+            pool.unpin(page);
+            page = pool.pinNew(page.id);
+        } else {
+            page = pool.pinNew(pageCount++);
+        }
+        page.data.put(LEAF_FLAG_OFFSET, (byte) (isLeaf ? 1 : 0));
+        return page;
+    }
+
+    /**
+     * Puts the pinned page to the list of free pages and unpins it.
+     */
+    private void freePage(BufferPool.Page page) {
+        Arrays.fill(page.data.array(), (byte) 0);
+        page.data.putInt(0, freeListHead);
+        page.isDirty = true;
+        freeListHead = page.id;
+        pool.unpin(page);
+    }
+
+    private boolean isLeaf(BufferPool.Page page) {
+        return page.data.get(LEAF_FLAG_OFFSET) != 0;
+    }
+
+    private int count(BufferPool.Page page) {
+        return page.data.getInt(COUNT_OFFSET);
+    }
+
+    private void setCount(BufferPool.Page page, int count) {
+        page.data.putInt(COUNT_OFFSET, count);
+        page.isDirty = true;
+    }
+
+    private E key(BufferPool.Page page, int index) {
+        return codec.read(page.data, KEYS_OFFSET + index * keySize);
+    }
+
+    private void setKey(BufferPool.Page page, int index, E value) {
+        codec.write(page.data, KEYS_OFFSET + index * keySize, value);
+        page.isDirty = true;
+    }
+
+    private int child(BufferPool.Page page, int index) {
+        return page.data.getInt(childrenOffset + index * Integer.BYTES);
+    }
+
+    private void setChild(BufferPool.Page page, int index, int id) {
+        page.data.putInt(childrenOffset + index * Integer.BYTES, id);
+        page.isDirty = true;
+    }
+
+    /**
+     * Copies encoded keys between pages or within a page the way {@code
+     * System.arraycopy} does.
+     */
+    private void copyKeys(BufferPool.Page source, int from, BufferPool.Page target, int to, int n) {
+        System.arraycopy(source.data.array(), KEYS_OFFSET + from * keySize,
+                target.data.array(), KEYS_OFFSET + to * keySize, n * keySize);
+        target.isDirty = true;
+    }
+
+    private void copyChildren(BufferPool.Page source, int from, BufferPool.Page target, int to, int n) {
+        System.arraycopy(source.data.array(), childrenOffset + from * Integer.BYTES,
+                target.data.array(), childrenOffset + to * Integer.BYTES, n * Integer.BYTES);
+        target.isDirty = true;
+    }
+
+    /**
+     * Binary search within a page. Returns the index of the element if
+     * found, otherwise {@code -(insertion point) - 1}, the same way
+     * {@link Arrays#binarySearch(Object[], Object)} does.
+     */
+    private int indexOf(BufferPool.Page page, E value) {
+        int low = 0;
+        int high = count(page) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compare(key(page, middle), value);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private E findMin(int id) {
+        while (true) {
+            BufferPool.Page page = pool.pin(id);
+            if (isLeaf(page)) {
+                E value = key(page, 0);
+                pool.unpin(page);
+                return value;
+            }
+            id = child(page, 0);
+            pool.unpin(page);
+        }
+    }
+
+    private E findMax(int id) {
+        while (true) {
+            BufferPool.Page page = pool.pin(id);
+            if (isLeaf(page)) {
+                E value = key(page, count(page) - 1);
+                pool.unpin(page);
+                return value;
+            }
+            id = child(page, count(page));
+            pool.unpin(page);
+        }
+    }
+
+    private void insertKey(BufferPool.Page page, int index, E value) {
+        int count = count(page);
+        copyKeys(page, index, page, index + 1, count - index);
+        setKey(page, index, value);
+        setCount(page, count + 1);
+    }
+
+    private void removeKey(BufferPool.Page page, int index) {
+        int count = count(page) - 1;
+        copyKeys(page, index + 1, page, index, count - index);
+        setCount(page, count);
+    }
+
+    /**
+     * Splits the full child at the specified index of a non-full parent
+     * into two nodes of {@code t - 1} elements each and moves the median
+     * element up into the parent. Both pages stay pinned.
+     */
+    private void splitChild(BufferPool.Page parent, int index, BufferPool.Page child) {
+        int t = minimumDegree;
+        boolean isLeaf = isLeaf(child);
+        BufferPool.Page sibling = allocatePage(isLeaf);
+        copyKeys(child, t, sibling, 0, t - 1);
+        if (!isLeaf) {
+            copyChildren(child, t, sibling, 0, t);
+        }
+        setCount(sibling, t - 1);
+        int parentCount = count(parent);
+        copyChildren(parent, index + 1, parent, index + 2, parentCount - index);
+        setChild(parent, index + 1, sibling.id);
+        copyKeys(parent, index, parent, index + 1, parentCount - index);
+        copyKeys(child, t - 1, parent, index, 1);
+        setCount(parent, parentCount + 1);
+        setCount(child, t - 1);
+        pool.unpin(sibling);
+    }
+
+    /**
+     * Removes the value from the subtree rooted at the specified pinned
+     * page and unpins it. The node is either the root or holds at least
+     * {@code t} elements, so it can give one away to a child without
+     * becoming underfull.
+     */
+    private boolean remove(BufferPool.Page node, E value) {
+        int t = minimumDegree;
+        while (true) {
+            int index = indexOf(node, value);
+            if (index >= 0) {
+                if (isLeaf(node)) {
+                    removeKey(node, index);
+                    pool.unpin(node);
+                    return true;
+                }
+                BufferPool.Page left = pool.pin(child(node, index));
+                BufferPool.Page right = pool.pin(child(node, index + 1));
+                if (count(left) >= t) {
+                    E predecessor = findMax(left.id);
+                    setKey(node, index, predecessor);
+                    pool.unpin(right);
+                    pool.unpin(node);
+                    node = left;
+                    value = predecessor;
+                } else if (count(right) >= t) {
+                    E successor = findMin(right.id);
+                    setKey(node, index, successor);
+                    pool.unpin(left);
+                    pool.unpin(node);
+                    node = right;
+                    value = successor;
+                } else {
+                    merge(node, index, left, right);
+                    pool.unpin(node);
+                    node = left;
+                }
+            } else if (isLeaf(node)) {
+                pool.unpin(node);
+                return false;
+            } else {
+                int position = -index - 1;
+                BufferPool.Page child = pool.pin(child(node, position));
+                if (count(child) == t - 1) {
+                    pool.unpin(child);
+                    position = refill(node, position);
+                    child = pool.pin(child(node, position));
+                }
+                pool.unpin(node);
+                node = child;
+            }
+        }
+    }
+
+    /**
+     * Makes the child at the specified position hold at least {@code t}
+     * elements by borrowing one from a sibling or by merging with it.
+     * Returns the position of the child that now contains the former
+     * child's elements.
+     */
+    private int refill(BufferPool.Page parent, int position) {
+        int t = minimumDegree;
+        int parentCount = count(parent);
+        BufferPool.Page child = pool.pin(child(parent, position));
+        int childCount = count(child);
+        if (position > 0) {
+            BufferPool.Page left = pool.pin(child(parent, position - 1));
+            int leftCount = count(left);
+            if (leftCount >= t) {
+                copyKeys(child, 0, child, 1, childCount);
+                copyKeys(parent, position - 1, child, 0, 1);
+                copyKeys(left, leftCount - 1, parent, position - 1, 1);
+                if (!isLeaf(child)) {
+                    copyChildren(child, 0, child, 1, childCount + 1);
+                    setChild(child, 0, child(left, leftCount));
+                }
+                setCount(child, childCount + 1);
+                setCount(left, leftCount - 1);
+                pool.unpin(left);
+                pool.unpin(child);
+                return position;
+            } else if (position == parentCount) {
+                merge(parent, position - 1, left, child);
+                pool.unpin(left);
+                return position - 1;
+            }
+            pool.unpin(left);
+        }
+        BufferPool.Page right = pool.pin(child(parent, position + 1));
+        int rightCount = count(right);
+        if (rightCount >= t) {
+            copyKeys(parent, position, child, childCount, 1);
+            copyKeys(right, 0, parent, position, 1);
+            if (!isLeaf(child)) {
+                setChild(child, childCount + 1, child(right, 0));
+                copyChildren(right, 1, right, 0, rightCount);
+            }
+            setCount(child, childCount + 1);
+            removeKey(right, 0);
+            pool.unpin(right);
+        } else {
+            merge(parent, position, child, right);
+        }
+        pool.unpin(child);
+        return position;
+    }
+
+    /**
+     * Merges the children at {@code index} and {@code index + 1} of the
+     * parent together with the element separating them and frees the
+     * right child's page. Both children hold exactly {@code t - 1}
+     * elements. The parent and the left child stay pinned.
+     */
+    private void merge(BufferPool.Page parent, int index, BufferPool.Page left, BufferPool.Page right) {
+        int leftCount = count(left);
+        int rightCount = count(right);
+        copyKeys(parent, index, left, leftCount, 1);
+        copyKeys(right, 0, left, leftCount + 1, rightCount);
+        if (!isLeaf(left)) {
+            copyChildren(right, 0, left, leftCount + 1, rightCount + 1);
+        }
+        setCount(left, leftCount + rightCount + 1);
+        removeKey(parent, index);
+        copyChildren(parent, index + 2, parent, index + 1, count(parent) - index);
+        freePage(right);
+    }
+}
@@ -0,0 +1,380 @@
+package io.github.akuniutka.structure;
+
+import java.util.*;
+
+/**
+ * An immutable ordered set based on binary search tree with path
+ * copying. {@code add()} and {@code remove()} never change the set they
+ * are called on, they return a new version of the set instead. The new
+ * version copies only the nodes on the path from the root to the changed
+ * node and shares all other nodes with the old one. The tree is kept
+ * AVL-balanced, so an update allocates {@code O(log n)} nodes and takes
+ * {@code O(log n)} time.
+ * <p>
+ * Since no version ever changes, a snapshot is just a reference to the
+ * current version and costs {@code O(1)}: a reader may iterate over a
+ * version for as long as it needs while writers keep publishing new ones,
+ * with no locking and no copying. Versions can be safely shared between
+ * threads, publishing a new version through a {@code volatile} field or
+ * an {@link java.util.concurrent.atomic.AtomicReference} is enough.
+ * <p>
+ * Elements are ordered by the comparator provided at creation time or by
+ * their natural ordering if no comparator was provided. {@code null}
+ * elements are not allowed.
+ *
+ * @param <E> the type of elements
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public final class PersistentBinaryTreeSet<E> implements Iterable<E> {
+    private final Node<E> root;
+    private final int size;
+    private final Comparator<? super E> comparator;
+
+    private static final class Node<E> {
+        final Node<E> left;
+        final Node<E> right;
+        final E value;
+        final int height;
+
+        Node(Node<E> left, E value, Node<E> right) {
+            this.left = left;
+            this.right = right;
+            this.value = value;
+            this.height = Math.max(heightOf(left), heightOf(right)) + 1;
+        }
+    }
+
+    private static final class TreeIterator<E> implements Iterator<E> {
+        // nodes whose values are not returned yet while their left
+        // subtrees are, the next node to return is on the top
+        private final Deque<Node<E>> path = new ArrayDeque<>();
+
+        TreeIterator(Node<E> root) {
+            pushLeftSpine(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<E> node = path.pop();
+            pushLeftSpine(node.right);
+            return node.value;
+        }
+
+        private void pushLeftSpine(Node<E> node) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+        }
+    }
+
+    private PersistentBinaryTreeSet(Node<E> root, int size, Comparator<? super E> comparator) {
+        this.root = root;
+        this.size = size;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns an empty set ordered by natural ordering of its elements.
+     *
+     * @param <E> the type of elements
+     * @return an empty set
+     */
+    public static <E> PersistentBinaryTreeSet<E> empty() {
+        return empty(null);
+    }
+
+    /**
+     * Returns an empty set ordered by the specified comparator.
+     *
+     * @param comparator comparator used to order elements, if {@code null}
+     *                   then the natural ordering of elements is used
+     * @param <E>        the type of elements
+     * @return an empty set
+     */
+    public static <E> PersistentBinaryTreeSet<E> empty(Comparator<? super E> comparator) {
+        return new PersistentBinaryTreeSet<>(null, 0, comparator);
+    }
+
+    /**
+     * Returns {@code true} if the set contains no elements.
+     *
+     * @return {@code true} if the set contains no elements
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the set contains the specified element.
+     *
+     * @param value element whose presence is to be tested
+     * @return {@code true} if the set contains the specified element
+     */
+    public boolean contains(E value) {
+        if (value == null) {
+            return false;
+        }
+        Node<E> node = root;
+        while (node != null) {
+            int cmp = compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the set contains all the specified elements.
+     *
+     * @param values elements whose presence is to be tested
+     * @return {@code true} if the set contains all the specified elements
+     */
+    public boolean containsAll(Collection<E> values) {
+        for (E value : values) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the lowest element of the set.
+     *
+     * @return the lowest element or {@code null} if the set is empty
+     */
+    public E findMin() {
+        Node<E> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the highest element of the set.
+     *
+     * @return the highest element or {@code null} if the set is empty
+     */
+    public E findMax() {
+        Node<E> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns an iterator over elements of this version of the set in
+     * ascending order. The iterator does not support removal.
+     *
+     * @return an iterator over elements of the set
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new TreeIterator<>(root);
+    }
+
+    /**
+     * Returns a version of the set with the specified element added.
+     *
+     * @param value element to be added
+     * @return a new version of the set, or this set if the element is
+     * {@code null} or already present
+     */
+    public PersistentBinaryTreeSet<E> add(E value) {
+        if (value == null) {
+            return this;
+        }
+        Node<E> newRoot = insert(root, value);
+        return newRoot == root ? this : new PersistentBinaryTreeSet<>(newRoot, size + 1, comparator);
+    }
+
+    /**
+     * Returns a version of the set with all the specified elements added.
+     *
+     * @param values elements to be added
+     * @return a new version of the set, or this set if none of the
+     * elements were added
+     */
+    public PersistentBinaryTreeSet<E> addAll(Collection<E> values) {
+        PersistentBinaryTreeSet<E> set = this;
+        for (E value : values) {
+            set = set.add(value);
+        }
+        return set;
+    }
+
+    /**
+     * Returns a version of the set with the specified element removed.
+     *
+     * @param value element to be removed
+     * @return a new version of the set, or this set if the element is not
+     * present
+     */
+    public PersistentBinaryTreeSet<E> remove(E value) {
+        if (value == null) {
+            return this;
+        }
+        Node<E> newRoot = delete(root, value);
+        return newRoot == root ? this : new PersistentBinaryTreeSet<>(newRoot, size - 1, comparator);
+    }
+
+    /**
+     * Returns a version of the set with all the specified elements
+     * removed.
+     *
+     * @param values elements to be removed
+     * @return a new version of the set, or this set if none of the
+     * elements were present
+     */
+    public PersistentBinaryTreeSet<E> removeAll(Collection<E> values) {
+        PersistentBinaryTreeSet<E> set = this;
+        for (E value : values) {
+            set = set.remove(value);
+        }
+        return set;
+    }
+
+    /**
+     * Returns an empty set with the same ordering.
+     *
+     * @return an empty set
+     */
+    public PersistentBinaryTreeSet<E> clear() {
+        return root == null ? this : new PersistentBinaryTreeSet<>(null, 0, comparator);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (E value : this) {
+            joiner.add(String.valueOf(value));
+        }
+        return joiner.toString();
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private int compare(E o1, E o2) {
+        if (comparator != null) {
+            return comparator.compare(o1, o2);
+        } else {
+            return ((Comparable<? super E>) o1).compareTo(o2);
+        }
+    }
+
+    /**
+     * Returns the root of a copy of the subtree with the value inserted,
+     * or the same root if the value is already present.
+     */
+    private Node<E> insert(Node<E> node, E value) {
+        if (node == null) {
+            return new Node<>(null, value, null);
+        }
+        int cmp = compare(value, node.value);
+        if (cmp < 0) {
+            Node<E> left = insert(node.left, value);
+            return left == node.left ? node : balance(left, node.value, node.right);
+        } else if (cmp > 0) {
+            Node<E> right = insert(node.right, value);
+            return right == node.right ? node : balance(node.left, node.value, right);
+        } else {
+            return node;
+        }
+    }
+
+    /**
+     * Returns the root of a copy of the subtree with the value removed,
+     * or the same root if the value is not present.
+     */
+    private Node<E> delete(Node<E> node, E value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(value, node.value);
+        if (cmp < 0) {
+            Node<E> left = delete(node.left, value);
+            return left == node.left ? node : balance(left, node.value, node.right);
+        } else if (cmp > 0) {
+            Node<E> right = delete(node.right, value);
+            return right == node.right ? node : balance(node.left, node.value, right);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+        Node<E> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(node.left, successor.value, deleteMin(node.right));
+    }
+
+    private Node<E> deleteMin(Node<E> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(deleteMin(node.left), node.value, node.right);
+    }
+
+    /**
+     * Creates a node from subtrees whose heights differ by at most 2,
+     * rotating once or twice if they differ by exactly 2.
+     */
+    private static <E> Node<E> balance(Node<E> left, E value, Node<E> right) {
+        int leftHeight = heightOf(left);
+        int rightHeight = heightOf(right);
+        if (leftHeight > rightHeight + 1) {
+            if (heightOf(left.left) >= heightOf(left.right)) {
+                return new Node<>(left.left, left.value, new Node<>(left.right, value, right));
+            }
+            Node<E> pivot = left.right;
+            return new Node<>(new Node<>(left.left, left.value, pivot.left), pivot.value,
+                    new Node<>(pivot.right, value, right));
+        } else if (rightHeight > leftHeight + 1) {
+            if (heightOf(right.right) >= heightOf(right.left)) {
+                return new Node<>(new Node<>(left, value, right.left), right.value, right.right);
+            }
+            Node<E> pivot = right.left;
+            return new Node<>(new Node<>(left, value, pivot.left), pivot.value,
+                    new Node<>(pivot.right, right.value, right.right));
+        }
+        return new Node<>(left, value, right);
+    }
+
+    private static int heightOf(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.akuniutka.structure;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts records of some type to and from a fixed number of bytes.
+ * Used by dynamic arrays which keep their elements outside the Java heap.
+ * Implementations must always read and write exactly {@link
+ * #recordSize()} bytes and must use absolute {@code get}/{@code put}
+ * methods of the buffer, so the buffer position is never changed.
+ *
+ * @param <E> the type of records
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public interface RecordCodec<E> {
+
+    /**
+     * Returns the number of bytes each record takes.
+     *
+     * @return the size of a record in bytes, must be positive
+     */
+    int recordSize();
+
+    /**
+     * Writes the record into the buffer starting at the specified offset.
+     *
+     * @param buffer buffer to write the record to
+     * @param offset offset of the first byte of the record
+     * @param record record to write
+     */
+    void write(ByteBuffer buffer, int offset, E record);
+
+    /**
+     * Reads a record from the buffer starting at the specified offset.
+     *
+     * @param buffer buffer to read the record from
+     * @param offset offset of the first byte of the record
+     * @return the record read
+     */
+    E read(ByteBuffer buffer, int offset);
+}
@@ -0,0 +1,94 @@
+package io.github.akuniutka.structure;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable view of one fixed-size record kept in a byte buffer. A
+ * flyweight is pointed to a record by a dynamic array (see {@link
+ * OffHeapDynamicArray#wrap(int, RecordFlyweight)}) and then reads and
+ * writes the record's fields in place, so accessing records allocates
+ * nothing. Subclasses usually add named accessors on top of the
+ * protected methods, for example {@code getX()} as {@code getInt(0)}.
+ * <p>
+ * A flyweight stays valid until the array it was pointed by shifts its
+ * elements or drops the storage the record is kept in.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class RecordFlyweight {
+    private ByteBuffer buffer;
+    private int offset;
+
+    void wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the buffer the record is kept in.
+     *
+     * @return the buffer of the record
+     */
+    protected ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the offset of the first byte of the record in the buffer.
+     *
+     * @return the offset of the record
+     */
+    protected int offset() {
+        return offset;
+    }
+
+    protected byte getByte(int fieldOffset) {
+        return buffer.get(offset + fieldOffset);
+    }
+
+    protected void putByte(int fieldOffset, byte value) {
+        buffer.put(offset + fieldOffset, value);
+    }
+
+    protected short getShort(int fieldOffset) {
+        return buffer.getShort(offset + fieldOffset);
+    }
+
+    protected void putShort(int fieldOffset, short value) {
+        buffer.putShort(offset + fieldOffset, value);
+    }
+
+    protected int getInt(int fieldOffset) {
+        return buffer.getInt(offset + fieldOffset);
+    }
+
+    protected void putInt(int fieldOffset, int value) {
+        buffer.putInt(offset + fieldOffset, value);
+    }
+
+    protected long getLong(int fieldOffset) {
+        return buffer.getLong(offset + fieldOffset);
+    }
+
+    protected void putLong(int fieldOffset, long value) {
+        buffer.putLong(offset + fieldOffset, value);
+    }
+
+    protected float getFloat(int fieldOffset) {
+        return buffer.getFloat(offset + fieldOffset);
+    }
+
+    protected void putFloat(int fieldOffset, float value) {
+        buffer.putFloat(offset + fieldOffset, value);
+    }
+
+    protected double getDouble(int fieldOffset) {
+        return buffer.getDouble(offset + fieldOffset);
+    }
+
+    protected void putDouble(int fieldOffset, double value) {
+        buffer.putDouble(offset + fieldOffset, value);
+    }
+}
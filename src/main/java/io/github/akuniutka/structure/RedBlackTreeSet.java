@@ -1,14 +1,634 @@
 package io.github.akuniutka.structure;
 
-import java.util.Iterator;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * A sample implementation of red-black tree used as an ordered set. The
+ * tree keeps itself balanced on every insertion and removal, so its
+ * height never exceeds {@code 2 * log2(n + 1)} and {@code add()},
+ * {@code remove()} and {@code contains()} take {@code O(log n)} time
+ * even when elements arrive in sorted order. Rebalancing only recolors
+ * nodes and relinks existing ones, no nodes are allocated by rotations.
+ * <p>
+ * Elements are ordered by the comparator provided at creation time or
+ * by their natural ordering if no comparator was provided. {@code null}
+ * elements are not allowed.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
 public class RedBlackTreeSet<E> implements Iterable<E> {
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
 
-    // TODO: create an implementation of red-black tree data structure
+    private Node root;
+    private int size;
+    private final Comparator<? super E> comparator;
 
-    // TODO: implement iterator()
+    private class Node {
+        Node left;
+        Node right;
+        Node parent;
+        E value;
+        boolean color = BLACK;
+
+        Node(E value, Node parent) {
+            this.value = value;
+            this.parent = parent;
+        }
+    }
+
+    private class TreeIterator implements Iterator<E> {
+        private Node next;
+        private Node lastReturned;
+
+        TreeIterator() {
+            next = firstNode();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = successor(next);
+            return lastReturned.value;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            // a node with two children is replaced by its successor's value,
+            // so the successor itself is unlinked and iteration continues here
+            if (lastReturned.left != null && lastReturned.right != null) {
+                next = lastReturned;
+            }
+            deleteNode(lastReturned);
+            lastReturned = null;
+        }
+    }
+
+    /**
+     * Covers elements of a subtree from the lower bound inclusive to the
+     * upper bound exclusive, a {@code null} bound means no bound. A split
+     * hands off the part of the range below the topmost node that lies
+     * strictly inside the range and keeps that node's subtree, so the
+     * range is split roughly in halves.
+     */
+    private class TreeSpliterator implements Spliterator<E> {
+        private Node subtreeRoot;
+        private E lowerBound;
+        private final E upperBound;
+        private long estimatedSize;
+        private boolean isSized;
+        private Node next;
+        private boolean isTraversing;
+
+        TreeSpliterator(Node subtreeRoot, E lowerBound, E upperBound, long estimatedSize, boolean isSized) {
+            this.subtreeRoot = subtreeRoot;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.estimatedSize = estimatedSize;
+            this.isSized = isSized;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (!isTraversing) {
+                startTraversal();
+            }
+            if (next == null || upperBound != null && compare(next.value, upperBound) >= 0) {
+                next = null;
+                return false;
+            }
+            E value = next.value;
+            next = successor(next);
+            action.accept(value);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            while (tryAdvance(action)) {
+                // the action is applied by tryAdvance()
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            if (isTraversing) {
+                return null;
+            }
+            Node node = subtreeRoot;
+            while (node != null) {
+                if (lowerBound != null && compare(node.value, lowerBound) <= 0) {
+                    node = node.right;
+                } else if (upperBound != null && compare(node.value, upperBound) >= 0) {
+                    node = node.left;
+                } else {
+                    break;
+                }
+            }
+            if (node == null) {
+                return null;
+            }
+            long prefixSize = estimatedSize >>> 1;
+            Spliterator<E> prefix = new TreeSpliterator(subtreeRoot, lowerBound, node.value, prefixSize, false);
+            // all elements from the node's value up to the upper bound
+            // are in the node's subtree
+            subtreeRoot = node;
+            lowerBound = node.value;
+            estimatedSize -= prefixSize;
+            isSized = false;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.NONNULL
+                    | (isSized ? Spliterator.SIZED : 0);
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comparator;
+        }
+
+        private void startTraversal() {
+            isTraversing = true;
+            Node node = subtreeRoot;
+            while (node != null) {
+                if (lowerBound != null && compare(node.value, lowerBound) < 0) {
+                    node = node.right;
+                } else {
+                    next = node;
+                    node = node.left;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an empty set ordered by natural ordering of its elements.
+     */
+    public RedBlackTreeSet() {
+        this(null);
+    }
+
+    /**
+     * Creates an empty set ordered by the specified comparator.
+     *
+     * @param comparator comparator used to order elements, if {@code null}
+     *                   then the natural ordering of elements is used
+     */
+    public RedBlackTreeSet(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns {@code true} if the set contains no elements.
+     *
+     * @return {@code true} if the set contains no elements
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the set contains the specified element.
+     *
+     * @param value element whose presence is to be tested
+     * @return {@code true} if the set contains the specified element
+     */
+    public boolean contains(E value) {
+        return findNode(value) != null;
+    }
+
+    /**
+     * Returns {@code true} if the set contains all the specified elements.
+     *
+     * @param values elements whose presence is to be tested
+     * @return {@code true} if the set contains all the specified elements
+     */
+    public boolean containsAll(Collection<E> values) {
+        for (E value : values) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the lowest element of the set.
+     *
+     * @return the lowest element or {@code null} if the set is empty
+     */
+    public E findMin() {
+        Node node = firstNode();
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the highest element of the set.
+     *
+     * @return the highest element or {@code null} if the set is empty
+     */
+    public E findMax() {
+        Node node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns an iterator over elements of the set in ascending order.
+     *
+     * @return an iterator over elements of the set
+     */
     @Override
     public Iterator<E> iterator() {
+        return new TreeIterator();
+    }
+
+    /**
+     * Returns a spliterator over elements of the set in ascending order.
+     * The spliterator splits by handing off subtrees and reports {@code
+     * DISTINCT}, {@code SORTED}, {@code ORDERED} and {@code NONNULL}
+     * characteristics, and {@code SIZED} until it is split. The set must
+     * not be modified while the spliterator is in use.
+     *
+     * @return a spliterator over elements of the set
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new TreeSpliterator(root, null, null, size, true);
+    }
+
+    /**
+     * Returns a sequential stream over elements of the set in ascending
+     * order.
+     *
+     * @return a sequential stream over elements of the set
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over elements of the set. The stream is
+     * split by subtrees, so no elements are copied up front.
+     *
+     * @return a parallel stream over elements of the set
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     *
+     * @param value element to be added
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean add(E value) {
+        if (value == null) {
+            return false;
+        } else if (root == null) {
+            root = new Node(value, null);
+            size++;
+            return true;
+        }
+        Node node = root, parent;
+        int cmp;
+        do {
+            parent = node;
+            cmp = compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return false;
+            }
+        } while (node != null);
+        Node newNode = new Node(value, parent);
+        if (cmp < 0) {
+            parent.left = newNode;
+        } else {
+            parent.right = newNode;
+        }
+        fixAfterInsertion(newNode);
+        size++;
+        return true;
+    }
+
+    /**
+     * Adds all the specified elements to the set.
+     *
+     * @param values elements to be added
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean addAll(Collection<E> values) {
+        boolean hasTreeChanged = false;
+        for (E value : values) {
+            if (add(value)) {
+                hasTreeChanged = true;
+            }
+        }
+        return hasTreeChanged;
+    }
+
+    /**
+     * Removes the specified element from the set if it is present.
+     *
+     * @param value element to be removed
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean remove(E value) {
+        Node node = findNode(value);
+        if (node == null) {
+            return false;
+        }
+        deleteNode(node);
+        return true;
+    }
+
+    /**
+     * Removes all the specified elements from the set.
+     *
+     * @param values elements to be removed
+     * @return {@code true} if the set changed as the result of the call
+     */
+    public boolean removeAll(Collection<E> values) {
+        boolean hasTreeChanged = false;
+        for (E value : values) {
+            if (remove(value)) {
+                hasTreeChanged = true;
+            }
+        }
+        return hasTreeChanged;
+    }
+
+    /**
+     * Removes all elements from the set.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private int compare(E o1, E o2) {
+        if (comparator != null) {
+            return comparator.compare(o1, o2);
+        } else {
+            return ((Comparable<? super E>) o1).compareTo(o2);
+        }
+    }
+
+    private Node findNode(E value) {
+        if (value == null) {
+            return null;
+        }
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
         return null;
     }
+
+    private Node firstNode() {
+        Node node = root;
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    private Node successor(Node node) {
+        if (node.right != null) {
+            Node next = node.right;
+            while (next.left != null) {
+                next = next.left;
+            }
+            return next;
+        }
+        Node child = node, parent = node.parent;
+        while (parent != null && child == parent.right) {
+            child = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    private void deleteNode(Node node) {
+        size--;
+        // a node with two children takes its successor's value, then
+        // the successor (which has no left child) is unlinked instead
+        if (node.left != null && node.right != null) {
+            Node next = successor(node);
+            node.value = next.value;
+            node = next;
+        }
+        Node replacement = node.left != null ? node.left : node.right;
+        if (replacement != null) {
+            replacement.parent = node.parent;
+            replaceChild(node, replacement);
+            node.left = node.right = node.parent = null;
+            if (node.color == BLACK) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (node.parent == null) {
+            root = null;
+        } else {
+            // a leaf is used as a phantom replacement while fixing colors
+            if (node.color == BLACK) {
+                fixAfterDeletion(node);
+            }
+            replaceChild(node, null);
+            node.parent = null;
+        }
+    }
+
+    private void replaceChild(Node node, Node replacement) {
+        if (node.parent == null) {
+            root = replacement;
+        } else if (node == node.parent.left) {
+            node.parent.left = replacement;
+        } else {
+            node.parent.right = replacement;
+        }
+    }
+
+    private void fixAfterInsertion(Node node) {
+        node.color = RED;
+        while (node != root && node.parent.color == RED) {
+            Node parent = node.parent;
+            Node grandparent = parent.parent;
+            if (parent == grandparent.left) {
+                Node uncle = grandparent.right;
+                if (colorOf(uncle) == RED) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grandparent.color = RED;
+                    node = grandparent;
+                } else {
+                    if (node == parent.right) {
+                        node = parent;
+                        rotateLeft(node);
+                        parent = node.parent;
+                    }
+                    parent.color = BLACK;
+                    grandparent.color = RED;
+                    rotateRight(grandparent);
+                }
+            } else {
+                Node uncle = grandparent.left;
+                if (colorOf(uncle) == RED) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grandparent.color = RED;
+                    node = grandparent;
+                } else {
+                    if (node == parent.left) {
+                        node = parent;
+                        rotateRight(node);
+                        parent = node.parent;
+                    }
+                    parent.color = BLACK;
+                    grandparent.color = RED;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        root.color = BLACK;
+    }
+
+    private void fixAfterDeletion(Node node) {
+        while (node != root && colorOf(node) == BLACK) {
+            Node parent = node.parent;
+            if (node == parent.left) {
+                Node sibling = parent.right;
+                if (colorOf(sibling) == RED) {
+                    sibling.color = BLACK;
+                    parent.color = RED;
+                    rotateLeft(parent);
+                    sibling = parent.right;
+                }
+                if (colorOf(sibling.left) == BLACK && colorOf(sibling.right) == BLACK) {
+                    sibling.color = RED;
+                    node = parent;
+                } else {
+                    if (colorOf(sibling.right) == BLACK) {
+                        sibling.left.color = BLACK;
+                        sibling.color = RED;
+                        rotateRight(sibling);
+                        sibling = parent.right;
+                    }
+                    sibling.color = parent.color;
+                    parent.color = BLACK;
+                    sibling.right.color = BLACK;
+                    rotateLeft(parent);
+                    node = root;
+                }
+            } else {
+                Node sibling = parent.left;
+                if (colorOf(sibling) == RED) {
+                    sibling.color = BLACK;
+                    parent.color = RED;
+                    rotateRight(parent);
+                    sibling = parent.left;
+                }
+                if (colorOf(sibling.right) == BLACK && colorOf(sibling.left) == BLACK) {
+                    sibling.color = RED;
+                    node = parent;
+                } else {
+                    if (colorOf(sibling.left) == BLACK) {
+                        sibling.right.color = BLACK;
+                        sibling.color = RED;
+                        rotateLeft(sibling);
+                        sibling = parent.left;
+                    }
+                    sibling.color = parent.color;
+                    parent.color = BLACK;
+                    sibling.left.color = BLACK;
+                    rotateRight(parent);
+                    node = root;
+                }
+            }
+        }
+        node.color = BLACK;
+    }
+
+    private boolean colorOf(Node node) {
+        return node == null ? BLACK : node.color;
+    }
+
+    private void rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        if (pivot.left != null) {
+            pivot.left.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node, pivot);
+        pivot.left = node;
+        node.parent = pivot;
+    }
+
+    private void rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        if (pivot.right != null) {
+            pivot.right.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node, pivot);
+        pivot.right = node;
+        node.parent = pivot;
+    }
 }
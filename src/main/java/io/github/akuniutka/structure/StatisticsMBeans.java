@@ -0,0 +1,30 @@
+package io.github.akuniutka.structure;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers statistics of data structures with the platform MBean server
+ * under the {@code io.github.akuniutka.structure} domain.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+final class StatisticsMBeans {
+    private static final String DOMAIN = "io.github.akuniutka.structure";
+
+    private StatisticsMBeans() {
+    }
+
+    static ObjectName register(Object statistics, String type, String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, objectName);
+        return objectName;
+    }
+
+    static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+}
@@ -0,0 +1,517 @@
+package io.github.akuniutka.structure;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A dynamic array implemented as a tiered vector, which inserts and
+ * removes elements at any position in {@code O(sqrt(n))} time while
+ * keeping {@code O(1)} access by index.
+ * <p>
+ * Elements are kept in blocks of {@code b} elements, where {@code b} is a
+ * power of two close to {@code sqrt(n)}. Every block is a circular buffer
+ * with its own head offset, and all blocks but the last one are full, so
+ * element {@code i} is in block {@code i / b} at {@code i % b} slots
+ * after the head of the block. Inserting an element shifts at most
+ * {@code b} elements inside its block, then the element pushed out of
+ * the block goes to the head of the next block, whose last element goes
+ * to the head of the block after it, and so on: moving an element
+ * between blocks takes {@code O(1)} time as it only changes a head
+ * offset. Removal works the other way round. Both take {@code O(b + n /
+ * b)} time.
+ * <p>
+ * The block size is doubled when the array grows past {@code 4 * b * b}
+ * elements and halved when it shrinks below {@code b * b / 4}, which
+ * takes {@code O(n)} time but happens rarely enough to be amortized.
+ * Inserting more than a block of elements at once also rebuilds the
+ * blocks in one {@code O(n)} pass, right away with the block size which
+ * suits the new size, instead of inserting elements one by one.
+ * Iteration walks the blocks directly and allocates nothing per
+ * element.
+ *
+ * @param <E> the type of elements
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public class TieredDynamicArray<E> implements Iterable<E> {
+    private static final int MIN_BLOCK_SHIFT = 4;
+    private static final Object[] NO_ELEMENTS = new Object[0];
+    private int blockShift;
+    private int blockMask;
+    private Object[][] blocks;
+    // slot of the first element of each block
+    private int[] heads;
+    private int blockCount;
+    private int size;
+
+    /**
+     * Creates an empty array.
+     */
+    public TieredDynamicArray() {
+        setBlockShift(MIN_BLOCK_SHIFT, 1);
+    }
+
+    /**
+     * Creates an array containing elements from the specified
+     * fixed-length array in the same order.
+     *
+     * @param elements fixed-length array containing elements to be placed
+     *                 into the array
+     * @throws NullPointerException if the specified fixed-length array is
+     *                              null
+     */
+    public TieredDynamicArray(E[] elements) {
+        this();
+        addAll(elements);
+    }
+
+    /**
+     * Creates an array containing elements from the specified array in
+     * the same order as they are in the original array.
+     *
+     * @param elements array containing elements to be placed into the
+     *                 newly created array
+     * @throws NullPointerException if the specified array is null
+     */
+    public TieredDynamicArray(TieredDynamicArray<? extends E> elements) {
+        this();
+        insertAll(0, elements.toArray());
+    }
+
+    /**
+     * Returns the element at the specified position in the array.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in the array
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E get(int index) {
+        checkIndexWithinRange(index);
+        return elementAt(index);
+    }
+
+    /**
+     * Replaces the element at the specified position in the array with
+     * the specified element.
+     *
+     * @param index   index of the element to replace
+     * @param element element to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E set(int index, E element) {
+        checkIndexWithinRange(index);
+        Object[] block = blocks[index >>> blockShift];
+        int slot = (heads[index >>> blockShift] + index) & blockMask;
+        E oldElement = cast(block[slot]);
+        block[slot] = element;
+        return oldElement;
+    }
+
+    /**
+     * Appends the specified element to the end of the array.
+     *
+     * @param element element to be appended to the array
+     */
+    public void add(E element) {
+        insert(size, element);
+    }
+
+    /**
+     * Inserts the specified element at the specified position in the
+     * array. Shifts the element currently at that position and all
+     * subsequent elements to the right.
+     *
+     * @param index   index at which the specified element is to be
+     *                inserted
+     * @param element element to be inserted
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public void add(int index, E element) {
+        checkIndexWithinRange(index);
+        insert(index, element);
+    }
+
+    /**
+     * Appends elements from the specified fixed-length array to the end
+     * of the array.
+     *
+     * @param elements fixed-length array containing elements to be
+     *                 appended to the array
+     * @return {@code true} if the array changed as the result of the call
+     * @throws NullPointerException if the specified fixed-length array
+     *                              is null
+     */
+    public boolean addAll(E[] elements) {
+        insertAll(size, elements);
+        return elements.length != 0;
+    }
+
+    /**
+     * Appends elements from the specified array to the end of this array.
+     *
+     * @param elements array containing elements to be appended to this
+     *                 array
+     * @return {@code true} if this array changed as the result of the
+     * call
+     * @throws NullPointerException if the specified array is null
+     */
+    public boolean addAll(TieredDynamicArray<? extends E> elements) {
+        int n = elements.size;
+        insertAll(size, elements.toArray());
+        return n != 0;
+    }
+
+    /**
+     * Inserts elements of the specified fixed-length array into the array
+     * at the specified position. Up to a block of elements are inserted
+     * one by one, more elements are inserted by rebuilding the blocks in
+     * a single pass.
+     *
+     * @param index    index at which the new elements are to be inserted
+     * @param elements fixed-length array containing elements to be
+     *                 inserted
+     * @return {@code true} if the array changed as the result of the call
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     * @throws NullPointerException      if the specified fixed-length
+     *                                   array is null
+     */
+    public boolean addAll(int index, E[] elements) {
+        int n = elements.length;
+        checkIndexWithinRange(index);
+        insertAll(index, elements);
+        return n != 0;
+    }
+
+    /**
+     * Inserts elements of the specified array into this array at the
+     * specified position, the same way {@link #addAll(int, Object[])}
+     * does.
+     *
+     * @param index    index at which the new elements are to be inserted
+     * @param elements array containing elements to be inserted
+     * @return {@code true} if this array changed as the result of the
+     * call
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     * @throws NullPointerException      if the specified array is null
+     */
+    public boolean addAll(int index, TieredDynamicArray<? extends E> elements) {
+        int n = elements.size;
+        checkIndexWithinRange(index);
+        // a copy, so the source may be this array
+        insertAll(index, elements.toArray());
+        return n != 0;
+    }
+
+    /**
+     * Removes the element at the specified position from the array.
+     * Shifts all subsequent elements to the left.
+     *
+     * @param index index of the element to remove
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   ({@code index < 0 || index >= size()})
+     */
+    public E remove(int index) {
+        checkIndexWithinRange(index);
+        int first = index >>> blockShift;
+        int last = (size - 1) >>> blockShift;
+        Object[] block = blocks[first];
+        int head = heads[first];
+        int offset = index & blockMask;
+        int end = first < last ? blockMask : (size - 1) & blockMask;
+        E oldElement = cast(block[(head + offset) & blockMask]);
+        for (int i = offset; i < end; i++) {
+            block[(head + i) & blockMask] = block[(head + i + 1) & blockMask];
+        }
+        block[(head + end) & blockMask] = null;
+        // move the head of each next block to the end of the previous one
+        for (int j = first + 1; j <= last; j++) {
+            int nextHead = heads[j];
+            blocks[j - 1][(heads[j - 1] + blockMask) & blockMask] = blocks[j][nextHead];
+            blocks[j][nextHead] = null;
+            heads[j] = (nextHead + 1) & blockMask;
+        }
+        size--;
+        releaseTrailingBlocks();
+        resizeBlocksIfAppropriate();
+        return oldElement;
+    }
+
+    /**
+     * Removes all elements from the array.
+     */
+    public void clear() {
+        setBlockShift(MIN_BLOCK_SHIFT, 1);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of elements in the array.
+     *
+     * @return the number of elements in the array
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the array contains no elements.
+     *
+     * @return {@code true} if the array contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Sorts elements according to the order induced by the specified
+     * {@code comparator}. If the specified comparator is {@code null}
+     * then elements must implement {@code Comparable} interface and
+     * the natural ordering is used.
+     *
+     * @param comparator comparator used to compare elements
+     */
+    public void sort(Comparator<? super E> comparator) {
+        E[] sorted = toArray();
+        Arrays.sort(sorted, comparator);
+        int index = 0;
+        for (int j = 0; index < size; j++) {
+            Object[] block = blocks[j];
+            int head = heads[j];
+            int count = Math.min(blockMask + 1, size - index);
+            for (int i = 0; i < count; i++) {
+                block[(head + i) & blockMask] = sorted[index++];
+            }
+        }
+    }
+
+    /**
+     * Returns a fixed-length array containing all elements of the array
+     * in proper order.
+     *
+     * @return a fixed-length array containing all elements of the array
+     */
+    @SuppressWarnings("unchecked")
+    public E[] toArray() {
+        Object[] result = new Object[size];
+        int index = 0;
+        for (int j = 0; index < size; j++) {
+            int count = Math.min(blockMask + 1, size - index);
+            int firstPart = Math.min(count, blockMask + 1 - heads[j]);
+            System.arraycopy(blocks[j], heads[j], result, index, firstPart);
+            System.arraycopy(blocks[j], 0, result, index + firstPart, count - firstPart);
+            index += count;
+        }
+        return (E[]) result;
+    }
+
+    /**
+     * Returns an iterator over elements of the array in proper order. The
+     * iterator does not support removal.
+     *
+     * @return an iterator over elements of the array
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public E next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return elementAt(index++);
+            }
+        };
+    }
+
+    /**
+     * Performs the specified action for each element of the array in
+     * proper order, walking the blocks directly.
+     *
+     * @param action action to be performed for each element
+     * @throws NullPointerException if the action is null
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        int index = 0;
+        for (int j = 0; index < size; j++) {
+            Object[] block = blocks[j];
+            int head = heads[j];
+            int count = Math.min(blockMask + 1, size - index);
+            for (int i = 0; i < count; i++) {
+                action.accept(cast(block[(head + i) & blockMask]));
+            }
+            index += count;
+        }
+    }
+
+    private void checkIndexWithinRange(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private E elementAt(int index) {
+        int j = index >>> blockShift;
+        return cast(blocks[j][(heads[j] + index) & blockMask]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object element) {
+        return (E) element;
+    }
+
+    /**
+     * Inserts the element at the specified index, which may be equal to
+     * the size.
+     */
+    private void insert(int index, E element) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException();
+        }
+        if (size == (long) blockCount << blockShift) {
+            addBlock();
+        }
+        int first = index >>> blockShift;
+        int last = size >>> blockShift;
+        // move the last element of each previous block to the head of the next one
+        for (int j = last; j > first; j--) {
+            int newHead = (heads[j] - 1) & blockMask;
+            heads[j] = newHead;
+            blocks[j][newHead] = blocks[j - 1][(heads[j - 1] + blockMask) & blockMask];
+        }
+        Object[] block = blocks[first];
+        int head = heads[first];
+        int offset = index & blockMask;
+        int end = first < last ? blockMask : size & blockMask;
+        for (int i = end; i > offset; i--) {
+            block[(head + i) & blockMask] = block[(head + i - 1) & blockMask];
+        }
+        block[(head + offset) & blockMask] = element;
+        size++;
+        resizeBlocksIfAppropriate();
+    }
+
+    /**
+     * Inserts the elements at the specified index, which may be equal to
+     * the size: up to a block of elements one by one, more in a single
+     * rebuild.
+     */
+    private void insertAll(int index, Object[] inserted) {
+        if (inserted.length > blockMask + 1) {
+            rebuild(blockShiftFor((long) size + inserted.length), index, inserted);
+        } else {
+            for (int i = 0; i < inserted.length; i++) {
+                insert(index + i, cast(inserted[i]));
+            }
+        }
+    }
+
+    private void addBlock() {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            heads = Arrays.copyOf(heads, blockCount * 2);
+        }
+        blocks[blockCount] = new Object[blockMask + 1];
+        heads[blockCount] = 0;
+        blockCount++;
+    }
+
+    /**
+     * Releases blocks after the last used one but one.
+     */
+    private void releaseTrailingBlocks() {
+        int usedBlocks = (int) (((long) size + blockMask) >>> blockShift);
+        while (blockCount > usedBlocks + 1) {
+            blocks[--blockCount] = null;
+        }
+    }
+
+    private void resizeBlocksIfAppropriate() {
+        int newBlockShift = blockShiftFor(size);
+        if (newBlockShift != blockShift) {
+            rebuild(newBlockShift, size, NO_ELEMENTS);
+        }
+    }
+
+    /**
+     * Returns the block shift for the specified number of elements: the
+     * current one if {@code b * b / 4 <= n <= 4 * b * b}, otherwise the
+     * nearest one for which this holds.
+     */
+    private int blockShiftFor(long n) {
+        int shift = blockShift;
+        while (n > 4L << 2 * shift) {
+            shift++;
+        }
+        while (shift > MIN_BLOCK_SHIFT && n < (1L << 2 * shift) / 4) {
+            shift--;
+        }
+        return shift;
+    }
+
+    private void setBlockShift(int newBlockShift, int spineLength) {
+        blockShift = newBlockShift;
+        blockMask = (1 << newBlockShift) - 1;
+        blocks = new Object[spineLength][];
+        heads = new int[spineLength];
+        blockCount = 0;
+    }
+
+    /**
+     * Copies elements to new blocks of the specified size with the
+     * specified elements inserted at the specified index, all heads of
+     * new blocks are at slot 0.
+     */
+    private void rebuild(int newBlockShift, int index, Object[] inserted) {
+        if ((long) size + inserted.length > Integer.MAX_VALUE) {
+            throw new IllegalStateException();
+        }
+        Object[][] oldBlocks = blocks;
+        int[] oldHeads = heads;
+        int oldShift = blockShift;
+        int oldMask = blockMask;
+        int oldSize = size;
+        int newSize = size + inserted.length;
+        int newBlockMask = (1 << newBlockShift) - 1;
+        setBlockShift(newBlockShift, Math.max(1, (int) (((long) newSize + newBlockMask) >>> newBlockShift)));
+        size = 0;
+        for (int i = 0; i < index; i++) {
+            appendToNewBlocks(oldBlocks[i >>> oldShift][(oldHeads[i >>> oldShift] + i) & oldMask]);
+        }
+        for (Object element : inserted) {
+            appendToNewBlocks(element);
+        }
+        for (int i = index; i < oldSize; i++) {
+            appendToNewBlocks(oldBlocks[i >>> oldShift][(oldHeads[i >>> oldShift] + i) & oldMask]);
+        }
+    }
+
+    private void appendToNewBlocks(Object element) {
+        if ((size & blockMask) == 0) {
+            addBlock();
+        }
+        blocks[size >>> blockShift][size & blockMask] = element;
+        size++;
+    }
+}
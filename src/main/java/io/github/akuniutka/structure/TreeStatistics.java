@@ -0,0 +1,184 @@
+package io.github.akuniutka.structure;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters of the work a {@link BinaryTreeSet} does: how many
+ * comparisons it makes, how deep its lookups, insertions and removals
+ * go and how often it rebuilds subtrees to stay balanced. A growing
+ * average depth or comparisons per operation signals a degenerating
+ * tree. Statistics are collected only after {@link
+ * BinaryTreeSet#enableStatistics()} is called, a set without statistics
+ * only checks a field for {@code null}.
+ * <p>
+ * An operation is a call of {@code contains()}, {@code add()} or {@code
+ * remove()} (bulk operations count every element), its depth is the
+ * depth of the deepest node it visits, the root being at depth 0.
+ * Comparisons are counted for all methods, so comparisons per operation
+ * include those made by navigation and views. Counters are updated
+ * without synchronization by the thread which uses the set, another
+ * thread, such as a JMX client, may read them slightly out of date.
+ * {@link #snapshot()} returns an immutable copy of the counters. The
+ * statistics are a standard MBean and can be registered with the
+ * platform MBean server by {@link #register(String)}.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public final class TreeStatistics implements TreeStatisticsMBean {
+    private long operationCount;
+    private long comparisonCount;
+    private long depthSum;
+    private int maxDepth;
+    private long rebuildCount;
+    private long rebuiltNodeCount;
+    private ObjectName objectName;
+
+    TreeStatistics() {
+    }
+
+    /**
+     * Returns the number of lookups, insertions and removals.
+     *
+     * @return the number of operations
+     */
+    @Override
+    public long getOperationCount() {
+        return operationCount;
+    }
+
+    /**
+     * Returns the number of comparisons of elements.
+     *
+     * @return the number of comparisons
+     */
+    @Override
+    public long getComparisonCount() {
+        return comparisonCount;
+    }
+
+    /**
+     * Returns the average number of comparisons per operation.
+     *
+     * @return comparisons per operation, or 0 if there were no operations
+     */
+    @Override
+    public double getComparisonsPerOperation() {
+        return operationCount == 0 ? 0.0 : (double) comparisonCount / operationCount;
+    }
+
+    /**
+     * Returns the largest depth an operation has reached.
+     *
+     * @return the maximum depth
+     */
+    @Override
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the average depth operations reach.
+     *
+     * @return the average depth, or 0 if there were no operations
+     */
+    @Override
+    public double getAverageDepth() {
+        return operationCount == 0 ? 0.0 : (double) depthSum / operationCount;
+    }
+
+    /**
+     * Returns the number of times a subtree or the whole tree was rebuilt
+     * to restore balance.
+     *
+     * @return the number of rebuilds
+     */
+    @Override
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * Returns the total number of nodes in rebuilt subtrees.
+     *
+     * @return the number of rebuilt nodes
+     */
+    @Override
+    public long getRebuiltNodeCount() {
+        return rebuiltNodeCount;
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    @Override
+    public void reset() {
+        operationCount = 0;
+        comparisonCount = 0;
+        depthSum = 0;
+        maxDepth = 0;
+        rebuildCount = 0;
+        rebuiltNodeCount = 0;
+    }
+
+    /**
+     * Returns an immutable copy of the current values of the counters.
+     *
+     * @return a snapshot of the statistics
+     */
+    public TreeStatisticsSnapshot snapshot() {
+        return new TreeStatisticsSnapshot(operationCount, comparisonCount, depthSum, maxDepth,
+                rebuildCount, rebuiltNodeCount);
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server as {@code
+     * io.github.akuniutka.structure:type=BinaryTreeSet,name="<name>"}.
+     *
+     * @param name name to distinguish the set
+     * @return the name the statistics are registered under
+     * @throws JMException if the statistics cannot be registered, for
+     *                     example the name is already in use
+     */
+    public ObjectName register(String name) throws JMException {
+        objectName = StatisticsMBeans.register(this, "BinaryTreeSet", name);
+        return objectName;
+    }
+
+    /**
+     * Unregisters the statistics from the platform MBean server if they
+     * are registered.
+     *
+     * @throws JMException if the statistics cannot be unregistered
+     */
+    public void unregister() throws JMException {
+        if (objectName != null) {
+            StatisticsMBeans.unregister(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TreeStatistics{operationCount=" + operationCount + ", comparisonCount=" + comparisonCount
+                + ", maxDepth=" + maxDepth + ", averageDepth=" + getAverageDepth()
+                + ", rebuildCount=" + rebuildCount + ", rebuiltNodeCount=" + rebuiltNodeCount + "}";
+    }
+
+    void recordComparison() {
+        comparisonCount++;
+    }
+
+    void recordOperation(int depth) {
+        operationCount++;
+        depthSum += depth;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    void recordRebuild(int nodes) {
+        rebuildCount++;
+        rebuiltNodeCount += nodes;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.akuniutka.structure;
+
+/**
+ * Management interface of {@link TreeStatistics}, which exposes the
+ * statistics as JMX attributes.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public interface TreeStatisticsMBean {
+    long getOperationCount();
+
+    long getComparisonCount();
+
+    double getComparisonsPerOperation();
+
+    int getMaxDepth();
+
+    double getAverageDepth();
+
+    long getRebuildCount();
+
+    long getRebuiltNodeCount();
+
+    void reset();
+}
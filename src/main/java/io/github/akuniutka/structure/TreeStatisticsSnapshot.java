@@ -0,0 +1,100 @@
+package io.github.akuniutka.structure;
+
+/**
+ * Values of {@link TreeStatistics} counters at one moment. A snapshot
+ * never changes, cannot be reset and is not an MBean, so it can be kept
+ * and compared with later snapshots.
+ *
+ * @author Andrei Kuniutka
+ * @version 1.0
+ * @since 1.0
+ */
+public final class TreeStatisticsSnapshot {
+    private final long operationCount;
+    private final long comparisonCount;
+    private final long depthSum;
+    private final int maxDepth;
+    private final long rebuildCount;
+    private final long rebuiltNodeCount;
+
+    TreeStatisticsSnapshot(long operationCount, long comparisonCount, long depthSum, int maxDepth,
+            long rebuildCount, long rebuiltNodeCount) {
+        this.operationCount = operationCount;
+        this.comparisonCount = comparisonCount;
+        this.depthSum = depthSum;
+        this.maxDepth = maxDepth;
+        this.rebuildCount = rebuildCount;
+        this.rebuiltNodeCount = rebuiltNodeCount;
+    }
+
+    /**
+     * Returns the number of lookups, insertions and removals.
+     *
+     * @return the number of operations
+     */
+    public long getOperationCount() {
+        return operationCount;
+    }
+
+    /**
+     * Returns the number of comparisons of elements.
+     *
+     * @return the number of comparisons
+     */
+    public long getComparisonCount() {
+        return comparisonCount;
+    }
+
+    /**
+     * Returns the average number of comparisons per operation.
+     *
+     * @return comparisons per operation, or 0 if there were no operations
+     */
+    public double getComparisonsPerOperation() {
+        return operationCount == 0 ? 0.0 : (double) comparisonCount / operationCount;
+    }
+
+    /**
+     * Returns the largest depth an operation has reached.
+     *
+     * @return the maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the average depth operations reach.
+     *
+     * @return the average depth, or 0 if there were no operations
+     */
+    public double getAverageDepth() {
+        return operationCount == 0 ? 0.0 : (double) depthSum / operationCount;
+    }
+
+    /**
+     * Returns the number of times a subtree or the whole tree was rebuilt
+     * to restore balance.
+     *
+     * @return the number of rebuilds
+     */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * Returns the total number of nodes in rebuilt subtrees.
+     *
+     * @return the number of rebuilt nodes
+     */
+    public long getRebuiltNodeCount() {
+        return rebuiltNodeCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TreeStatisticsSnapshot{operationCount=" + operationCount + ", comparisonCount=" + comparisonCount
+                + ", maxDepth=" + maxDepth + ", averageDepth=" + getAverageDepth()
+                + ", rebuildCount=" + rebuildCount + ", rebuiltNodeCount=" + rebuiltNodeCount + "}";
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of streams and spliterators which all tree sets share. A test
+ * class of a tree set extends this one and tells how to create the set,
+ * add to it and stream it, as the sets have no common interface.
+ * Behaviour which depends on the shape of the tree, such as how evenly
+ * the spliterator splits, is tested by the subclasses.
+ *
+ * @param <S> the type of the set under test
+ */
+abstract class AbstractTreeSetStreamTest<S extends Iterable<Integer>> {
+    abstract S createSet(Comparator<Integer> comparator);
+
+    abstract boolean add(S set, Integer value);
+
+    abstract Stream<Integer> stream(S set, boolean isParallel);
+
+    @Test
+    void testStreamWhenEmpty() {
+        S set = createSet(null);
+        assertEquals(0, stream(set, false).count());
+        assertEquals(0, stream(set, true).count());
+    }
+
+    @Test
+    void testStreamReturnsElementsInOrder() {
+        S set = createSet(Comparator.reverseOrder());
+        for (Integer value : Arrays.asList(20, 10, 40, 30)) {
+            add(set, value);
+        }
+        assertEquals(Arrays.asList(40, 30, 20, 10), stream(set, false).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(40, 30, 20, 10), stream(set, true).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testSpliteratorSplitsBySubtrees() {
+        S set = createSet(null);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            Integer value = random.nextInt(100_000);
+            if (add(set, value)) {
+                expected.add(value);
+            }
+        }
+        Collections.sort(expected);
+        Spliterator<Integer> spliterator = set.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED
+                | Spliterator.NONNULL | Spliterator.SIZED));
+        assertEquals(expected.size(), spliterator.getExactSizeIfKnown());
+        assertNull(spliterator.getComparator());
+        List<Integer> actual = new ArrayList<>();
+        int chunks = collectBySplitting(spliterator, 8, actual);
+        assertEquals(expected, actual);
+        assertTrue(chunks > 100);
+    }
+
+    @Test
+    void testParallelStreamOverLargeSet() {
+        S set = createSet(null);
+        int n = 200_000;
+        for (int i = 0; i < n; i++) {
+            add(set, i);
+        }
+        assertEquals((long) n * (n - 1) / 2, stream(set, true).mapToLong(Integer::longValue).sum());
+        assertEquals(n, stream(set, true).filter(value -> value >= 0).count());
+    }
+
+    // splits to the specified depth and collects chunks in order,
+    // returns the number of non-empty chunks
+    static int collectBySplitting(Spliterator<Integer> spliterator, int depth, List<Integer> values) {
+        Spliterator<Integer> prefix = depth > 0 ? spliterator.trySplit() : null;
+        if (prefix != null) {
+            return collectBySplitting(prefix, depth - 1, values) + collectBySplitting(spliterator, depth - 1, values);
+        }
+        int before = values.size();
+        spliterator.forEachRemaining(values::add);
+        return values.size() > before ? 1 : 0;
+    }
+
+    // splits to the specified depth and returns the sizes of chunks in order
+    static List<Integer> chunkSizes(Spliterator<Integer> spliterator, int depth) {
+        List<Integer> sizes = new ArrayList<>();
+        collectChunkSizes(spliterator, depth, sizes);
+        return sizes;
+    }
+
+    private static void collectChunkSizes(Spliterator<Integer> spliterator, int depth, List<Integer> sizes) {
+        Spliterator<Integer> prefix = depth > 0 ? spliterator.trySplit() : null;
+        if (prefix != null) {
+            collectChunkSizes(prefix, depth - 1, sizes);
+            collectChunkSizes(spliterator, depth - 1, sizes);
+            return;
+        }
+        List<Integer> values = new ArrayList<>();
+        spliterator.forEachRemaining(values::add);
+        sizes.add(values.size());
+    }
+}
@@ -0,0 +1,255 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BTreeSetTest extends AbstractTreeSetStreamTest<BTreeSet<Integer>> {
+    @Test
+    void testConstructingWhenMinimumDegreeIsLessThanTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new BTreeSet<Integer>(1));
+    }
+
+    @Test
+    void testBTreeSetWithoutComparator() {
+        BTreeSet<Integer> set = new BTreeSet<>();
+        List<Integer> values = Arrays.asList(10, 20, 30);
+        set.addAll(values);
+        int index = 0;
+        for (Integer value : set) {
+            assertEquals(values.get(index++), value);
+        }
+    }
+
+    @Test
+    void testBTreeSetWithComparator() {
+        BTreeSet<Integer> set = new BTreeSet<>(2, Comparator.reverseOrder());
+        List<Integer> values = Arrays.asList(10, 20, 30, 40, 50);
+        set.addAll(values);
+        int index = values.size() - 1;
+        for (Integer value : set) {
+            assertEquals(values.get(index--), value);
+        }
+    }
+
+    @Test
+    void testIsEmptyIfJustCreated() {
+        BTreeSet<Integer> set = new BTreeSet<>();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    void testIsEmptyIfLastElementRemoved() {
+        BTreeSet<Integer> set = new BTreeSet<>();
+        set.add(10);
+        set.remove(10);
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void testAddIfElementAlreadyExists() {
+        BTreeSet<Integer> set = new BTreeSet<>(2);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(set.add(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertFalse(set.add(i));
+        }
+        assertEquals(100, set.size());
+        assertValidBTree(set, 2);
+    }
+
+    @Test
+    void testAddIfElementIsNull() {
+        BTreeSet<Integer> set = new BTreeSet<>();
+        assertFalse(set.add(null));
+        assertFalse(set.contains(null));
+        assertFalse(set.remove(null));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void testContainsAll() {
+        BTreeSet<Integer> set = new BTreeSet<>();
+        set.addAll(Arrays.asList(10, 20, 30));
+        assertTrue(set.containsAll(Arrays.asList(10, 20)));
+        assertFalse(set.containsAll(Arrays.asList(10, 20, 40)));
+    }
+
+    @Test
+    void testRemoveAll() {
+        BTreeSet<Integer> set = new BTreeSet<>();
+        set.addAll(Arrays.asList(10, 20, 30));
+        assertTrue(set.removeAll(Arrays.asList(10, 40, 50)));
+        assertFalse(set.removeAll(Arrays.asList(40, 50, 60)));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void testClear() {
+        BTreeSet<Integer> set = new BTreeSet<>();
+        set.addAll(Arrays.asList(10, 20, 30));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    void testFindMinAndFindMax() {
+        BTreeSet<Integer> set = new BTreeSet<>(2);
+        assertNull(set.findMin());
+        assertNull(set.findMax());
+        for (int i = 100; i > 0; i--) {
+            set.add(i);
+        }
+        assertEquals(1, set.findMin());
+        assertEquals(100, set.findMax());
+    }
+
+    @Test
+    void testRandomAddsAndRemovesAgainstTreeSet() {
+        for (int minimumDegree : new int[]{2, 3, 5, 32}) {
+            BTreeSet<Integer> set = new BTreeSet<>(minimumDegree);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(minimumDegree);
+            for (int i = 0; i < 20_000; i++) {
+                Integer value = random.nextInt(2_000);
+                if (random.nextInt(3) != 0) {
+                    assertEquals(expected.add(value), set.add(value));
+                } else {
+                    assertEquals(expected.remove(value), set.remove(value));
+                }
+                assertEquals(expected.contains(value), set.contains(value));
+            }
+            assertEquals(expected.size(), set.size());
+            assertIterableEquals(expected, set);
+            assertValidBTree(set, minimumDegree);
+            for (Integer value : new ArrayList<>(expected)) {
+                assertTrue(set.remove(value));
+            }
+            assertTrue(set.isEmpty());
+        }
+    }
+
+    @Test
+    void testIteratorRemove() {
+        BTreeSet<Integer> set = new BTreeSet<>(2);
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        Iterator<Integer> iterator = set.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        List<Integer> visited = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Integer value = iterator.next();
+            visited.add(value);
+            if (value % 3 != 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(100, visited.size());
+        assertEquals(34, set.size());
+        for (Integer value : set) {
+            assertEquals(0, value % 3);
+        }
+        assertValidBTree(set, 2);
+    }
+
+    @Test
+    void testIteratorWhenExhausted() {
+        BTreeSet<Integer> set = new BTreeSet<>();
+        assertThrows(NoSuchElementException.class, () -> set.iterator().next());
+    }
+
+
+    @Test
+    void testSpliteratorSplitsAtMiddleKeysOfNodes() {
+        BTreeSet<Integer> set = new BTreeSet<>(3, null);
+        for (int i = 0; i < 1023; i++) {
+            set.add(i);
+        }
+        // every split takes the middle key of a node, so no chunk three
+        // splits down may hold more than a quarter of the elements
+        List<Integer> sizes = chunkSizes(set.spliterator(), 3);
+        assertEquals(8, sizes.size());
+        for (int size : sizes) {
+            assertTrue(size > 0 && size <= 256);
+        }
+    }
+
+    private <E> void assertValidBTree(BTreeSet<E> set, int minimumDegree) {
+        try {
+            Object root = field(set, "root");
+            if (root != null) {
+                checkNode(root, minimumDegree, true, 0, new int[]{-1});
+            }
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void checkNode(Object node, int t, boolean isRoot, int depth, int[] leafDepth)
+            throws NoSuchFieldException, IllegalAccessException {
+        Object[] keys = (Object[]) field(node, "keys");
+        Object[] children = (Object[]) field(node, "children");
+        int count = (int) field(node, "count");
+        assertTrue(count <= 2 * t - 1, "node overflow");
+        assertTrue(isRoot ? count >= 1 : count >= t - 1, "node underflow");
+        for (int i = 1; i < count; i++) {
+            assertTrue(((Comparable) keys[i - 1]).compareTo(keys[i]) < 0, "keys must be sorted");
+        }
+        for (int i = count; i < keys.length; i++) {
+            assertNull(keys[i], "unused slots must be cleared");
+        }
+        if (children == null) {
+            if (leafDepth[0] < 0) {
+                leafDepth[0] = depth;
+            }
+            assertEquals(leafDepth[0], depth, "all leaves must be at the same depth");
+            return;
+        }
+        for (int i = 0; i <= count; i++) {
+            Object child = children[i];
+            assertNotNull(child);
+            Object[] childKeys = (Object[]) field(child, "keys");
+            int childCount = (int) field(child, "count");
+            if (i > 0) {
+                assertTrue(((Comparable) childKeys[0]).compareTo(keys[i - 1]) > 0);
+            }
+            if (i < count) {
+                assertTrue(((Comparable) childKeys[childCount - 1]).compareTo(keys[i]) < 0);
+            }
+            checkNode(child, t, false, depth + 1, leafDepth);
+        }
+    }
+
+    private Object field(Object object, String name) throws NoSuchFieldException, IllegalAccessException {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    @Override
+    BTreeSet<Integer> createSet(Comparator<Integer> comparator) {
+        return new BTreeSet<>(3, comparator);
+    }
+
+    @Override
+    boolean add(BTreeSet<Integer> set, Integer value) {
+        return set.add(value);
+    }
+
+    @Override
+    Stream<Integer> stream(BTreeSet<Integer> set, boolean isParallel) {
+        return isParallel ? set.parallelStream() : set.stream();
+    }
+}
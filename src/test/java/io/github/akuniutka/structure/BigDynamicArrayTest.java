@@ -0,0 +1,113 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BigDynamicArrayTest {
+    @Test
+    void testCreatingWithInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BigDynamicArray<Integer>(0));
+        assertThrows(IllegalArgumentException.class, () -> new BigDynamicArray<Integer>(6));
+    }
+
+    @Test
+    void testIsEmptyIfJustCreated() {
+        BigDynamicArray<Integer> array = new BigDynamicArray<>();
+        assertTrue(array.isEmpty());
+        assertEquals(0, array.size());
+        assertEquals(0, array.capacity());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(0));
+        assertThrows(NoSuchElementException.class, array::removeLast);
+    }
+
+    @Test
+    void testGrowsByChunks() {
+        BigDynamicArray<Integer> array = new BigDynamicArray<>(4);
+        for (int i = 0; i < 9; i++) {
+            array.add(i);
+        }
+        assertEquals(9, array.size());
+        assertEquals(12, array.capacity());
+        for (int i = 0; i < 9; i++) {
+            assertEquals(i, array.get(i));
+        }
+        assertEquals(4, array.set(4, 40));
+        assertEquals(40, array.get(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(9));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(-1));
+    }
+
+    @Test
+    void testReleasesTrailingChunksButOne() {
+        BigDynamicArray<Integer> array = new BigDynamicArray<>(4);
+        for (int i = 0; i < 32; i++) {
+            array.add(i);
+        }
+        array.truncate(5);
+        assertEquals(5, array.size());
+        assertEquals(12, array.capacity());
+        assertEquals(4, array.removeLast());
+        assertEquals(8, array.capacity());
+        array.add(4);
+        assertEquals(8, array.capacity());
+        array.removeLast();
+        assertEquals(8, array.capacity());
+        array.clear();
+        assertTrue(array.isEmpty());
+        assertEquals(4, array.capacity());
+    }
+
+    @Test
+    void testRandomOperationsAgainstArrayList() {
+        BigDynamicArray<Integer> array = new BigDynamicArray<>(8);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(21);
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(6);
+            if (expected.isEmpty() || operation < 2) {
+                array.add(i);
+                expected.add(i);
+            } else if (operation == 2) {
+                int index = random.nextInt(expected.size());
+                array.add(index, i);
+                expected.add(index, i);
+            } else if (operation == 3) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), array.remove(index));
+            } else if (operation == 4) {
+                assertEquals(expected.remove(expected.size() - 1), array.removeLast());
+            } else {
+                Integer[] block = new Integer[random.nextInt(20)];
+                for (int j = 0; j < block.length; j++) {
+                    block[j] = -j;
+                    expected.add(-j);
+                }
+                array.addAll(block);
+            }
+            assertEquals(expected.size(), array.size());
+        }
+        List<Integer> actual = new ArrayList<>();
+        array.forEach(actual::add);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testStreamsKeepOrder() {
+        BigDynamicArray<Integer> array = new BigDynamicArray<>(16);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            array.add(i);
+            expected.add(i);
+        }
+        assertEquals(expected, array.stream().collect(Collectors.toList()));
+        assertEquals(expected, array.parallelStream().collect(Collectors.toList()));
+        assertEquals(10_000, array.spliterator().getExactSizeIfKnown());
+    }
+}
@@ -2,14 +2,16 @@ package io.github.akuniutka.structure;
 
 import org.junit.jupiter.api.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-class BinaryTreeSetTest {
+class BinaryTreeSetTest extends AbstractTreeSetStreamTest<BinaryTreeSet<Integer>> {
     @Test
     void testBinaryTreeSetWithoutComparator() {
         BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
@@ -215,9 +217,521 @@ class BinaryTreeSetTest {
         }
     }
 
+    @Test
+    void testIteratorWhenExhausted() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        System.out.println(toPrettyString(set));
+        assertThrows(NoSuchElementException.class, () -> set.iterator().next());
+    }
+
+    @Test
+    void testIteratorWhenTreeIsDegenerate() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>(null, Double.POSITIVE_INFINITY);
+        int n = 20_000;
+        for (int i = 0; i < n; i++) {
+            set.add(i);
+        }
+        int expected = 0;
+        for (Integer value : set) {
+            assertEquals(expected++, value);
+        }
+        assertEquals(n, expected);
+    }
+
+    @Test
+    void testIteratorRemove() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        set.addAll(Arrays.asList(50, 30, 70, 20, 40, 60, 80, 10, 90));
+        Iterator<Integer> iterator = set.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        List<Integer> visited = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Integer value = iterator.next();
+            visited.add(value);
+            if (value % 20 != 0) {
+                iterator.remove();
+            }
+        }
+        System.out.println(toPrettyString(set));
+        assertEquals(Arrays.asList(10, 20, 30, 40, 50, 60, 70, 80, 90), visited);
+        assertEquals(4, set.size());
+        List<Integer> remaining = new ArrayList<>();
+        set.forEach(remaining::add);
+        assertEquals(Arrays.asList(20, 40, 60, 80), remaining);
+    }
+
+    @Test
+    void testFromSortedArray() {
+        Integer[] values = new Integer[1023];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        BinaryTreeSet<Integer> set = BinaryTreeSet.fromSorted(values, null);
+        assertEquals(values.length, set.size());
+        assertEquals(10, heightOf(set));
+        int expected = 0;
+        for (Integer value : set) {
+            assertEquals(expected++, value);
+        }
+        assertTrue(set.add(-1));
+        assertTrue(set.contains(512));
+    }
+
+    @Test
+    void testFromSortedDynamicArray() {
+        DynamicArray<Integer> values = new DynamicArray<>(new Integer[]{30, 20, 10});
+        BinaryTreeSet<Integer> set = BinaryTreeSet.fromSorted(values, Comparator.reverseOrder());
+        System.out.println(toPrettyString(set));
+        assertEquals(3, set.size());
+        assertEquals(30, set.findMin());
+        assertEquals(10, set.findMax());
+        assertTrue(set.contains(20));
+    }
+
+    @Test
+    void testFromSortedIterator() {
+        BinaryTreeSet<Integer> set = BinaryTreeSet.fromSorted(Arrays.asList(10, 20, 30, 40).iterator(), null);
+        System.out.println(toPrettyString(set));
+        assertEquals(4, set.size());
+        assertEquals(3, heightOf(set));
+        assertTrue(set.containsAll(Arrays.asList(10, 20, 30, 40)));
+    }
+
+    @Test
+    void testFromSortedIteratorOverManyValues() {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(i);
+        }
+        BinaryTreeSet<Integer> set = BinaryTreeSet.fromSorted(values.iterator(), null);
+        assertEquals(1000, set.size());
+        assertEquals(10, heightOf(set));
+        List<Integer> actual = new ArrayList<>();
+        set.forEach(actual::add);
+        assertEquals(values, actual);
+    }
+
+    @Test
+    void testFromSortedSkipsNulls() {
+        Integer[] values = {null, 10, 20, null, 30, null};
+        List<BinaryTreeSet<Integer>> sets = Arrays.asList(
+                BinaryTreeSet.fromSorted(values, null),
+                BinaryTreeSet.fromSorted(new DynamicArray<>(values), null),
+                BinaryTreeSet.fromSorted(Arrays.asList(values).iterator(), null));
+        for (BinaryTreeSet<Integer> set : sets) {
+            assertEquals(3, set.size());
+            assertEquals(2, heightOf(set));
+            List<Integer> actual = new ArrayList<>();
+            set.forEach(actual::add);
+            assertEquals(Arrays.asList(10, 20, 30), actual);
+        }
+        assertArrayEquals(new Integer[]{null, 10, 20, null, 30, null}, values);
+    }
+
+    @Test
+    void testFromSortedWhenEmpty() {
+        BinaryTreeSet<Integer> set = BinaryTreeSet.fromSorted(new Integer[0], null);
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void testFromUnsortedArray() {
+        BinaryTreeSet<Integer> set = BinaryTreeSet.from(new Integer[]{30, 10, null, 20, 30, 10}, null);
+        System.out.println(toPrettyString(set));
+        assertEquals(3, set.size());
+        assertEquals(2, heightOf(set));
+        List<Integer> values = new ArrayList<>();
+        set.forEach(values::add);
+        assertEquals(Arrays.asList(10, 20, 30), values);
+    }
+
+    @Test
+    void testConstructingWhenHeightFactorIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new BinaryTreeSet<Integer>(null, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new BinaryTreeSet<Integer>(null, Double.NaN));
+    }
+
+    @Test
+    void testHeightWhenElementsAddedInSortedOrder() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            set.add(i);
+            if (i % 10_000 == 0) {
+                assertTrue(heightOf(set) <= maxHeight(2.0, set.size()));
+            }
+        }
+        assertEquals(n, set.size());
+        assertTrue(heightOf(set) <= maxHeight(2.0, n));
+        int expected = 0;
+        for (Integer value : set) {
+            assertEquals(expected++, value);
+        }
+    }
+
+    @Test
+    void testHeightWhenElementsAddedAllAtOnceInSortedOrder() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            values.add(i);
+        }
+        assertTrue(set.addAll(values));
+        assertEquals(values.size(), set.size());
+        assertTrue(heightOf(set) <= maxHeight(2.0, values.size()));
+    }
+
+    @Test
+    void testDepthStaysLimitedWhileAddingAllInSortedOrder() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        TreeStatistics statistics = set.enableStatistics();
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            values.add(i);
+        }
+        assertTrue(set.addAll(values));
+        assertTrue(statistics.getMaxDepth() <= maxHeight(2.0, values.size()));
+        assertTrue(statistics.getComparisonCount() < 100L * values.size());
+    }
+
+    @Test
+    void testAncestorsShrinkOnceTreeIsShallow() throws ReflectiveOperationException {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>(null, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < 1_000; i++) {
+            set.add(i);
+        }
+        assertTrue(ancestorsLengthOf(set) >= 1_000);
+        set.clear();
+        set.add(1);
+        assertEquals(16, ancestorsLengthOf(set));
+    }
+
+    @Test
+    void testHeightWhenMostElementsRemoved() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            values.add(i);
+            set.add(i);
+        }
+        assertTrue(set.removeAll(values.subList(0, 9_900)));
+        assertEquals(100, set.size());
+        assertTrue(heightOf(set) <= maxHeight(2.0, 100));
+        for (int i = 9_900; i < 9_990; i++) {
+            assertTrue(set.remove(i));
+        }
+        assertTrue(heightOf(set) <= maxHeight(2.0, 10));
+        assertEquals(9_990, set.findMin());
+    }
+
+    @Test
+    void testRandomAddsAndRemovesAgainstTreeSet() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>(null, 1.0);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            Integer value = random.nextInt(2_000);
+            if (random.nextInt(3) != 0) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertIterableEquals(expected, set);
+        assertTrue(heightOf(set) <= maxHeight(1.0, set.size()));
+    }
+
+    @Test
+    void testNavigationAgainstTreeSet() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            Integer value = random.nextInt(2_000) * 2;
+            set.add(value);
+            expected.add(value);
+        }
+        for (int value = -2; value <= 4_002; value++) {
+            assertEquals(expected.floor(value), set.floor(value));
+            assertEquals(expected.lower(value), set.lower(value));
+            assertEquals(expected.ceiling(value), set.ceiling(value));
+            assertEquals(expected.higher(value), set.higher(value));
+        }
+    }
+
+    @Test
+    void testDescendingIterator() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        set.addAll(Arrays.asList(20, 10, 40, 30));
+        List<Integer> values = new ArrayList<>();
+        set.descendingIterator().forEachRemaining(values::add);
+        assertEquals(Arrays.asList(40, 30, 20, 10), values);
+        Iterator<Integer> iterator = set.descendingIterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 20 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(Arrays.asList(10, 30), toList(set));
+        assertFalse(new BinaryTreeSet<Integer>().descendingIterator().hasNext());
+    }
+
+    @Test
+    void testViewsAgainstTreeSet() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(2);
+        for (int i = 0; i < 300; i++) {
+            Integer value = random.nextInt(1_000);
+            set.add(value);
+            expected.add(value);
+        }
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(1_000);
+            int to = from + random.nextInt(200);
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+            BinaryTreeSet.SubSet<Integer> view = set.subSet(from, fromInclusive, to, toInclusive);
+            NavigableSet<Integer> expectedView = expected.subSet(from, fromInclusive, to, toInclusive);
+            assertEquals(new ArrayList<>(expectedView), toList(view));
+            assertEquals(new ArrayList<>(expectedView.descendingSet()), toList(view.descendingIterator()));
+            assertEquals(expectedView.size(), view.size());
+            assertEquals(expectedView.isEmpty(), view.isEmpty());
+            assertEquals(expectedView.isEmpty() ? null : expectedView.first(), view.findMin());
+            assertEquals(expectedView.isEmpty() ? null : expectedView.last(), view.findMax());
+            int probe = from - 50 + random.nextInt(300);
+            assertEquals(expectedView.floor(probe), view.floor(probe));
+            assertEquals(expectedView.lower(probe), view.lower(probe));
+            assertEquals(expectedView.ceiling(probe), view.ceiling(probe));
+            assertEquals(expectedView.higher(probe), view.higher(probe));
+            assertEquals(expectedView.contains(probe), view.contains(probe));
+        }
+        assertEquals(new ArrayList<>(expected.headSet(500)), toList(set.headSet(500)));
+        assertEquals(new ArrayList<>(expected.headSet(500, true)), toList(set.headSet(500, true)));
+        assertEquals(new ArrayList<>(expected.tailSet(500)), toList(set.tailSet(500)));
+        assertEquals(new ArrayList<>(expected.tailSet(500, false)), toList(set.tailSet(500, false)));
+    }
+
+    @Test
+    void testViewIsLive() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        set.addAll(Arrays.asList(10, 20, 30, 40, 50));
+        BinaryTreeSet.SubSet<Integer> view = set.subSet(20, 40);
+        assertEquals(Arrays.asList(20, 30), toList(view));
+        set.add(25);
+        set.remove(20);
+        assertEquals(Arrays.asList(25, 30), toList(view));
+        assertTrue(view.add(35));
+        assertThrows(IllegalArgumentException.class, () -> view.add(40));
+        assertFalse(view.remove(50));
+        assertTrue(view.remove(30));
+        assertEquals(Arrays.asList(10, 25, 35, 40, 50), toList(set));
+        assertEquals(Arrays.asList(25), toList(view.headSet(30, false)));
+        assertEquals(Arrays.asList(35), toList(view.tailSet(30, true)));
+        assertThrows(IllegalArgumentException.class, () -> view.subSet(10, true, 30, false));
+        assertThrows(IllegalArgumentException.class, () -> view.headSet(40, true));
+        assertThrows(IllegalArgumentException.class, () -> set.subSet(40, 20));
+        assertThrows(NullPointerException.class, () -> set.headSet(null));
+    }
+
+    private static <E> List<E> toList(Iterable<E> values) {
+        return toList(values.iterator());
+    }
+
+    private static <E> List<E> toList(Iterator<E> iterator) {
+        List<E> values = new ArrayList<>();
+        iterator.forEachRemaining(values::add);
+        return values;
+    }
+
+    @Test
+    void testSpliteratorSplitsBalancedTreeEvenly() {
+        Integer[] values = new Integer[1023];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        BinaryTreeSet<Integer> set = BinaryTreeSet.fromSorted(values, null);
+        // a perfectly balanced tree splits at the root of every subtree
+        for (int size : chunkSizes(set.spliterator(), 3)) {
+            assertTrue(size == 127 || size == 128);
+        }
+    }
+
+    @Test
+    void testSelectAndRankMatchSortedOrder() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(19);
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        List<Integer> sorted = new ArrayList<>(expected);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i), set.select(i));
+            assertEquals(i, set.rank(sorted.get(i)));
+        }
+        for (int value = -1; value <= 2000; value++) {
+            assertEquals(expected.headSet(value).size(), set.rank(value));
+        }
+    }
+
+    @Test
+    void testSelectWhenIndexOutOfRange() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        assertThrows(IndexOutOfBoundsException.class, () -> set.select(0));
+        set.add(10);
+        assertThrows(IndexOutOfBoundsException.class, () -> set.select(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> set.select(1));
+        assertEquals(10, set.select(0));
+    }
+
+    @Test
+    void testCountInRangeAndViewSize() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i * 3);
+            expected.add(i * 3);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            set.remove(i * 3);
+            expected.remove(i * 3);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(3100) - 50;
+            int to = from + random.nextInt(600);
+            assertEquals(expected.subSet(from, to).size(), set.countInRange(from, to));
+            assertEquals(expected.subSet(from, false, to, true).size(), set.subSet(from, false, to, true).size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> set.countInRange(10, 5));
+    }
+
+    @Test
+    void testSelectAfterSortedBulkLoad() {
+        Integer[] values = new Integer[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 2;
+        }
+        BinaryTreeSet<Integer> set = BinaryTreeSet.fromSorted(values, null);
+        assertEquals(100, set.countInRange(0, 1000));
+        assertEquals(42, set.select(21));
+        set.add(41);
+        assertEquals(41, set.select(21));
+        assertEquals(21, set.rank(41));
+    }
+
+    @Test
+    void testStatisticsCountOperationsAndDepths() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        assertNull(set.statistics());
+        TreeStatistics statistics = set.enableStatistics();
+        set.addAll(Arrays.asList(20, 10, 30, 5));
+        set.add(20);
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(40));
+        assertTrue(set.remove(30));
+        assertEquals(8, statistics.getOperationCount());
+        assertEquals(2, statistics.getMaxDepth());
+        // depths: 0, 1, 1, 2 for insertions, 0 for the duplicate, 2, 1, 1
+        assertEquals(8.0 / 8, statistics.getAverageDepth());
+        assertTrue(statistics.getComparisonCount() >= statistics.getOperationCount());
+        TreeStatisticsSnapshot snapshot = statistics.snapshot();
+        statistics.reset();
+        assertEquals(0, statistics.getOperationCount());
+        assertEquals(8, snapshot.getOperationCount());
+        set.disableStatistics();
+        assertNull(set.statistics());
+    }
+
+    @Test
+    void testRemovalComparesOncePerLevel() {
+        BinaryTreeSet<Integer> set = BinaryTreeSet.fromSorted(new Integer[]{1, 2, 3, 4, 5, 6, 7}, null);
+        TreeStatistics statistics = set.enableStatistics();
+        assertTrue(set.remove(1));
+        assertEquals(3, statistics.getComparisonCount());
+        assertEquals(0, set.rank(2));
+        assertEquals(5, set.rank(7));
+        assertEquals(7, set.select(5));
+    }
+
+    @Test
+    void testStatisticsCountRebuilds() {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        TreeStatistics statistics = set.enableStatistics();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+        assertTrue(statistics.getRebuildCount() > 0);
+        assertTrue(statistics.getRebuiltNodeCount() >= statistics.getRebuildCount());
+        assertTrue(statistics.getMaxDepth() <= maxHeight(2.0, 1000));
+    }
+
+    @Test
+    void testStatisticsAreRegisteredAsMBean() throws Exception {
+        BinaryTreeSet<Integer> set = new BinaryTreeSet<>();
+        TreeStatistics statistics = set.enableStatistics();
+        ObjectName name = statistics.register("test-set");
+        try {
+            set.add(20);
+            set.add(10);
+            assertTrue(set.contains(10));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(3L, server.getAttribute(name, "OperationCount"));
+            assertEquals(1, server.getAttribute(name, "MaxDepth"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, statistics.getOperationCount());
+        } finally {
+            statistics.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
     // TODO: add tests for toString — for empty tree and tree with elements
 
 
+    private static int ancestorsLengthOf(BinaryTreeSet<?> set) throws ReflectiveOperationException {
+        Field field = BinaryTreeSet.class.getDeclaredField("ancestors");
+        field.setAccessible(true);
+        return ((Object[]) field.get(set)).length;
+    }
+
+    private int maxHeight(double heightFactor, int size) {
+        return (int) (heightFactor * Math.log(size) / Math.log(2.0)) + 2;
+    }
+
+    private <E> int heightOf(BinaryTreeSet<E> set) {
+        try {
+            Field rootNodeField = set.getClass().getDeclaredField("root");
+            rootNodeField.setAccessible(true);
+            Object rootNode = rootNodeField.get(set);
+            if (rootNode == null) {
+                return 0;
+            }
+            Field left = rootNode.getClass().getDeclaredField("left");
+            Field right = rootNode.getClass().getDeclaredField("right");
+            left.setAccessible(true);
+            right.setAccessible(true);
+            return heightOf(rootNode, left, right);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int heightOf(Object node, Field left, Field right) throws IllegalAccessException {
+        if (node == null) {
+            return 0;
+        }
+        return Math.max(heightOf(left.get(node), left, right), heightOf(right.get(node), left, right)) + 1;
+    }
+
     private <E> String toPrettyString(BinaryTreeSet<E> set) {
         try {
             Field rootNodeField = set.getClass().getDeclaredField("root");
@@ -259,4 +773,19 @@ class BinaryTreeSetTest {
         LEFT_CHILD,
         RIGHT_CHILD
     }
-}
\ No newline at end of file
+
+    @Override
+    BinaryTreeSet<Integer> createSet(Comparator<Integer> comparator) {
+        return new BinaryTreeSet<>(comparator);
+    }
+
+    @Override
+    boolean add(BinaryTreeSet<Integer> set, Integer value) {
+        return set.add(value);
+    }
+
+    @Override
+    Stream<Integer> stream(BinaryTreeSet<Integer> set, boolean isParallel) {
+        return isParallel ? set.parallelStream() : set.stream();
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircularDynamicArrayTest {
+    @Test
+    void testIsEmptyIfJustCreated() {
+        CircularDynamicArray<Integer> array = new CircularDynamicArray<>();
+        assertTrue(array.isEmpty());
+        assertEquals(0, array.size());
+        assertEquals(10, array.capacity());
+        assertThrows(NoSuchElementException.class, array::getFirst);
+        assertThrows(NoSuchElementException.class, array::removeFirst);
+        assertThrows(NoSuchElementException.class, array::removeLast);
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(0));
+    }
+
+    @Test
+    void testCreatingWithNegativeCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new CircularDynamicArray<Integer>(-1));
+    }
+
+    @Test
+    void testAddingToBothEnds() {
+        CircularDynamicArray<Integer> array = new CircularDynamicArray<>(0);
+        for (int i = 0; i < 5; i++) {
+            array.addLast(i);
+            array.addFirst(-i - 1);
+        }
+        assertArrayEquals(new Integer[]{-5, -4, -3, -2, -1, 0, 1, 2, 3, 4}, array.toArray());
+        assertEquals(-5, array.getFirst());
+        assertEquals(4, array.getLast());
+        assertEquals(-3, array.get(2));
+        assertEquals(-3, array.set(2, 30));
+        assertEquals(30, array.get(2));
+    }
+
+    @Test
+    void testQueueDoesNotReallocateWhenSizeIsStable() {
+        CircularDynamicArray<Integer> array = new CircularDynamicArray<>(16);
+        for (int i = 0; i < 12; i++) {
+            array.addLast(i);
+        }
+        for (int i = 12; i < 10_000; i++) {
+            assertEquals(i - 12, array.removeFirst());
+            array.addLast(i);
+            assertEquals(16, array.capacity());
+        }
+        assertEquals(9988, array.getFirst());
+        assertEquals(9999, array.getLast());
+    }
+
+    @Test
+    void testRandomOperationsAgainstArrayList() {
+        CircularDynamicArray<Integer> array = new CircularDynamicArray<>(1);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(22);
+        for (int i = 0; i < 20_000; i++) {
+            int operation = random.nextInt(7);
+            if (expected.isEmpty() || operation == 0) {
+                array.addLast(i);
+                expected.add(i);
+            } else if (operation == 1) {
+                array.addFirst(i);
+                expected.add(0, i);
+            } else if (operation == 2) {
+                int index = random.nextInt(expected.size());
+                array.add(index, i);
+                expected.add(index, i);
+            } else if (operation == 3) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), array.remove(index));
+            } else if (operation == 4) {
+                assertEquals(expected.remove(0), array.removeFirst());
+            } else if (operation == 5) {
+                assertEquals(expected.remove(expected.size() - 1), array.removeLast());
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.get(index), array.get(index));
+            }
+            assertEquals(expected.size(), array.size());
+        }
+        assertArrayEquals(expected.toArray(), array.toArray());
+    }
+
+    @Test
+    void testInsertingAndRemovingAtEveryPositionAndHead() {
+        for (int rotation = 0; rotation < 8; rotation++) {
+            for (int index = 0; index < 7; index++) {
+                CircularDynamicArray<Integer> array = new CircularDynamicArray<>(8, GrowthPolicy.neverShrink());
+                List<Integer> expected = new ArrayList<>();
+                // moves the head, so the shifted ranges wrap at every possible place
+                for (int i = 0; i < rotation; i++) {
+                    array.addLast(-1);
+                    array.removeFirst();
+                }
+                for (int i = 0; i < 7; i++) {
+                    array.addLast(i);
+                    expected.add(i);
+                }
+                array.add(index, 100);
+                expected.add(index, 100);
+                assertEquals(8, array.capacity());
+                assertArrayEquals(expected.toArray(), array.toArray());
+                for (int i = 0; i < 8; i++) {
+                    int position = (index + i) % expected.size();
+                    assertEquals(expected.remove(position), array.remove(position));
+                    assertArrayEquals(expected.toArray(), array.toArray());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCapacityFollowsGrowthPolicy() {
+        CircularDynamicArray<Integer> array = new CircularDynamicArray<>(1, GrowthPolicy.neverShrink());
+        for (int i = 0; i < 100; i++) {
+            array.addFirst(i);
+        }
+        int capacity = array.capacity();
+        while (!array.isEmpty()) {
+            array.removeLast();
+        }
+        assertEquals(capacity, array.capacity());
+        array.clear();
+        assertEquals(capacity, array.capacity());
+        array.addLast(1);
+        array.addFirst(0);
+        array.trimToSize();
+        assertEquals(2, array.capacity());
+        assertArrayEquals(new Integer[]{0, 1}, array.toArray());
+        array.ensureCapacity(50);
+        assertEquals(50, array.capacity());
+    }
+
+    @Test
+    void testClearingResetsToInitialCapacityByDefault() {
+        CircularDynamicArray<Integer> array = new CircularDynamicArray<>(4);
+        for (int i = 0; i < 100; i++) {
+            array.addFirst(i);
+        }
+        array.clear();
+        assertTrue(array.isEmpty());
+        assertEquals(4, array.capacity());
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentAppendOnlyArrayTest {
+    @Test
+    void testIsEmptyIfJustCreated() {
+        ConcurrentAppendOnlyArray<Integer> array = new ConcurrentAppendOnlyArray<>();
+        assertTrue(array.isEmpty());
+        assertEquals(0, array.size());
+        assertFalse(array.iterator().hasNext());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(0));
+    }
+
+    @Test
+    void testAppendingNull() {
+        ConcurrentAppendOnlyArray<Integer> array = new ConcurrentAppendOnlyArray<>();
+        assertThrows(NullPointerException.class, () -> array.add(null));
+    }
+
+    @Test
+    void testAppendingAcrossSegments() {
+        ConcurrentAppendOnlyArray<Integer> array = new ConcurrentAppendOnlyArray<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, array.add(i));
+        }
+        assertEquals(10_000, array.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, array.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(10_000));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(-1));
+    }
+
+    @Test
+    void testIteratorSeesPrefixAtCreation() {
+        ConcurrentAppendOnlyArray<Integer> array = new ConcurrentAppendOnlyArray<>();
+        array.add(1);
+        array.add(2);
+        List<Integer> values = new ArrayList<>();
+        for (Integer value : array) {
+            values.add(value);
+            if (array.size() < 10) {
+                array.add(value + 10);
+            }
+        }
+        assertEquals(2, values.size());
+        assertEquals(4, array.size());
+    }
+
+    @Test
+    void testAppendingFromManyThreads() throws InterruptedException {
+        int threadCount = 8;
+        int perThread = 50_000;
+        ConcurrentAppendOnlyArray<Integer> array = new ConcurrentAppendOnlyArray<>();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int base = t * perThread;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        array.add(base + i);
+                        // the own element may still wait behind a slot of another thread
+                        int size = array.size();
+                        if (size > 0) {
+                            assertNotNull(array.get(size - 1));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            fail(failure.get());
+        }
+        assertEquals(threadCount * perThread, array.size());
+        BitSet seen = new BitSet();
+        for (Integer value : array) {
+            assertFalse(seen.get(value));
+            seen.set(value);
+        }
+        assertEquals(threadCount * perThread, seen.cardinality());
+    }
+}
@@ -0,0 +1,242 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentBTreeSetTest {
+    @Test
+    void testConstructingWhenNodeCapacityIsTooSmall() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBTreeSet<Integer>(2, null));
+    }
+
+    @Test
+    void testIsEmptyIfJustCreated() {
+        ConcurrentBTreeSet<Integer> set = new ConcurrentBTreeSet<>();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertNull(set.findMin());
+        assertNull(set.findMax());
+        assertFalse(set.contains(10));
+    }
+
+    @Test
+    void testConcurrentBTreeSetWithComparator() {
+        ConcurrentBTreeSet<Integer> set = new ConcurrentBTreeSet<>(3, Comparator.reverseOrder());
+        List<Integer> values = Arrays.asList(10, 20, 30, 40, 50);
+        set.addAll(values);
+        int index = values.size() - 1;
+        for (Integer value : set) {
+            assertEquals(values.get(index--), value);
+        }
+        assertEquals(50, set.findMin());
+        assertEquals(10, set.findMax());
+    }
+
+    @Test
+    void testAddRemoveAndContains() {
+        ConcurrentBTreeSet<Integer> set = new ConcurrentBTreeSet<>(3, null);
+        assertFalse(set.add(null));
+        assertTrue(set.addAll(Arrays.asList(10, 20, 30)));
+        assertFalse(set.add(20));
+        assertTrue(set.containsAll(Arrays.asList(10, 20, 30)));
+        assertTrue(set.removeAll(Arrays.asList(20, 40)));
+        assertFalse(set.remove(20));
+        assertEquals(2, set.size());
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void testRandomAddsAndRemovesAgainstTreeSet() {
+        ConcurrentBTreeSet<Integer> set = new ConcurrentBTreeSet<>(4, null);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            Integer value = random.nextInt(2_000);
+            if (random.nextInt(3) != 0) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+        assertEquals(expected.size(), set.size());
+        assertIterableEquals(expected, set);
+        assertEquals(expected.first(), set.findMin());
+        assertEquals(expected.last(), set.findMax());
+    }
+
+    @Test
+    void testIteratorRemove() {
+        ConcurrentBTreeSet<Integer> set = new ConcurrentBTreeSet<>(3, null);
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        Iterator<Integer> iterator = set.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(50, set.size());
+        for (Integer value : set) {
+            assertEquals(1, value % 2);
+        }
+    }
+
+    @Test
+    void testFindingMinAndMaxWhenLeavesAreRemoved() {
+        ConcurrentBTreeSet<Integer> set = new ConcurrentBTreeSet<>(3, null);
+        for (int i = 0; i < 1_000; i++) {
+            set.add(i);
+        }
+        for (int i = 999; i >= 10; i--) {
+            assertTrue(set.remove(i));
+            assertEquals(i - 1, set.findMax());
+        }
+        for (int i = 0; i < 9; i++) {
+            assertTrue(set.remove(i));
+            assertEquals(i + 1, set.findMin());
+        }
+        assertFalse(set.isEmpty());
+        assertTrue(set.remove(9));
+        assertTrue(set.isEmpty());
+        assertNull(set.findMin());
+        assertNull(set.findMax());
+        assertTrue(set.add(5));
+        assertEquals(5, set.findMax());
+        assertIterableEquals(Collections.singletonList(5), set);
+    }
+
+    @Test
+    void testClearingWhileOtherThreadsAdd() throws InterruptedException {
+        int writerCount = 4;
+        int perWriter = 20_000;
+        ConcurrentBTreeSet<Integer> set = new ConcurrentBTreeSet<>(8, null);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < writerCount; t++) {
+            int base = t * perWriter;
+            writers.add(new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < perWriter; i++) {
+                    set.add(base + i);
+                }
+            }));
+        }
+        Thread cleaner = new Thread(() -> {
+            awaitQuietly(start);
+            while (isWriting.get()) {
+                set.clear();
+            }
+        });
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        cleaner.start();
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        isWriting.set(false);
+        cleaner.join();
+        int count = 0;
+        for (Integer ignored : set) {
+            count++;
+        }
+        assertEquals(count, set.size());
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() throws InterruptedException {
+        int writerCount = 4;
+        int perWriter = 20_000;
+        ConcurrentBTreeSet<Integer> set = new ConcurrentBTreeSet<>(8, null);
+        // values below zero are always present, readers must never miss them
+        for (int i = 1; i <= 1_000; i++) {
+            set.add(-i);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        AtomicBoolean hasReaderFailed = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < writerCount; t++) {
+            int base = t * perWriter;
+            threads.add(new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < perWriter; i++) {
+                    set.add(base + i);
+                }
+                for (int i = 0; i < perWriter; i += 2) {
+                    set.remove(base + i);
+                }
+                // empties whole leaves, so they are unlinked while others read
+                for (int i = 0; i < perWriter; i++) {
+                    set.add(1_000_000 + base + i);
+                }
+                for (int i = 0; i < perWriter; i++) {
+                    set.remove(1_000_000 + base + i);
+                }
+            }));
+        }
+        for (int t = 0; t < 2; t++) {
+            threads.add(new Thread(() -> {
+                awaitQuietly(start);
+                Random random = new Random();
+                while (isWriting.get()) {
+                    if (!set.contains(-1 - random.nextInt(1_000))) {
+                        hasReaderFailed.set(true);
+                    }
+                    Integer previous = null;
+                    int count = 0;
+                    for (Integer value : set) {
+                        if (previous != null && previous >= value) {
+                            hasReaderFailed.set(true);
+                        }
+                        previous = value;
+                        if (++count == 2_000) {
+                            break;
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (int t = 0; t < writerCount; t++) {
+            threads.get(t).join();
+        }
+        isWriting.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(hasReaderFailed.get());
+        assertEquals(1_000 + writerCount * perWriter / 2, set.size());
+        for (int i = 0; i < writerCount * perWriter; i++) {
+            assertEquals(i % 2 == 1, set.contains(i));
+            assertFalse(set.contains(1_000_000 + i));
+        }
+        assertEquals(writerCount * perWriter - 1, set.findMax());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,8 +2,15 @@ package io.github.akuniutka.structure;
 
 import org.junit.jupiter.api.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -1180,6 +1187,53 @@ public class DynamicArrayTest {
         assertArrayEquals(TEST_ARRAY, array.toArray());
     }
 
+    @Test
+    void testInsertingElementsFromItselfWhenIndexIsZero() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray(0, 2));
+        assertTrue(array.addAll(0, array));
+        assertArrayEquals(new Dummy[]{TEST_ARRAY[0], TEST_ARRAY[1], TEST_ARRAY[0], TEST_ARRAY[1]}, array.toArray());
+    }
+
+    @Test
+    void testInsertingElementsFromItselfWhenIndexWithinBounds() {
+        DynamicArray<Dummy> array = new DynamicArray<>(10);
+        array.addAll(copyOfTestArray(0, 3));
+        assertTrue(array.addAll(1, array));
+        assertArrayEquals(new Dummy[]{TEST_ARRAY[0], TEST_ARRAY[0], TEST_ARRAY[1], TEST_ARRAY[2], TEST_ARRAY[1],
+                TEST_ARRAY[2]}, array.toArray());
+    }
+
+    @Test
+    void testAppendingElementsFromItself() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        assertTrue(array.addAll(array));
+        assertEquals(TEST_ARRAY.length * 2, array.size());
+        for (int i = 0; i < TEST_ARRAY.length; i++) {
+            assertSame(TEST_ARRAY[i], array.get(i));
+            assertSame(TEST_ARRAY[i], array.get(TEST_ARRAY.length + i));
+        }
+    }
+
+    @Test
+    void testInsertingLargeBatchWithinBounds() {
+        int size = 10_000;
+        int batchSize = 5_000;
+        Integer[] initial = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            initial[i] = i < size / 2 ? i : i + batchSize;
+        }
+        Integer[] batch = new Integer[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = size / 2 + i;
+        }
+        DynamicArray<Integer> array = new DynamicArray<>(initial);
+        assertTrue(array.addAll(size / 2, batch));
+        assertEquals(size + batchSize, array.size());
+        for (int i = 0; i < size + batchSize; i++) {
+            assertEquals(i, array.get(i));
+        }
+    }
+
     //
     // Tests for retrieving an element
     //
@@ -1897,6 +1951,353 @@ public class DynamicArrayTest {
         assertArrayEquals(TEST_ARRAY, array.toArray());
     }
 
+    @Test
+    void testParallelSortingWhenEmptyAndComparatorIsNull() {
+        DynamicArray<Dummy> array = new DynamicArray<>();
+        assertDoesNotThrow(() -> array.parallelSort(null));
+        assertTrue(array.isEmpty());
+        assertArrayEquals(EMPTY_ARRAY, array.toArray());
+    }
+
+    @Test
+    void testParallelSortingWhenComparatorIsNull() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        assertDoesNotThrow(() -> array.parallelSort(null));
+        assertEquals(TEST_ARRAY.length, array.size());
+        for (int i = 0; i < TEST_ARRAY.length; i++) {
+            assertSame(TEST_ARRAY[TEST_ARRAY.length - 1 - i], array.get(i));
+        }
+    }
+
+    @Test
+    void testParallelSortingOfLargeArrayIsStable() {
+        int n = 1_000_000;
+        Dummy[] dummies = new Dummy[n];
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            dummies[i] = new Dummy(random.nextInt(1_000));
+        }
+        DynamicArray<Dummy> array = new DynamicArray<>(dummies);
+        Dummy[] expected = Arrays.copyOf(dummies, n);
+        Arrays.sort(expected, Comparator.comparingInt(Dummy::getValue).reversed());
+        array.parallelSort(Comparator.comparingInt(Dummy::getValue).reversed());
+        for (int i = 0; i < n; i++) {
+            assertSame(expected[i], array.get(i));
+        }
+    }
+
+    //
+    // Tests for streaming elements
+    //
+
+    @Test
+    void testStreamingWhenEmpty() {
+        DynamicArray<Dummy> array = new DynamicArray<>();
+        assertEquals(0, array.stream().count());
+        assertEquals(0, array.parallelStream().count());
+    }
+
+    @Test
+    void testStreamingKeepsOrder() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        assertArrayEquals(TEST_ARRAY, array.stream().toArray());
+        assertArrayEquals(TEST_ARRAY, array.parallelStream().toArray());
+    }
+
+    @Test
+    void testSpliteratorIsSizedAndSplitsIndexRanges() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        Spliterator<Dummy> spliterator = array.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(TEST_ARRAY.length, spliterator.getExactSizeIfKnown());
+        Spliterator<Dummy> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(TEST_ARRAY.length, prefix.estimateSize() + spliterator.estimateSize());
+        List<Dummy> elements = new ArrayList<>();
+        prefix.forEachRemaining(elements::add);
+        while (spliterator.tryAdvance(elements::add)) {
+            assertTrue(elements.size() <= TEST_ARRAY.length);
+        }
+        assertArrayEquals(TEST_ARRAY, elements.toArray());
+    }
+
+    @Test
+    void testParallelStreamOverLargeArray() {
+        DynamicArray<Integer> array = new DynamicArray<>();
+        int n = 1_000_000;
+        for (int i = 0; i < n; i++) {
+            array.add(i);
+        }
+        assertEquals((long) n * (n - 1) / 2, array.parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(n - 1, array.parallelStream().reduce(Math::max).orElse(-1));
+    }
+
+    //
+    // Tests for removing elements in bulk
+    //
+
+    @Test
+    void testRemovingRange() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        array.removeRange(1, 3);
+        assertArrayEquals(new Dummy[]{TEST_ARRAY[0], TEST_ARRAY[3], TEST_ARRAY[4]}, array.toArray());
+        array.removeRange(1, 1);
+        assertEquals(3, array.size());
+        array.removeRange(0, 3);
+        assertTrue(array.isEmpty());
+    }
+
+    @Test
+    void testRemovingRangeWhenIndexesAreInvalid() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.removeRange(-1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.removeRange(0, TEST_ARRAY.length + 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.removeRange(3, 2));
+        assertArrayEquals(TEST_ARRAY, array.toArray());
+    }
+
+    @Test
+    void testRemovingIf() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        assertTrue(array.removeIf(dummy -> dummy.value % 2 == 0));
+        assertArrayEquals(new Dummy[]{TEST_ARRAY[0], TEST_ARRAY[2], TEST_ARRAY[4]}, array.toArray());
+        assertFalse(array.removeIf(dummy -> dummy.value > 10));
+        assertEquals(3, array.size());
+        assertThrows(NullPointerException.class, () -> array.removeIf(null));
+    }
+
+    @Test
+    void testRetainingIf() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        assertTrue(array.retainIf(dummy -> dummy.value < 3));
+        assertArrayEquals(new Dummy[]{TEST_ARRAY[3], TEST_ARRAY[4]}, array.toArray());
+        assertFalse(array.retainIf(dummy -> true));
+    }
+
+    @Test
+    void testRemovingAllValues() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        array.add(TEST_ARRAY[1]);
+        assertTrue(array.removeAll(Arrays.asList(TEST_ARRAY[1], TEST_ARRAY[4])));
+        assertArrayEquals(new Dummy[]{TEST_ARRAY[0], TEST_ARRAY[2], TEST_ARRAY[3]}, array.toArray());
+        assertFalse(array.removeAll(Arrays.asList(TEST_ARRAY[1], TEST_ARRAY[4])));
+    }
+
+    @Test
+    void testRemovingIfKeepsUntestedElementsWhenPredicateThrows() {
+        DynamicArray<Dummy> array = new DynamicArray<>(copyOfTestArray());
+        assertThrows(IllegalStateException.class, () -> array.removeIf(dummy -> {
+            if (dummy.value == 2) {
+                throw new IllegalStateException();
+            }
+            return dummy.value == 4;
+        }));
+        assertArrayEquals(new Dummy[]{TEST_ARRAY[0], TEST_ARRAY[2], TEST_ARRAY[3], TEST_ARRAY[4]}, array.toArray());
+    }
+
+    @Test
+    void testRemovingInBulkShrinksCapacityOnce() {
+        DynamicArray<Integer> array = new DynamicArray<>(1);
+        for (int i = 0; i < 1024; i++) {
+            array.add(i);
+        }
+        assertTrue(array.removeIf(value -> value >= 10));
+        assertEquals(10, array.size());
+        assertEquals(20, array.capacity());
+        array.removeRange(0, 10);
+        assertEquals(1, array.capacity());
+    }
+
+    //
+    // Tests for adjusting capacity
+    //
+
+    @Test
+    void testCapacityDoublesByDefault() {
+        DynamicArray<Dummy> array = new DynamicArray<>(4);
+        for (int i = 0; i < 5; i++) {
+            array.add(new Dummy(i));
+        }
+        assertEquals(8, array.capacity());
+    }
+
+    @Test
+    void testCapacityGrowsByPolicy() {
+        GrowthPolicy policy = GrowthPolicy.defaultPolicy().withGrowthFactor(1.5).withMaxGrowthStep(5);
+        DynamicArray<Dummy> array = new DynamicArray<>(4, policy);
+        for (int i = 0; i < 5; i++) {
+            array.add(new Dummy(i));
+        }
+        assertEquals(6, array.capacity());
+        for (int i = 0; i < 5; i++) {
+            array.add(new Dummy(i));
+        }
+        assertEquals(14, array.capacity());
+    }
+
+    @Test
+    void testCapacityDoesNotThrashAroundShrinkThreshold() {
+        DynamicArray<Dummy> array = new DynamicArray<>(1);
+        for (int i = 0; i < 64; i++) {
+            array.add(new Dummy(i));
+        }
+        while (array.size() > 16) {
+            array.remove(array.size() - 1);
+        }
+        assertEquals(32, array.capacity());
+        for (int i = 0; i < 100; i++) {
+            array.add(new Dummy(i));
+            array.remove(array.size() - 1);
+            array.remove(array.size() - 1);
+            array.add(new Dummy(i));
+            assertEquals(32, array.capacity());
+        }
+    }
+
+    @Test
+    void testCapacityShrinksByPolicyHysteresis() {
+        GrowthPolicy policy = GrowthPolicy.defaultPolicy().withShrinking(8, 3.0);
+        DynamicArray<Dummy> array = new DynamicArray<>(1, policy);
+        for (int i = 0; i < 64; i++) {
+            array.add(new Dummy(i));
+        }
+        while (array.size() > 9) {
+            array.remove(array.size() - 1);
+        }
+        assertEquals(64, array.capacity());
+        array.remove(array.size() - 1);
+        assertEquals(24, array.capacity());
+    }
+
+    @Test
+    void testClearingKeepsCapacityWhenNeverShrinking() {
+        DynamicArray<Dummy> array = new DynamicArray<>(1, GrowthPolicy.neverShrink());
+        array.addAll(copyOfTestArray());
+        int capacity = array.capacity();
+        array.remove(0);
+        array.clear();
+        assertEquals(capacity, array.capacity());
+        assertTrue(array.isEmpty());
+        array.addAll(copyOfTestArray());
+        assertArrayEquals(TEST_ARRAY, array.toArray());
+        assertEquals(capacity, array.capacity());
+    }
+
+    @Test
+    void testClearingResetsToInitialCapacityByDefault() {
+        DynamicArray<Dummy> array = new DynamicArray<>(2);
+        array.addAll(copyOfTestArray());
+        array.clear();
+        assertEquals(2, array.capacity());
+    }
+
+    @Test
+    void testEnsureCapacityAndTrimToSize() {
+        DynamicArray<Dummy> array = new DynamicArray<>(10);
+        array.ensureCapacity(5);
+        assertEquals(10, array.capacity());
+        array.ensureCapacity(100);
+        assertEquals(100, array.capacity());
+        array.addAll(copyOfTestArray());
+        array.trimToSize();
+        assertEquals(TEST_ARRAY.length, array.capacity());
+        assertArrayEquals(TEST_ARRAY, array.toArray());
+        array.add(new Dummy(0));
+        assertEquals(TEST_ARRAY.length * 2, array.capacity());
+    }
+
+    @Test
+    void testSettingGrowthPolicy() {
+        DynamicArray<Dummy> array = new DynamicArray<>(1);
+        assertSame(GrowthPolicy.defaultPolicy(), array.growthPolicy());
+        array.setGrowthPolicy(GrowthPolicy.neverShrink());
+        assertFalse(array.growthPolicy().isShrinking());
+        assertThrows(NullPointerException.class, () -> array.setGrowthPolicy(null));
+        assertThrows(NullPointerException.class, () -> new DynamicArray<Dummy>(1, null));
+    }
+
+    //
+    // Tests for collecting statistics
+    //
+
+    @Test
+    void testStatisticsAreDisabledByDefault() {
+        DynamicArray<Dummy> array = new DynamicArray<>();
+        assertNull(array.statistics());
+        DynamicArrayStatistics statistics = array.enableStatistics();
+        assertSame(statistics, array.enableStatistics());
+        assertSame(statistics, array.statistics());
+        array.disableStatistics();
+        assertNull(array.statistics());
+    }
+
+    @Test
+    void testStatisticsCountResizesAndShifts() {
+        DynamicArray<Dummy> array = new DynamicArray<>(2);
+        DynamicArrayStatistics statistics = array.enableStatistics();
+        array.addAll(copyOfTestArray());
+        assertEquals(1, statistics.getResizeCount());
+        assertEquals(0, statistics.getCopiedElementCount());
+        array.add(new Dummy(6));
+        assertEquals(2, statistics.getResizeCount());
+        assertEquals(5, statistics.getCopiedElementCount());
+        array.add(0, new Dummy(7));
+        array.remove(1);
+        assertEquals(2, statistics.getShiftCount());
+        assertEquals(11, statistics.getShiftedElementCount());
+        assertEquals(6, statistics.getMaxShiftLength());
+        assertEquals(5.5, statistics.getAverageShiftLength());
+        DynamicArrayStatisticsSnapshot snapshot = statistics.snapshot();
+        statistics.reset();
+        assertEquals(0, statistics.getResizeCount());
+        assertEquals(0, statistics.getShiftCount());
+        assertEquals(2, snapshot.getResizeCount());
+        assertEquals(11, snapshot.getShiftedElementCount());
+    }
+
+    @Test
+    void testStatisticsCountOnlyMovedElementsInBulkRemoval() {
+        DynamicArray<Dummy> array = new DynamicArray<>(10);
+        array.addAll(copyOfTestArray());
+        DynamicArrayStatistics statistics = array.enableStatistics();
+        array.removeIf(dummy -> dummy.value == 4);
+        assertEquals(1, statistics.getShiftCount());
+        assertEquals(3, statistics.getShiftedElementCount());
+        array.removeIf(dummy -> dummy.value == 1);
+        assertEquals(1, statistics.getShiftCount());
+        array.removeIf(dummy -> dummy.value == 100);
+        assertEquals(1, statistics.getShiftCount());
+        array.clear();
+        array.addAll(copyOfTestArray());
+        statistics.reset();
+        assertThrows(IllegalStateException.class, () -> array.removeIf(dummy -> {
+            if (dummy.value == 2) {
+                throw new IllegalStateException();
+            }
+            return dummy.value == 5;
+        }));
+        // 4 and 3 before the failure, then 2 and 1 copied as they are
+        assertEquals(1, statistics.getShiftCount());
+        assertEquals(4, statistics.getShiftedElementCount());
+    }
+
+    @Test
+    void testStatisticsAreRegisteredAsMBean() throws Exception {
+        DynamicArray<Dummy> array = new DynamicArray<>(1);
+        DynamicArrayStatistics statistics = array.enableStatistics();
+        ObjectName name = statistics.register("test-array");
+        try {
+            array.add(new Dummy(1));
+            array.add(new Dummy(2));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "ResizeCount"));
+            assertEquals(1L, server.getAttribute(name, "CopiedElementCount"));
+        } finally {
+            statistics.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
     //
     // Supplementary methods
     //
@@ -0,0 +1,66 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrowthPolicyTest {
+    @Test
+    void testDefaultPolicy() {
+        GrowthPolicy policy = GrowthPolicy.defaultPolicy();
+        assertEquals(2.0, policy.growthFactor());
+        assertEquals(Integer.MAX_VALUE, policy.maxGrowthStep());
+        assertEquals(4, policy.shrinkThreshold());
+        assertEquals(2.0, policy.shrinkHysteresis());
+        assertTrue(policy.isShrinking());
+    }
+
+    @Test
+    void testGrowFitsAtLeastRequiredCapacity() {
+        GrowthPolicy policy = GrowthPolicy.defaultPolicy();
+        assertEquals(1, policy.grow(0, 1));
+        assertEquals(20, policy.grow(10, 11));
+        assertEquals(50, policy.grow(10, 50));
+    }
+
+    @Test
+    void testGrowIsLimitedByMaxStep() {
+        GrowthPolicy policy = GrowthPolicy.defaultPolicy().withMaxGrowthStep(100);
+        assertEquals(1100, policy.grow(1000, 1001));
+        assertEquals(2000, policy.grow(1000, 2000));
+    }
+
+    @Test
+    void testGrowNearMaximumCapacity() {
+        GrowthPolicy policy = GrowthPolicy.defaultPolicy();
+        assertEquals(Integer.MAX_VALUE - 8, policy.grow(Integer.MAX_VALUE / 2 + 1, Integer.MAX_VALUE / 2 + 2));
+        assertThrows(OutOfMemoryError.class, () -> policy.grow(Integer.MAX_VALUE - 8, Integer.MAX_VALUE - 7));
+    }
+
+    @Test
+    void testShrink() {
+        GrowthPolicy policy = GrowthPolicy.defaultPolicy();
+        assertEquals(100, policy.shrink(100, 26, 10));
+        assertEquals(50, policy.shrink(100, 25, 10));
+        assertEquals(10, policy.shrink(100, 0, 10));
+        assertEquals(100, GrowthPolicy.neverShrink().shrink(100, 0, 10));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        GrowthPolicy policy = GrowthPolicy.defaultPolicy();
+        assertThrows(IllegalArgumentException.class, () -> policy.withGrowthFactor(1.0));
+        assertThrows(IllegalArgumentException.class, () -> policy.withGrowthFactor(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> policy.withMaxGrowthStep(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.withShrinking(2, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> policy.withShrinking(4, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> policy.withShrinking(4, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> policy.withShrinking(0, 1.0));
+        // the pair is valid whatever the previous settings were
+        GrowthPolicy shrinking = GrowthPolicy.neverShrink().withShrinking(16, 8.0);
+        assertTrue(shrinking.isShrinking());
+        assertEquals(16, shrinking.shrinkThreshold());
+        assertEquals(8.0, shrinking.shrinkHysteresis());
+        assertEquals(3, policy.withShrinking(3, 1.0).shrinkThreshold());
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongDynamicArrayTest {
+    private static final long[] NULL_FIXED_ARRAY = null;
+    private static final long[] EMPTY_ARRAY = new long[0];
+    private static final long[] TEST_ARRAY = new long[]{5, 4, 3, 2, 1};
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    void testConstructingFromNullFixedArray() {
+        assertThrows(NullPointerException.class, () -> new LongDynamicArray(NULL_FIXED_ARRAY));
+    }
+
+    @Test
+    void testConstructingWhenInitialCapacityIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new LongDynamicArray(-1));
+    }
+
+    @Test
+    void testConstructingWithoutParameters() {
+        LongDynamicArray array = new LongDynamicArray();
+        assertEquals(0, array.size());
+        assertTrue(array.isEmpty());
+        assertArrayEquals(EMPTY_ARRAY, array.toArray());
+    }
+
+    @Test
+    void testConstructingFromFixedArray() {
+        LongDynamicArray array = new LongDynamicArray(TEST_ARRAY.clone());
+        assertEquals(TEST_ARRAY.length, array.size());
+        assertArrayEquals(TEST_ARRAY, array.toArray());
+    }
+
+    @Test
+    void testConstructingFromDynamicArray() {
+        LongDynamicArray array = new LongDynamicArray(new LongDynamicArray(TEST_ARRAY.clone()));
+        assertEquals(TEST_ARRAY.length, array.size());
+        assertArrayEquals(TEST_ARRAY, array.toArray());
+    }
+
+    @Test
+    void testAppendingElementsWhenCapacityDoesNotSuffice() {
+        LongDynamicArray array = new LongDynamicArray(0);
+        for (long element : TEST_ARRAY) {
+            array.add(element);
+        }
+        assertTrue(array.addAll(TEST_ARRAY));
+        assertTrue(array.addAll(new LongDynamicArray(TEST_ARRAY)));
+        assertFalse(array.addAll(EMPTY_ARRAY));
+        assertEquals(TEST_ARRAY.length * 3, array.size());
+        for (int i = 0; i < array.size(); i++) {
+            assertEquals(TEST_ARRAY[i % TEST_ARRAY.length], array.get(i));
+        }
+    }
+
+    @Test
+    void testInsertingElements() {
+        LongDynamicArray array = new LongDynamicArray(new long[]{5, 1});
+        array.add(1, 2);
+        assertTrue(array.addAll(1, new long[]{4, 3}));
+        assertArrayEquals(TEST_ARRAY, array.toArray());
+        assertTrue(array.addAll(0, array));
+        assertEquals(TEST_ARRAY.length * 2, array.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.add(array.size(), 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.addAll(-1, TEST_ARRAY));
+    }
+
+    @Test
+    void testGettingAndReplacingElements() {
+        LongDynamicArray array = new LongDynamicArray(TEST_ARRAY.clone());
+        assertEquals(3, array.set(2, 7));
+        assertEquals(7, array.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(TEST_ARRAY.length));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.set(-1, 0));
+    }
+
+    @Test
+    void testRemovingElements() {
+        LongDynamicArray array = new LongDynamicArray(0);
+        for (int i = 0; i < 100; i++) {
+            array.add(i);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i * 2, array.remove(i));
+        }
+        assertEquals(50, array.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i * 2 + 1, array.get(i));
+        }
+        array.clear();
+        assertTrue(array.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.remove(0));
+    }
+
+    @Test
+    void testSorting() {
+        LongDynamicArray array = new LongDynamicArray(20);
+        array.addAll(TEST_ARRAY);
+        array.sort();
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5}, array.toArray());
+    }
+}
@@ -0,0 +1,214 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedDynamicArrayTest {
+    private static final PointCodec CODEC = new PointCodec();
+    // three records per chunk
+    private static final int SMALL_CHUNK_SIZE = 40;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testConstructingWhenChunkIsSmallerThanRecord() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MappedDynamicArray<>(directory.resolve("points"), CODEC, 11));
+    }
+
+    @Test
+    void testCreatingEmptyArray() throws IOException {
+        try (MappedDynamicArray<Point> array = new MappedDynamicArray<>(directory.resolve("points"), CODEC)) {
+            assertEquals(0, array.size());
+            assertTrue(array.isEmpty());
+            assertEquals(12, array.recordSize());
+            assertThrows(IndexOutOfBoundsException.class, () -> array.get(0));
+        }
+    }
+
+    @Test
+    void testAppendingAndRetrievingRecordsAcrossChunks() throws IOException {
+        Path file = directory.resolve("points");
+        try (MappedDynamicArray<Point> array = new MappedDynamicArray<>(file, CODEC, SMALL_CHUNK_SIZE)) {
+            for (int i = 0; i < 100; i++) {
+                array.add(new Point(i, -i * 10L));
+            }
+            assertTrue(array.addAll(new Point[]{new Point(100, -1000L), new Point(101, -1010L)}));
+            assertFalse(array.addAll(new Point[0]));
+            array.set(50, new Point(-50, 50L));
+            assertEquals(102, array.size());
+            for (int i = 0; i < array.size(); i++) {
+                assertEquals(i == 50 ? new Point(-50, 50L) : new Point(i, -i * 10L), array.get(i));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> array.get(102));
+            assertThrows(IndexOutOfBoundsException.class, () -> array.set(-1, new Point(0, 0L)));
+        }
+        assertTrue(Files.size(file) >= 16 + 102 * 12);
+    }
+
+    @Test
+    void testReopeningKeepsRecords() throws IOException {
+        Path file = directory.resolve("points");
+        try (MappedDynamicArray<Point> array = new MappedDynamicArray<>(file, CODEC, SMALL_CHUNK_SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                array.add(new Point(i, i * 2L));
+            }
+            array.force();
+        }
+        try (MappedDynamicArray<Point> array = new MappedDynamicArray<>(file, CODEC)) {
+            assertEquals(10, array.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(new Point(i, i * 2L), array.get(i));
+            }
+            array.add(new Point(10, 20L));
+        }
+        try (MappedDynamicArray<Point> array = new MappedDynamicArray<>(file, CODEC, SMALL_CHUNK_SIZE)) {
+            assertEquals(11, array.size());
+            assertEquals(new Point(10, 20L), array.get(10));
+        }
+    }
+
+    @Test
+    void testOpeningFileOfOtherArray() throws IOException {
+        Path file = directory.resolve("points");
+        try (MappedDynamicArray<Point> array = new MappedDynamicArray<>(file, CODEC)) {
+            array.add(new Point(1, 1L));
+        }
+        assertThrows(IOException.class, () -> new MappedDynamicArray<>(file, new LongCodec()));
+        Path other = directory.resolve("other");
+        Files.write(other, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+        assertThrows(IOException.class, () -> new MappedDynamicArray<>(other, CODEC));
+    }
+
+    @Test
+    void testOpeningShortFileLeavesItUnchanged() throws IOException {
+        Path file = directory.resolve("short");
+        byte[] content = {1, 2, 3, 4, 5};
+        Files.write(file, content);
+        assertThrows(IOException.class, () -> new MappedDynamicArray<>(file, CODEC));
+        assertEquals(content.length, Files.size(file));
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    void testClearingAndClosing() throws IOException {
+        Path file = directory.resolve("points");
+        MappedDynamicArray<Point> array = new MappedDynamicArray<>(file, CODEC, SMALL_CHUNK_SIZE);
+        for (int i = 0; i < 10; i++) {
+            array.add(new Point(i, i));
+        }
+        array.clear();
+        assertTrue(array.isEmpty());
+        array.add(new Point(7, 7L));
+        assertEquals(new Point(7, 7L), array.get(0));
+        array.close();
+        array.close();
+        assertThrows(IllegalStateException.class, () -> array.add(new Point(8, 8L)));
+        assertThrows(IllegalStateException.class, () -> array.get(0));
+        try (MappedDynamicArray<Point> reopened = new MappedDynamicArray<>(file, CODEC)) {
+            assertEquals(1, reopened.size());
+        }
+    }
+
+    @Test
+    void testAccessingRecordsThroughFlyweight() throws IOException {
+        try (MappedDynamicArray<Point> array = new MappedDynamicArray<>(directory.resolve("points"), CODEC,
+                SMALL_CHUNK_SIZE)) {
+            array.add(new Point(-1, -1L));
+            array.clear();
+            PointFlyweight point = new PointFlyweight();
+            for (int i = 0; i < 20; i++) {
+                array.wrap(array.addBlank(), point);
+                assertEquals(0, point.getX());
+                point.setX(i);
+                point.setY(i * 2L);
+            }
+            for (int i = 0; i < 20; i++) {
+                assertEquals(new Point(i, i * 2L), array.get(i));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> array.wrap(20, point));
+        }
+    }
+
+    private static class Point {
+        final int x;
+        final long y;
+
+        Point(int x, long y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + Long.hashCode(y);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + x + ", " + y + ")";
+        }
+    }
+
+    private static class PointCodec implements RecordCodec<Point> {
+        @Override
+        public int recordSize() {
+            return Integer.BYTES + Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Point record) {
+            buffer.putInt(offset, record.x);
+            buffer.putLong(offset + Integer.BYTES, record.y);
+        }
+
+        @Override
+        public Point read(ByteBuffer buffer, int offset) {
+            return new Point(buffer.getInt(offset), buffer.getLong(offset + Integer.BYTES));
+        }
+    }
+
+    private static class LongCodec implements RecordCodec<Long> {
+        @Override
+        public int recordSize() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long record) {
+            buffer.putLong(offset, record);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    }
+
+    private static class PointFlyweight extends RecordFlyweight {
+        int getX() {
+            return getInt(0);
+        }
+
+        void setX(int x) {
+            putInt(0, x);
+        }
+
+        void setY(long y) {
+            putLong(Integer.BYTES, y);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapDynamicArrayTest {
+    private static final PointCodec CODEC = new PointCodec();
+
+    @Test
+    void testConstructingWhenInitialCapacityIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapDynamicArray<>(CODEC, -1));
+    }
+
+    @Test
+    void testConstructingWhenCodecIsNull() {
+        assertThrows(NullPointerException.class, () -> new OffHeapDynamicArray<Point>(null));
+    }
+
+    @Test
+    void testConstructingWithoutInitialCapacity() {
+        OffHeapDynamicArray<Point> array = new OffHeapDynamicArray<>(CODEC);
+        assertEquals(0, array.size());
+        assertTrue(array.isEmpty());
+        assertEquals(12, array.recordSize());
+    }
+
+    @Test
+    void testAppendingAndRetrievingRecords() {
+        OffHeapDynamicArray<Point> array = new OffHeapDynamicArray<>(CODEC, 0);
+        for (int i = 0; i < 100; i++) {
+            array.add(new Point(i, -i * 10L));
+        }
+        assertTrue(array.addAll(new Point[]{new Point(100, -1000L), new Point(101, -1010L)}));
+        assertEquals(102, array.size());
+        for (int i = 0; i < array.size(); i++) {
+            assertEquals(new Point(i, -i * 10L), array.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(102));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(-1));
+    }
+
+    @Test
+    void testReplacingRecord() {
+        OffHeapDynamicArray<Point> array = new OffHeapDynamicArray<>(CODEC);
+        array.add(new Point(1, 1L));
+        array.set(0, new Point(2, 3L));
+        assertEquals(new Point(2, 3L), array.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.set(1, new Point(0, 0L)));
+    }
+
+    @Test
+    void testInsertingAndRemovingRecords() {
+        OffHeapDynamicArray<Point> array = new OffHeapDynamicArray<>(CODEC, 2);
+        array.add(new Point(1, 1L));
+        array.add(new Point(3, 3L));
+        array.add(0, new Point(0, 0L));
+        array.add(2, new Point(2, 2L));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(new Point(i, i), array.get(i));
+        }
+        array.remove(1);
+        array.remove(0);
+        assertEquals(2, array.size());
+        assertEquals(new Point(2, 2L), array.get(0));
+        assertEquals(new Point(3, 3L), array.get(1));
+        array.clear();
+        assertTrue(array.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.remove(0));
+    }
+
+    @Test
+    void testShrinkingKeepsRecords() {
+        OffHeapDynamicArray<Point> array = new OffHeapDynamicArray<>(CODEC, 1);
+        for (int i = 0; i < 1000; i++) {
+            array.add(new Point(i, i));
+        }
+        while (array.size() > 10) {
+            array.remove(0);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(new Point(990 + i, 990 + i), array.get(i));
+        }
+    }
+
+    @Test
+    void testAccessingRecordsThroughFlyweight() {
+        OffHeapDynamicArray<Point> array = new OffHeapDynamicArray<>(CODEC);
+        PointFlyweight point = new PointFlyweight();
+        for (int i = 0; i < 20; i++) {
+            array.wrap(array.addBlank(), point).setX(i);
+            point.setY(i * 2L);
+        }
+        for (int i = 0; i < 20; i++) {
+            array.wrap(i, point);
+            assertEquals(i, point.getX());
+            assertEquals(i * 2L, point.getY());
+            assertEquals(new Point(i, i * 2L), array.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> array.wrap(20, point));
+    }
+
+    @Test
+    void testRandomOperationsAcrossSegments() {
+        // four records per segment
+        OffHeapDynamicArray<Point> array = new OffHeapDynamicArray<>(CODEC, 0, 64);
+        List<Point> expected = new ArrayList<>();
+        Random random = new Random(9);
+        for (int i = 0; i < 3000; i++) {
+            int operation = random.nextInt(4);
+            if (expected.isEmpty() || operation == 0) {
+                array.add(new Point(i, i));
+                expected.add(new Point(i, i));
+            } else if (operation == 1) {
+                int index = random.nextInt(expected.size());
+                array.add(index, new Point(i, -i));
+                expected.add(index, new Point(i, -i));
+            } else if (operation == 2) {
+                int index = random.nextInt(expected.size());
+                array.remove(index);
+                expected.remove(index);
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.get(index), array.get(index));
+            }
+            assertEquals(expected.size(), array.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), array.get(i));
+        }
+    }
+
+    @Test
+    void testGrowingAddsSegmentsAndShrinkingReleasesThem() {
+        OffHeapDynamicArray<Point> array = new OffHeapDynamicArray<>(CODEC, 0, 64);
+        assertEquals(0, array.capacity());
+        for (int i = 0; i < 10; i++) {
+            array.add(new Point(i, i));
+        }
+        assertEquals(12, array.capacity());
+        PointFlyweight point = array.wrap(0, new PointFlyweight());
+        for (int i = 10; i < 100; i++) {
+            array.add(new Point(i, i));
+        }
+        // growth does not move records already stored
+        assertEquals(0, point.getX());
+        while (array.size() > 5) {
+            array.remove(array.size() - 1);
+        }
+        assertEquals(12, array.capacity());
+        array.clear();
+        assertEquals(4, array.capacity());
+    }
+
+    private static class Point {
+        final int x;
+        final long y;
+
+        Point(int x, long y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + Long.hashCode(y);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + x + ", " + y + ")";
+        }
+    }
+
+    private static class PointCodec implements RecordCodec<Point> {
+        @Override
+        public int recordSize() {
+            return Integer.BYTES + Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Point record) {
+            buffer.putInt(offset, record.x);
+            buffer.putLong(offset + Integer.BYTES, record.y);
+        }
+
+        @Override
+        public Point read(ByteBuffer buffer, int offset) {
+            return new Point(buffer.getInt(offset), buffer.getLong(offset + Integer.BYTES));
+        }
+    }
+
+    private static class PointFlyweight extends RecordFlyweight {
+        int getX() {
+            return getInt(0);
+        }
+
+        PointFlyweight setX(int x) {
+            putInt(0, x);
+            return this;
+        }
+
+        long getY() {
+            return getLong(Integer.BYTES);
+        }
+
+        void setY(long y) {
+            putLong(Integer.BYTES, y);
+        }
+    }
+}
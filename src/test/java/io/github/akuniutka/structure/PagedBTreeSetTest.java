@@ -0,0 +1,223 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedBTreeSetTest {
+    private static final LongCodec CODEC = new LongCodec();
+    // nine keys per page, sixteen pages in the buffer pool
+    private static final int PAGE_SIZE = 128;
+    private static final long MEMORY_BUDGET = 16 * PAGE_SIZE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testConstructingWhenPageOrBudgetIsTooSmall() {
+        Path file = directory.resolve("set");
+        assertThrows(IllegalArgumentException.class, () -> new PagedBTreeSet<>(file, CODEC, null, 40, 1 << 20));
+        assertThrows(IllegalArgumentException.class, () -> new PagedBTreeSet<>(file, CODEC, null, PAGE_SIZE,
+                MEMORY_BUDGET - 1));
+    }
+
+    @Test
+    void testIsEmptyIfJustCreated() throws IOException {
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(directory.resolve("set"), CODEC)) {
+            assertTrue(set.isEmpty());
+            assertEquals(0, set.size());
+            assertNull(set.findMin());
+            assertNull(set.findMax());
+            assertFalse(set.contains(1L));
+            assertFalse(set.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void testPagedBTreeSetWithComparator() throws IOException {
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(directory.resolve("set"), CODEC,
+                Comparator.reverseOrder(), PAGE_SIZE, MEMORY_BUDGET)) {
+            List<Long> values = new ArrayList<>();
+            for (long i = 0; i < 100; i++) {
+                values.add(i);
+            }
+            assertTrue(set.addAll(values));
+            Collections.reverse(values);
+            assertIterableEquals(values, set);
+            assertEquals(99L, set.findMin());
+            assertEquals(0L, set.findMax());
+        }
+    }
+
+    @Test
+    void testRandomAddsAndRemovesAgainstTreeSet() throws IOException {
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(directory.resolve("set"), CODEC, null, PAGE_SIZE,
+                MEMORY_BUDGET)) {
+            TreeSet<Long> expected = new TreeSet<>();
+            Random random = new Random(1);
+            for (int i = 0; i < 30_000; i++) {
+                Long value = (long) random.nextInt(3_000);
+                if (random.nextInt(3) != 0) {
+                    assertEquals(expected.add(value), set.add(value));
+                } else {
+                    assertEquals(expected.remove(value), set.remove(value));
+                }
+                assertEquals(expected.contains(value), set.contains(value));
+            }
+            assertEquals(expected.size(), set.size());
+            assertIterableEquals(expected, set);
+            assertEquals(expected.first(), set.findMin());
+            assertEquals(expected.last(), set.findMax());
+            for (Long value : new ArrayList<>(expected)) {
+                assertTrue(set.remove(value));
+            }
+            assertTrue(set.isEmpty());
+            assertFalse(set.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void testReopeningKeepsElements() throws IOException {
+        Path file = directory.resolve("set");
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(file, CODEC, null, PAGE_SIZE, MEMORY_BUDGET)) {
+            for (long i = 0; i < 1_000; i++) {
+                set.add(i * 2);
+            }
+        }
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(file, CODEC, null, PAGE_SIZE, MEMORY_BUDGET)) {
+            assertEquals(1_000, set.size());
+            for (long i = 0; i < 1_000; i++) {
+                assertTrue(set.contains(i * 2));
+                assertFalse(set.contains(i * 2 + 1));
+            }
+            set.removeAll(Arrays.asList(0L, 2L, 4L));
+        }
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(file, CODEC, null, PAGE_SIZE, MEMORY_BUDGET)) {
+            assertEquals(997, set.size());
+            assertEquals(6L, set.findMin());
+        }
+        assertThrows(IOException.class, () -> new PagedBTreeSet<>(file, CODEC));
+    }
+
+    @Test
+    void testFreedPagesAreReused() throws IOException {
+        Path file = directory.resolve("set");
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(file, CODEC, null, PAGE_SIZE, MEMORY_BUDGET)) {
+            for (int round = 0; round < 5; round++) {
+                for (long i = 0; i < 2_000; i++) {
+                    set.add(i);
+                }
+                for (long i = 0; i < 2_000; i++) {
+                    set.remove(i);
+                }
+            }
+            set.flush();
+            assertTrue(Files.size(file) < 2_000 / 4 * PAGE_SIZE);
+        }
+    }
+
+    @Test
+    void testLookupReadsOnePagePerLevel() throws IOException {
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(directory.resolve("set"), CODEC, null, PAGE_SIZE,
+                MEMORY_BUDGET)) {
+            for (long i = 0; i < 100_000; i++) {
+                set.add(i);
+            }
+            // every node holds at least four keys, so there are at most
+            // log_5(100_000) + 1 levels
+            Random random = new Random(1);
+            for (int i = 0; i < 100; i++) {
+                long before = set.pageReadCount();
+                assertTrue(set.contains((long) random.nextInt(100_000)));
+                assertTrue(set.pageReadCount() - before <= 8);
+            }
+        }
+    }
+
+    @Test
+    void testIteratorFromElement() throws IOException {
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(directory.resolve("set"), CODEC, null, PAGE_SIZE,
+                MEMORY_BUDGET)) {
+            for (long i = 0; i < 1_000; i++) {
+                set.add(i * 10);
+            }
+            Iterator<Long> iterator = set.iterator(4_995L);
+            for (long i = 500; i < 1_000; i++) {
+                assertEquals(i * 10, iterator.next());
+            }
+            assertFalse(iterator.hasNext());
+            assertThrows(NoSuchElementException.class, iterator::next);
+            assertEquals(5_000L, set.iterator(5_000L).next());
+            assertFalse(set.iterator(100_000L).hasNext());
+        }
+    }
+
+    @Test
+    void testIteratorRemove() throws IOException {
+        try (PagedBTreeSet<Long> set = new PagedBTreeSet<>(directory.resolve("set"), CODEC, null, PAGE_SIZE,
+                MEMORY_BUDGET)) {
+            for (long i = 0; i < 500; i++) {
+                set.add(i);
+            }
+            Iterator<Long> iterator = set.iterator();
+            assertThrows(IllegalStateException.class, iterator::remove);
+            long expected = 0;
+            while (iterator.hasNext()) {
+                Long value = iterator.next();
+                assertEquals(expected++, value);
+                if (value % 2 == 0) {
+                    iterator.remove();
+                }
+            }
+            assertEquals(250, set.size());
+            for (Long value : set) {
+                assertEquals(1, value % 2);
+            }
+        }
+    }
+
+    @Test
+    void testClearAndClose() throws IOException {
+        Path file = directory.resolve("set");
+        PagedBTreeSet<Long> set = new PagedBTreeSet<>(file, CODEC, null, PAGE_SIZE, MEMORY_BUDGET);
+        for (long i = 0; i < 1_000; i++) {
+            set.add(i);
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(PAGE_SIZE, Files.size(file));
+        set.add(7L);
+        set.close();
+        set.close();
+        assertThrows(IllegalStateException.class, () -> set.add(8L));
+        assertThrows(IllegalStateException.class, () -> set.contains(7L));
+        try (PagedBTreeSet<Long> reopened = new PagedBTreeSet<>(file, CODEC, null, PAGE_SIZE, MEMORY_BUDGET)) {
+            assertEquals(1, reopened.size());
+            assertTrue(reopened.contains(7L));
+        }
+    }
+
+    private static class LongCodec implements RecordCodec<Long> {
+        @Override
+        public int recordSize() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long record) {
+            buffer.putLong(offset, record);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    }
+}
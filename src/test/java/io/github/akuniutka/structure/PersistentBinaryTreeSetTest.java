@@ -0,0 +1,131 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentBinaryTreeSetTest {
+    @Test
+    void testIsEmptyIfJustCreated() {
+        PersistentBinaryTreeSet<Integer> set = PersistentBinaryTreeSet.empty();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertNull(set.findMin());
+        assertNull(set.findMax());
+        assertFalse(set.iterator().hasNext());
+        assertEquals("[]", set.toString());
+    }
+
+    @Test
+    void testAddReturnsNewVersionAndKeepsOldOne() {
+        PersistentBinaryTreeSet<Integer> empty = PersistentBinaryTreeSet.empty();
+        PersistentBinaryTreeSet<Integer> one = empty.add(10);
+        PersistentBinaryTreeSet<Integer> two = one.add(20);
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.size());
+        assertFalse(one.contains(20));
+        assertEquals(2, two.size());
+        assertTrue(two.containsAll(Arrays.asList(10, 20)));
+        assertEquals("[10, 20]", two.toString());
+    }
+
+    @Test
+    void testUnchangedVersionIsReturnedAsIs() {
+        PersistentBinaryTreeSet<Integer> set = PersistentBinaryTreeSet.<Integer>empty().add(10);
+        assertSame(set, set.add(10));
+        assertSame(set, set.add(null));
+        assertSame(set, set.remove(20));
+        assertSame(set, set.remove(null));
+    }
+
+    @Test
+    void testSetWithComparator() {
+        PersistentBinaryTreeSet<Integer> set = PersistentBinaryTreeSet.<Integer>empty(Comparator.reverseOrder())
+                .addAll(Arrays.asList(10, 30, 20));
+        assertEquals("[30, 20, 10]", set.toString());
+        assertEquals(30, set.findMin());
+        assertEquals(10, set.findMax());
+    }
+
+    @Test
+    void testIteratorDoesNotSupportRemove() {
+        Iterator<Integer> iterator = PersistentBinaryTreeSet.<Integer>empty().add(10).iterator();
+        assertEquals(10, iterator.next());
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void testSnapshotIsStableWhileNewVersionsAreMade() {
+        PersistentBinaryTreeSet<Integer> set = PersistentBinaryTreeSet.empty();
+        for (int i = 0; i < 1_000; i++) {
+            set = set.add(i);
+        }
+        PersistentBinaryTreeSet<Integer> snapshot = set;
+        Iterator<Integer> iterator = snapshot.iterator();
+        for (int i = 0; i < 1_000; i += 2) {
+            set = set.remove(i).add(i + 1_000);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+        assertEquals(1_000, snapshot.size());
+        assertEquals(1_000, set.size());
+        assertEquals(1, set.findMin());
+    }
+
+    @Test
+    void testSortedInsertionsKeepTreeBalanced() throws ReflectiveOperationException {
+        PersistentBinaryTreeSet<Integer> set = PersistentBinaryTreeSet.empty();
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            set = set.add(i);
+        }
+        // AVL tree height never exceeds 1.44 * log2(n + 2)
+        assertTrue(heightOf(set) <= 1.45 * Math.log(n + 2) / Math.log(2));
+    }
+
+    @Test
+    void testRandomOperationsAgainstTreeSet() {
+        PersistentBinaryTreeSet<Integer> set = PersistentBinaryTreeSet.empty();
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<PersistentBinaryTreeSet<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> expectedVersions = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            Integer value = random.nextInt(1_000);
+            if (random.nextBoolean()) {
+                expected.add(value);
+                set = set.add(value);
+            } else {
+                expected.remove(value);
+                set = set.remove(value);
+            }
+            assertEquals(expected.size(), set.size());
+            if (i % 1_000 == 0) {
+                versions.add(set);
+                expectedVersions.add(new ArrayList<>(expected));
+            }
+        }
+        assertIterableEquals(expected, set);
+        for (int i = 0; i < versions.size(); i++) {
+            assertIterableEquals(expectedVersions.get(i), versions.get(i));
+        }
+    }
+
+    private static int heightOf(PersistentBinaryTreeSet<?> set) throws ReflectiveOperationException {
+        Field rootField = PersistentBinaryTreeSet.class.getDeclaredField("root");
+        rootField.setAccessible(true);
+        Object root = rootField.get(set);
+        if (root == null) {
+            return 0;
+        }
+        Field heightField = root.getClass().getDeclaredField("height");
+        heightField.setAccessible(true);
+        return heightField.getInt(root);
+    }
+}
@@ -0,0 +1,244 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedBlackTreeSetTest extends AbstractTreeSetStreamTest<RedBlackTreeSet<Integer>> {
+    @Test
+    void testRedBlackTreeSetWithoutComparator() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        List<Integer> values = Arrays.asList(10, 20, 30);
+        set.addAll(values);
+        int index = 0;
+        for (Integer value : set) {
+            assertEquals(values.get(index++), value);
+        }
+        assertValidRedBlackTree(set);
+    }
+
+    @Test
+    void testRedBlackTreeSetWithComparator() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>(Comparator.reverseOrder());
+        List<Integer> values = Arrays.asList(10, 20, 30);
+        set.addAll(values);
+        int index = 2;
+        for (Integer value : set) {
+            assertEquals(values.get(index--), value);
+        }
+        assertValidRedBlackTree(set);
+    }
+
+    @Test
+    void testIsEmptyIfJustCreated() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void testIsEmptyIfLastElementRemoved() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        set.add(10);
+        set.remove(10);
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void testSizeIfExistingElementsAdded() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        set.addAll(Arrays.asList(10, 20, 30));
+        set.addAll(Arrays.asList(30, 40, 50));
+        assertEquals(5, set.size());
+    }
+
+    @Test
+    void testAddIfElementAlreadyExists() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        assertTrue(set.add(10));
+        assertFalse(set.add(10));
+    }
+
+    @Test
+    void testAddIfElementIsNull() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        assertFalse(set.add(null));
+        assertFalse(set.contains(null));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void testContainsAll() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        set.addAll(Arrays.asList(10, 20, 30));
+        assertTrue(set.containsAll(Arrays.asList(10, 20)));
+        assertFalse(set.containsAll(Arrays.asList(10, 20, 40)));
+    }
+
+    @Test
+    void testRemoveAll() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        set.addAll(Arrays.asList(10, 20, 30));
+        assertTrue(set.removeAll(Arrays.asList(10, 40, 50)));
+        assertFalse(set.removeAll(Arrays.asList(40, 50, 60)));
+        assertEquals(2, set.size());
+        assertValidRedBlackTree(set);
+    }
+
+    @Test
+    void testClear() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        set.addAll(Arrays.asList(10, 20, 30));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    void testFindMinAndFindMax() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        assertNull(set.findMin());
+        assertNull(set.findMax());
+        set.addAll(Arrays.asList(20, 10, 30));
+        assertEquals(10, set.findMin());
+        assertEquals(30, set.findMax());
+    }
+
+    @Test
+    void testHeightIsLogarithmicWhenElementsAddedInSortedOrder() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            set.add(i);
+        }
+        assertEquals(n, set.size());
+        int height = assertValidRedBlackTree(set);
+        assertTrue(height <= 2 * (32 - Integer.numberOfLeadingZeros(n + 1)));
+    }
+
+    @Test
+    void testRandomAddsAndRemovesAgainstTreeSet() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            Integer value = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertIterableEquals(expected, set);
+        assertValidRedBlackTree(set);
+    }
+
+    @Test
+    void testIteratorRemove() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        Iterator<Integer> iterator = set.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        List<Integer> visited = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Integer value = iterator.next();
+            visited.add(value);
+            if (value % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(100, visited.size());
+        assertEquals(50, set.size());
+        for (Integer value : set) {
+            assertEquals(1, value % 2);
+        }
+        assertValidRedBlackTree(set);
+    }
+
+    @Test
+    void testIteratorWhenExhausted() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        assertThrows(NoSuchElementException.class, () -> set.iterator().next());
+    }
+
+    @Test
+    void testSpliteratorSplitsSortedInsertionsIntoBoundedChunks() {
+        RedBlackTreeSet<Integer> set = new RedBlackTreeSet<>();
+        for (int i = 0; i < 1023; i++) {
+            set.add(i);
+        }
+        // sorted insertions lean the tree to the right, but no subtree
+        // three levels down may hold half of the elements
+        List<Integer> sizes = chunkSizes(set.spliterator(), 3);
+        assertEquals(8, sizes.size());
+        for (int size : sizes) {
+            assertTrue(size > 0 && size < 512);
+        }
+    }
+
+    private <E> int assertValidRedBlackTree(RedBlackTreeSet<E> set) {
+        try {
+            Field rootNodeField = set.getClass().getDeclaredField("root");
+            rootNodeField.setAccessible(true);
+            Object rootNode = rootNodeField.get(set);
+            if (rootNode != null) {
+                assertFalse(isRed(rootNode), "root must be black");
+            }
+            return checkNode(rootNode, null)[1];
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // returns {black height, height}
+    private int[] checkNode(Object node, Object parent) throws NoSuchFieldException, IllegalAccessException {
+        if (node == null) {
+            return new int[]{1, 0};
+        }
+        Object left = field(node, "left");
+        Object right = field(node, "right");
+        assertSame(parent, field(node, "parent"));
+        if (isRed(node)) {
+            assertFalse(left != null && isRed(left), "red node must not have red children");
+            assertFalse(right != null && isRed(right), "red node must not have red children");
+        }
+        int[] leftResult = checkNode(left, node);
+        int[] rightResult = checkNode(right, node);
+        assertEquals(leftResult[0], rightResult[0], "black heights must be equal");
+        return new int[]{leftResult[0] + (isRed(node) ? 0 : 1), Math.max(leftResult[1], rightResult[1]) + 1};
+    }
+
+    private boolean isRed(Object node) throws NoSuchFieldException, IllegalAccessException {
+        return (boolean) field(node, "color");
+    }
+
+    private Object field(Object node, String name) throws NoSuchFieldException, IllegalAccessException {
+        Field field = node.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(node);
+    }
+
+    @Override
+    RedBlackTreeSet<Integer> createSet(Comparator<Integer> comparator) {
+        return new RedBlackTreeSet<>(comparator);
+    }
+
+    @Override
+    boolean add(RedBlackTreeSet<Integer> set, Integer value) {
+        return set.add(value);
+    }
+
+    @Override
+    Stream<Integer> stream(RedBlackTreeSet<Integer> set, boolean isParallel) {
+        return isParallel ? set.parallelStream() : set.stream();
+    }
+}
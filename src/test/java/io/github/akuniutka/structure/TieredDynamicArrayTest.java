@@ -0,0 +1,205 @@
+package io.github.akuniutka.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredDynamicArrayTest {
+    @Test
+    void testIsEmptyIfJustCreated() {
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>();
+        assertTrue(array.isEmpty());
+        assertEquals(0, array.size());
+        assertArrayEquals(new Integer[0], array.toArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> array.add(0, 1));
+        assertThrows(NoSuchElementException.class, () -> array.iterator().next());
+    }
+
+    @Test
+    void testCreatingFromFixedLengthArray() {
+        Integer[] values = {5, 4, 3, 2, 1};
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>(values);
+        assertEquals(5, array.size());
+        assertArrayEquals(values, array.toArray());
+        assertEquals(3, array.set(2, 30));
+        assertEquals(30, array.get(2));
+    }
+
+    @Test
+    void testInsertingAtFrontKeepsOrder() {
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>();
+        array.add(0);
+        int n = 5000;
+        for (int i = 1; i < n; i++) {
+            array.add(0, i);
+        }
+        for (int i = 0; i < n; i++) {
+            assertEquals(n - 1 - i, array.get(i));
+        }
+        for (int i = n - 1; i > 0; i--) {
+            assertEquals(i, array.remove(0));
+        }
+        assertArrayEquals(new Integer[]{0}, array.toArray());
+    }
+
+    @Test
+    void testRandomOperationsAgainstArrayList() {
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>();
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(23);
+        // grow past several block size changes, then shrink back
+        for (int round = 0; round < 2; round++) {
+            int removeBias = round == 0 ? 3 : 7;
+            for (int i = 0; i < 15_000; i++) {
+                int operation = random.nextInt(10);
+                if (expected.isEmpty() || operation == 0) {
+                    array.add(i);
+                    expected.add(i);
+                } else if (operation < removeBias) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.remove(index), array.remove(index));
+                } else if (operation < 9) {
+                    int index = random.nextInt(expected.size());
+                    array.add(index, i);
+                    expected.add(index, i);
+                } else {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.get(index), array.get(index));
+                }
+                assertEquals(expected.size(), array.size());
+            }
+            assertArrayEquals(expected.toArray(), array.toArray());
+        }
+    }
+
+    @Test
+    void testBulkInsertion() {
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            array.add(i);
+            expected.add(i);
+        }
+        Integer[] small = {-1, -2, -3};
+        Integer[] large = new Integer[1000];
+        Arrays.fill(large, -9);
+        assertTrue(array.addAll(50, small));
+        expected.addAll(50, Arrays.asList(small));
+        assertTrue(array.addAll(7, large));
+        expected.addAll(7, Arrays.asList(large));
+        assertFalse(array.addAll(0, new Integer[0]));
+        assertArrayEquals(expected.toArray(), array.toArray());
+        array.add(0, 100);
+        expected.add(0, 100);
+        assertEquals(expected.remove(500), array.remove(500));
+        assertArrayEquals(expected.toArray(), array.toArray());
+    }
+
+    @Test
+    void testBulkInsertionPicksBlockSizeForNewSize() throws ReflectiveOperationException {
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>();
+        for (int i = 0; i < 100; i++) {
+            array.add(i);
+        }
+        Integer[] large = new Integer[100_000];
+        Arrays.fill(large, -1);
+        array.addAll(50, large);
+        // 4 * 128 * 128 < 100_100 <= 4 * 256 * 256
+        assertEquals(8, blockShiftOf(array));
+        array.add(0, -2);
+        assertEquals(8, blockShiftOf(array));
+        assertEquals(100_101, array.size());
+        assertEquals(-2, array.get(0));
+        assertEquals(-1, array.get(51));
+        assertEquals(99, array.get(100_100));
+    }
+
+    @Test
+    void testCopyingAndAddingArrays() {
+        TieredDynamicArray<Integer> source = new TieredDynamicArray<>();
+        for (int i = 0; i < 50; i++) {
+            source.add(i);
+        }
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>(source);
+        assertArrayEquals(source.toArray(), array.toArray());
+        array.set(0, -1);
+        assertEquals(0, source.get(0));
+        List<Integer> expected = new ArrayList<>();
+        array.forEach(expected::add);
+        assertTrue(array.addAll(source));
+        source.forEach(expected::add);
+        assertTrue(array.addAll(10, array));
+        expected.addAll(10, new ArrayList<>(expected));
+        assertFalse(array.addAll(new TieredDynamicArray<>()));
+        assertArrayEquals(expected.toArray(), array.toArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.addAll(-1, source));
+        assertThrows(NullPointerException.class, () -> array.addAll((TieredDynamicArray<Integer>) null));
+    }
+
+    @Test
+    void testSorting() {
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>();
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(7);
+        array.add(0);
+        expected.add(0);
+        for (int i = 0; i < 2_000; i++) {
+            // inserting at the front moves block heads away from slot 0
+            Integer value = random.nextInt(1_000);
+            array.add(0, value);
+            expected.add(0, value);
+        }
+        array.sort(null);
+        expected.sort(null);
+        assertArrayEquals(expected.toArray(), array.toArray());
+        array.sort(Comparator.reverseOrder());
+        expected.sort(Comparator.reverseOrder());
+        assertArrayEquals(expected.toArray(), array.toArray());
+    }
+
+    @Test
+    void testIteration() {
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>();
+        array.add(0);
+        for (int i = 1; i < 1000; i++) {
+            array.add(0, i);
+        }
+        List<Integer> visited = new ArrayList<>();
+        array.forEach(visited::add);
+        List<Integer> iterated = new ArrayList<>();
+        for (Iterator<Integer> iterator = array.iterator(); iterator.hasNext(); ) {
+            iterated.add(iterator.next());
+        }
+        assertArrayEquals(array.toArray(), visited.toArray());
+        assertEquals(visited, iterated);
+        assertEquals(999, visited.get(0));
+    }
+
+    @Test
+    void testClear() {
+        TieredDynamicArray<Integer> array = new TieredDynamicArray<>();
+        for (int i = 0; i < 3000; i++) {
+            array.add(i);
+        }
+        array.clear();
+        assertTrue(array.isEmpty());
+        array.add(1);
+        assertArrayEquals(new Integer[]{1}, array.toArray());
+    }
+
+    private static int blockShiftOf(TieredDynamicArray<?> array) throws ReflectiveOperationException {
+        Field field = TieredDynamicArray.class.getDeclaredField("blockShift");
+        field.setAccessible(true);
+        return field.getInt(array);
+    }
+}